@@ -0,0 +1,165 @@
+package consulo.application.internal.util;
+
+import org.jspecify.annotations.Nullable;
+
+import java.text.NumberFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in aggregated statistics of cached value computations, grouped by {@link consulo.application.util.CachedValueProvider} class.
+ * <p>
+ * Unlike {@link CachedValueProfiler} it does not capture stack traces, so it is cheap enough to be kept enabled
+ * for a whole session. When disabled, each instrumented call site costs a single volatile read.
+ *
+ * @since 2026-10-19
+ */
+public final class CachedValueProviderStatistics {
+    public static final class ProviderStats {
+        private final String myProviderClass;
+
+        private final LongAdder myComputeCount = new LongAdder();
+        private final LongAdder myComputeTime = new LongAdder();
+        private final LongAdder myCheckCount = new LongAdder();
+        private final LongAdder myCheckTime = new LongAdder();
+        private final LongAdder myHitCount = new LongAdder();
+        private final LongAdder myInvalidationCount = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> myInvalidationCauses = new ConcurrentHashMap<>();
+
+        ProviderStats(String providerClass) {
+            myProviderClass = providerClass;
+        }
+
+        public String getProviderClass() {
+            return myProviderClass;
+        }
+
+        public long getComputeCount() {
+            return myComputeCount.sum();
+        }
+
+        public long getComputeTimeNanos() {
+            return myComputeTime.sum();
+        }
+
+        public long getCheckCount() {
+            return myCheckCount.sum();
+        }
+
+        public long getCheckTimeNanos() {
+            return myCheckTime.sum();
+        }
+
+        public long getHitCount() {
+            return myHitCount.sum();
+        }
+
+        public long getInvalidationCount() {
+            return myInvalidationCount.sum();
+        }
+
+        public double getHitRate() {
+            long checks = getCheckCount();
+            return checks == 0 ? 0 : getHitCount() / (double) checks;
+        }
+
+        /**
+         * @return invalidation count per class of the dependency which was found out of date, most frequent first
+         */
+        public Map<String, Long> getInvalidationCauses() {
+            List<Map.Entry<String, LongAdder>> entries = new ArrayList<>(myInvalidationCauses.entrySet());
+            entries.sort((o1, o2) -> Long.compare(o2.getValue().sum(), o1.getValue().sum()));
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Map.Entry<String, LongAdder> entry : entries) {
+                result.put(entry.getKey(), entry.getValue().sum());
+            }
+            return result;
+        }
+    }
+
+    private static final ConcurrentMap<Class<?>, ProviderStats> ourStats = new ConcurrentHashMap<>();
+
+    private static volatile boolean ourEnabled = false;
+
+    private CachedValueProviderStatistics() {
+    }
+
+    public static boolean isEnabled() {
+        return ourEnabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ourEnabled = enabled;
+    }
+
+    public static void reset() {
+        ourStats.clear();
+    }
+
+    public static void recordCompute(Class<?> providerClass, long timeNanos) {
+        ProviderStats stats = getOrCreate(providerClass);
+        stats.myComputeCount.increment();
+        stats.myComputeTime.add(timeNanos);
+    }
+
+    public static void recordUpToDateCheck(Class<?> providerClass, long timeNanos, boolean upToDate) {
+        ProviderStats stats = getOrCreate(providerClass);
+        stats.myCheckCount.increment();
+        stats.myCheckTime.add(timeNanos);
+        if (upToDate) {
+            stats.myHitCount.increment();
+        }
+    }
+
+    /**
+     * @param cause dependency which was found out of date, or {@code null} if it is not known (e.g. disposed project)
+     */
+    public static void recordInvalidation(Class<?> providerClass, @Nullable Object cause) {
+        ProviderStats stats = getOrCreate(providerClass);
+        stats.myInvalidationCount.increment();
+        String causeName = cause == null ? "<unknown>" : cause.getClass().getName();
+        stats.myInvalidationCauses.computeIfAbsent(causeName, s -> new LongAdder()).increment();
+    }
+
+    public static boolean hasStatistics() {
+        return !ourStats.isEmpty();
+    }
+
+    /**
+     * @return collected statistics, sorted by total compute time descending
+     */
+    public static List<ProviderStats> getStatistics() {
+        List<ProviderStats> result = new ArrayList<>(ourStats.values());
+        result.sort((o1, o2) -> Long.compare(o2.getComputeTimeNanos(), o1.getComputeTimeNanos()));
+        return result;
+    }
+
+    public static String dump() {
+        NumberFormat format = NumberFormat.getInstance(Locale.US);
+        StringBuilder builder = new StringBuilder();
+        builder.append("provider\tcomputes\tcompute ms\tchecks\tcheck ms\thit rate\tinvalidations\tcauses\n");
+        for (ProviderStats stats : getStatistics()) {
+            builder.append(stats.getProviderClass()).append('\t');
+            builder.append(format.format(stats.getComputeCount())).append('\t');
+            builder.append(format.format(stats.getComputeTimeNanos() / 1_000_000)).append('\t');
+            builder.append(format.format(stats.getCheckCount())).append('\t');
+            builder.append(format.format(stats.getCheckTimeNanos() / 1_000_000)).append('\t');
+            builder.append(String.format(Locale.US, "%.1f%%", stats.getHitRate() * 100)).append('\t');
+            builder.append(format.format(stats.getInvalidationCount())).append('\t');
+
+            StringJoiner causes = new StringJoiner(", ");
+            for (Map.Entry<String, Long> entry : stats.getInvalidationCauses().entrySet()) {
+                causes.add(entry.getKey() + "=" + format.format(entry.getValue()));
+            }
+            builder.append(causes).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static ProviderStats getOrCreate(Class<?> providerClass) {
+        return ourStats.computeIfAbsent(providerClass, aClass -> new ProviderStats(aClass.getName()));
+    }
+}
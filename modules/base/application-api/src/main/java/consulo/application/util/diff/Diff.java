@@ -2,6 +2,8 @@
 package consulo.application.util.diff;
 
 import consulo.application.internal.DiffConfig;
+import consulo.application.progress.DumbProgressIndicator;
+import consulo.application.progress.ProgressIndicator;
 import consulo.application.util.Enumerator;
 import consulo.application.util.LineTokenizer;
 import consulo.logging.Logger;
@@ -31,6 +33,16 @@ public final class Diff {
 
     public static <T> @Nullable Change buildChanges(T[] objects1, T[] objects2, HashingStrategy<? super T> strategy)
         throws FilesTooBigForDiffException {
+        return buildChanges(objects1, objects2, strategy, DiffAlgorithm.DEFAULT, DumbProgressIndicator.INSTANCE);
+    }
+
+    public static <T> @Nullable Change buildChanges(
+        T[] objects1,
+        T[] objects2,
+        HashingStrategy<? super T> strategy,
+        DiffAlgorithm algorithm,
+        ProgressIndicator indicator
+    ) throws FilesTooBigForDiffException {
 
         int startShift = getStartShift(objects1, objects2, strategy);
         int endCut = getEndCut(objects1, objects2, startShift, strategy);
@@ -44,10 +56,15 @@ public final class Diff {
         Enumerator<T> enumerator = new Enumerator<>(trimmedLength, strategy);
         int[] ints1 = enumerator.enumerate(objects1, startShift, endCut);
         int[] ints2 = enumerator.enumerate(objects2, startShift, endCut);
-        return doBuildChanges(ints1, ints2, new ChangeBuilder(startShift));
+        return doBuildChanges(ints1, ints2, new ChangeBuilder(startShift), algorithm, indicator);
     }
 
     public static @Nullable Change buildChanges(int[] array1, int[] array2) throws FilesTooBigForDiffException {
+        return buildChanges(array1, array2, DiffAlgorithm.DEFAULT, DumbProgressIndicator.INSTANCE);
+    }
+
+    public static @Nullable Change buildChanges(int[] array1, int[] array2, DiffAlgorithm algorithm, ProgressIndicator indicator)
+        throws FilesTooBigForDiffException {
         int startShift = getStartShift(array1, array2);
         int endCut = getEndCut(array1, array2, startShift);
 
@@ -59,7 +76,7 @@ public final class Diff {
         boolean copyArray = startShift != 0 || endCut != 0;
         int[] ints1 = copyArray ? Arrays.copyOfRange(array1, startShift, array1.length - endCut) : array1;
         int[] ints2 = copyArray ? Arrays.copyOfRange(array2, startShift, array2.length - endCut) : array2;
-        return doBuildChanges(ints1, ints2, new ChangeBuilder(startShift));
+        return doBuildChanges(ints1, ints2, new ChangeBuilder(startShift), algorithm, indicator);
     }
 
     private static @Nullable SimpleReference<Change> doBuildChangesFast(int length1, int length2, int startShift, int endCut) {
@@ -74,8 +91,13 @@ public final class Diff {
         return new SimpleReference<>(change);
     }
 
-    private static @Nullable Change doBuildChanges(int[] ints1, int[] ints2, ChangeBuilder builder)
-        throws FilesTooBigForDiffException {
+    private static @Nullable Change doBuildChanges(
+        int[] ints1,
+        int[] ints2,
+        ChangeBuilder builder,
+        DiffAlgorithm algorithm,
+        ProgressIndicator indicator
+    ) throws FilesTooBigForDiffException {
         Reindexer reindexer = new Reindexer(); // discard unique elements, that have no chance to be matched
         int[][] discarded = reindexer.discardUnique(ints1, ints2);
 
@@ -86,7 +108,12 @@ public final class Diff {
         }
 
         BitSet[] changes;
-        if (DiffConfig.USE_PATIENCE_ALG) {
+        if (algorithm == DiffAlgorithm.HISTOGRAM) {
+            HistogramLCS histogramLCS = new HistogramLCS(discarded[0], discarded[1], indicator);
+            histogramLCS.execute();
+            changes = histogramLCS.getChanges();
+        }
+        else if (DiffConfig.USE_PATIENCE_ALG) {
             PatienceIntLCS patienceIntLCS = new PatienceIntLCS(discarded[0], discarded[1]);
             patienceIntLCS.execute();
             changes = patienceIntLCS.getChanges();
@@ -0,0 +1,15 @@
+package consulo.application.util.diff;
+
+/**
+ * @since 2026-10-19
+ */
+public enum DiffAlgorithm {
+    /**
+     * Myers algorithm with a fallback to the patience one, gives up with {@link FilesTooBigForDiffException} on too different sequences.
+     */
+    DEFAULT,
+    /**
+     * Histogram algorithm, takes linear memory and never gives up, but may report more changes on sequences of frequent elements.
+     */
+    HISTOGRAM
+}
@@ -0,0 +1,223 @@
+package consulo.application.util.diff;
+
+import consulo.application.progress.ProgressIndicator;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * Histogram diff: the sequences are split by the longest common region around the element of the first sequence
+ * which occurs the least number of times, and the parts on both sides of the region are compared the same way.
+ * <p>
+ * Unlike {@link MyersLCS} and {@link PatienceIntLCS} it never gives up on too different sequences.
+ * Elements occurring more than {@link #MAX_CHAIN} times are never used to split the sequences,
+ * so a part without other common elements is compared by {@link MyersLCS} if it is small and is left changed otherwise.
+ * The total amount of work is bounded as well, parts which remain when it is spent are left changed.
+ * <p>
+ * Parts are kept in a queue instead of the call stack, and the occurrence index is allocated once for the whole sequence,
+ * so the memory is linear in the length of the sequences.
+ *
+ * @since 2026-10-19
+ */
+class HistogramLCS {
+    private static final int MAX_CHAIN = 64;
+    private static final int MAX_MYERS_SIZE = 4096;
+    private static final int WORK_PER_ELEMENT = 256;
+    private static final int CHECK_CANCELED_INTERVAL = 1 << 16;
+
+    private final int[] myFirst;
+    private final int[] mySecond;
+    private final BitSet myChanges1;
+    private final BitSet myChanges2;
+    private final ProgressIndicator myIndicator;
+
+    // open addressing table of the elements of the current part of the first sequence
+    private final int[] myKeys;
+    private final int[] myCounts;
+    // position of the first occurrence of the element plus one, 0 for an empty slot
+    private final int[] myHeads;
+    // position of the next occurrence of the same element plus one, relative to the start of the part
+    private final int[] myNext;
+    private int myMask;
+
+    private long myWorkLeft;
+    private int myWorkSinceCheck;
+
+    HistogramLCS(int[] first, int[] second, ProgressIndicator indicator) {
+        myFirst = first;
+        mySecond = second;
+        myChanges1 = new BitSet(first.length);
+        myChanges2 = new BitSet(second.length);
+        myIndicator = indicator;
+
+        int capacity = tableSize(first.length);
+        myKeys = new int[capacity];
+        myCounts = new int[capacity];
+        myHeads = new int[capacity];
+        myNext = new int[first.length];
+
+        myWorkLeft = (long)WORK_PER_ELEMENT * (first.length + second.length);
+    }
+
+    public void execute() {
+        myChanges1.set(0, myFirst.length);
+        myChanges2.set(0, mySecond.length);
+
+        Deque<int[]> parts = new ArrayDeque<>();
+        parts.push(new int[]{0, myFirst.length, 0, mySecond.length});
+        while (!parts.isEmpty()) {
+            myIndicator.checkCanceled();
+
+            int[] part = parts.pop();
+            int start1 = part[0];
+            int end1 = part[1];
+            int start2 = part[2];
+            int end2 = part[3];
+
+            while (start1 < end1 && start2 < end2 && myFirst[start1] == mySecond[start2]) {
+                addUnchanged(start1++, start2++, 1);
+            }
+            while (start1 < end1 && start2 < end2 && myFirst[end1 - 1] == mySecond[end2 - 1]) {
+                addUnchanged(--end1, --end2, 1);
+            }
+            if (start1 == end1 || start2 == end2) {
+                continue;
+            }
+
+            if (myWorkLeft <= 0 || !split(start1, end1, start2, end2, parts)) {
+                int count1 = end1 - start1;
+                int count2 = end2 - start2;
+                if (count1 + count2 <= MAX_MYERS_SIZE) {
+                    new MyersLCS(myFirst, mySecond, start1, count1, start2, count2, myChanges1, myChanges2).execute();
+                }
+            }
+        }
+    }
+
+    public BitSet[] getChanges() {
+        return new BitSet[]{myChanges1, myChanges2};
+    }
+
+    /**
+     * Looks for the longest common region around the least frequent element of the part,
+     * marks it unchanged and queues the parts on both sides of it.
+     *
+     * @return false if the part has no common elements occurring at most {@link #MAX_CHAIN} times
+     */
+    private boolean split(int start1, int end1, int start2, int end2, Deque<int[]> parts) {
+        buildIndex(start1, end1);
+
+        int bestCount = MAX_CHAIN;
+        int bestStart1 = -1;
+        int bestStart2 = -1;
+        int bestLength = 0;
+
+        int index2 = start2;
+        while (index2 < end2) {
+            int next2 = index2 + 1;
+            int slot = find(mySecond[index2]);
+            if (slot >= 0 && myCounts[slot] <= bestCount) {
+                int count = myCounts[slot];
+                for (int index1 = myHeads[slot] - 1; index1 >= 0; index1 = myNext[index1 - start1] - 1) {
+                    int regionStart1 = index1;
+                    int regionStart2 = index2;
+                    while (regionStart1 > start1 && regionStart2 > start2 && myFirst[regionStart1 - 1] == mySecond[regionStart2 - 1]) {
+                        regionStart1--;
+                        regionStart2--;
+                    }
+                    int regionEnd1 = index1 + 1;
+                    int regionEnd2 = index2 + 1;
+                    while (regionEnd1 < end1 && regionEnd2 < end2 && myFirst[regionEnd1] == mySecond[regionEnd2]) {
+                        regionEnd1++;
+                        regionEnd2++;
+                    }
+                    work(regionEnd1 - regionStart1);
+
+                    int length = regionEnd1 - regionStart1;
+                    if (count < bestCount || length > bestLength) {
+                        bestCount = count;
+                        bestStart1 = regionStart1;
+                        bestStart2 = regionStart2;
+                        bestLength = length;
+                    }
+                    // positions of the second sequence inside the region can't give a longer region
+                    next2 = Math.max(next2, regionEnd2);
+                }
+            }
+            work(1);
+            index2 = next2;
+        }
+
+        if (bestLength == 0) {
+            return false;
+        }
+
+        addUnchanged(bestStart1, bestStart2, bestLength);
+        parts.push(new int[]{bestStart1 + bestLength, end1, bestStart2 + bestLength, end2});
+        parts.push(new int[]{start1, bestStart1, start2, bestStart2});
+        return true;
+    }
+
+    private void buildIndex(int start1, int end1) {
+        int capacity = tableSize(end1 - start1);
+        myMask = capacity - 1;
+        Arrays.fill(myHeads, 0, capacity, 0);
+
+        // backwards, so the chains go from the first occurrence to the last one
+        for (int index1 = end1 - 1; index1 >= start1; index1--) {
+            int value = myFirst[index1];
+            int slot = mix(value) & myMask;
+            while (myHeads[slot] != 0 && myKeys[slot] != value) {
+                slot = (slot + 1) & myMask;
+            }
+
+            if (myHeads[slot] == 0) {
+                myKeys[slot] = value;
+                myCounts[slot] = 1;
+                myNext[index1 - start1] = 0;
+                myHeads[slot] = index1 + 1;
+            }
+            else if (++myCounts[slot] <= MAX_CHAIN) {
+                myNext[index1 - start1] = myHeads[slot];
+                myHeads[slot] = index1 + 1;
+            }
+        }
+        work(end1 - start1 + capacity);
+    }
+
+    private int find(int value) {
+        int slot = mix(value) & myMask;
+        while (myHeads[slot] != 0) {
+            if (myKeys[slot] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & myMask;
+        }
+        return -1;
+    }
+
+    private void addUnchanged(int start1, int start2, int count) {
+        myChanges1.clear(start1, start1 + count);
+        myChanges2.clear(start2, start2 + count);
+    }
+
+    private void work(int amount) {
+        myWorkLeft -= amount;
+        myWorkSinceCheck += amount;
+        if (myWorkSinceCheck >= CHECK_CANCELED_INTERVAL) {
+            myWorkSinceCheck = 0;
+            myIndicator.checkCanceled();
+        }
+    }
+
+    private static int tableSize(int count) {
+        return Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+    }
+
+    private static int mix(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
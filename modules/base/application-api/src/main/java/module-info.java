@@ -100,7 +100,8 @@ module consulo.application.api {
         consulo.language.impl,
         consulo.language.inject.impl,
         consulo.test.impl,
-        consulo.application.impl;
+        consulo.application.impl,
+        consulo.ide.impl;
 
     exports consulo.application.internal.perfomance to
         consulo.project.impl,
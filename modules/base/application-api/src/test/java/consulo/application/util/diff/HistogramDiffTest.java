@@ -0,0 +1,120 @@
+package consulo.application.util.diff;
+
+import consulo.application.progress.DumbProgressIndicator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Corpus of generated sequences: small random ones over a few distinct elements, and sequences of a million lines
+ * with scattered edits, which are too different for the default algorithm.
+ *
+ * @since 2026-10-19
+ */
+public class HistogramDiffTest {
+    private static final int HUGE = 1_000_000;
+
+    @Test
+    void smallRandom() throws FilesTooBigForDiffException {
+        Random random = new Random(1);
+        for (int i = 0; i < 3000; i++) {
+            int alphabet = 1 + random.nextInt(50);
+            int[] before = random.ints(random.nextInt(200), 0, alphabet).toArray();
+            int[] after = edit(before, random, random.nextInt(30), alphabet);
+            assertValid(before, after);
+        }
+    }
+
+    @Test
+    void identical() throws FilesTooBigForDiffException {
+        int[] array = new Random(2).ints(1000, 0, 100).toArray();
+        assertNull(Diff.buildChanges(array, array.clone(), DiffAlgorithm.HISTOGRAM, DumbProgressIndicator.INSTANCE));
+    }
+
+    @Test
+    void hugeWithFewEdits() throws FilesTooBigForDiffException {
+        Random random = new Random(3);
+        int[] before = generatedFile(random);
+        int[] after = edit(before, random, 5000, HUGE);
+        int changed = assertValid(before, after);
+        assertTrue(changed < 20000, "changed " + changed);
+    }
+
+    @Test
+    void hugeWithManyEdits() throws FilesTooBigForDiffException {
+        Random random = new Random(4);
+        int[] before = random.ints(HUGE, 0, 4 * HUGE).toArray();
+        int[] after = edit(before, random, 100_000, 4 * HUGE);
+        int changed = assertValid(before, after);
+        assertTrue(changed < 200_000, "changed " + changed);
+    }
+
+    @Test
+    void hugeRepetitive() throws FilesTooBigForDiffException {
+        Random random = new Random(5);
+        int[] before = random.ints(HUGE, 0, 20).toArray();
+        assertValid(before, edit(before, random, 1000, 20));
+    }
+
+    /**
+     * Every 7th line is unique, others repeat like braces and blank lines of a source file.
+     */
+    private static int[] generatedFile(Random random) {
+        int[] result = new int[HUGE];
+        for (int i = 0; i < HUGE; i++) {
+            result[i] = i % 7 == 0 ? 100 + random.nextInt(HUGE) : i % 7;
+        }
+        return result;
+    }
+
+    /**
+     * Deletes, inserts or replaces about the given number of elements at random positions.
+     */
+    private static int[] edit(int[] array, Random random, int edits, int alphabet) {
+        double probability = (double)edits / Math.max(array.length, 1);
+        IntStream.Builder result = IntStream.builder();
+        for (int value : array) {
+            if (random.nextDouble() >= probability) {
+                result.add(value);
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                }
+                case 1 -> {
+                    result.add(random.nextInt(alphabet));
+                    result.add(value);
+                }
+                default -> result.add(random.nextInt(alphabet));
+            }
+        }
+        return result.build().toArray();
+    }
+
+    /**
+     * @return number of changed elements of the first sequence
+     */
+    private static int assertValid(int[] before, int[] after) throws FilesTooBigForDiffException {
+        Diff.Change change = Diff.buildChanges(before, after, DiffAlgorithm.HISTOGRAM, DumbProgressIndicator.INSTANCE);
+        int index1 = 0;
+        int index2 = 0;
+        int changed = 0;
+        for (; change != null; change = change.link) {
+            assertEquals(change.line0 - index1, change.line1 - index2);
+            for (; index1 < change.line0; index1++, index2++) {
+                assertEquals(before[index1], after[index2]);
+            }
+            index1 += change.deleted;
+            index2 += change.inserted;
+            changed += change.deleted;
+        }
+        assertEquals(before.length - index1, after.length - index2);
+        for (; index1 < before.length; index1++, index2++) {
+            assertEquals(before[index1], after[index2]);
+        }
+        return changed;
+    }
+}
@@ -16,6 +16,8 @@
 package consulo.application.impl.internal;
 
 import consulo.application.AccessToken;
+import consulo.application.impl.internal.jfr.ReadLockWaitEvent;
+import consulo.application.impl.internal.jfr.WriteLockWaitEvent;
 import consulo.application.util.ApplicationUtil;
 import consulo.ui.UIAccess;
 
@@ -59,7 +61,10 @@ public final class StampedRWLock implements RWLock {
         if (Thread.currentThread() == myWriteThread) {
             return;
         }
+        WriteLockWaitEvent event = new WriteLockWaitEvent();
+        event.begin();
         long stamp = myLock.writeLock();
+        event.commit();
         myWriteStamp = stamp;
         myWriteThread = Thread.currentThread();
     }
@@ -115,7 +120,14 @@ public final class StampedRWLock implements RWLock {
             throw new IllegalStateException("Can't run ReadAction from UI thread while write lock is active — would freeze UI");
         }
 
+        ReadLockWaitEvent event = new ReadLockWaitEvent();
+        event.begin();
+        Thread writeThread = myWriteThread;
         long stamp = myLock.readLock();
+        if (event.shouldCommit()) {
+            event.writeThread = writeThread;
+            event.commit();
+        }
         myReadStamp.set(stamp);
         return new StampedReadToken(stamp);
     }
@@ -0,0 +1,20 @@
+package consulo.application.impl.internal.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Time spent waiting for the application read lock. Recorded only for waits longer than the threshold,
+ * uncontended acquisitions cost a duration check.
+ *
+ * @since 2026-10-19
+ */
+@Name("consulo.ReadLockWait")
+@Label("Read Lock Wait")
+@Category({"Consulo", "Application Lock"})
+@Description("Waiting for the application read lock")
+@Threshold("1 ms")
+@StackTrace(true)
+public final class ReadLockWaitEvent extends Event {
+    @Label("Write Thread")
+    public Thread writeThread;
+}
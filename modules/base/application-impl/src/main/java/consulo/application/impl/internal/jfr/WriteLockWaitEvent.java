@@ -0,0 +1,17 @@
+package consulo.application.impl.internal.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Time spent waiting for the application write lock, i.e. for running read actions to finish.
+ *
+ * @since 2026-10-19
+ */
+@Name("consulo.WriteLockWait")
+@Label("Write Lock Wait")
+@Category({"Consulo", "Application Lock"})
+@Description("Waiting for the application write lock")
+@Threshold("1 ms")
+@StackTrace(true)
+public final class WriteLockWaitEvent extends Event {
+}
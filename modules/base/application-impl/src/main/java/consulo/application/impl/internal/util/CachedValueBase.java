@@ -2,6 +2,7 @@
 package consulo.application.impl.internal.util;
 
 import consulo.application.internal.util.CachedValueProfiler;
+import consulo.application.internal.util.CachedValueProviderStatistics;
 import consulo.application.util.CachedValueProvider;
 import consulo.application.util.RecursionGuard;
 import consulo.application.util.RecursionManager;
@@ -39,6 +40,7 @@ public abstract class CachedValueBase<T> implements ProjectCachedValueEx<T> {
     private Data<T> computeData(Supplier<? extends CachedValueProvider.Result<T>> doCompute) {
         CachedValueProvider.Result<T> result;
         CachedValueProfiler.ValueTracker tracker;
+        long computeStart = CachedValueProviderStatistics.isEnabled() ? System.nanoTime() : 0;
         if (CachedValueProfiler.isProfiling()) {
             try (CachedValueProfiler.Frame frame = CachedValueProfiler.newFrame()) {
                 result = doCompute.get();
@@ -49,6 +51,9 @@ public abstract class CachedValueBase<T> implements ProjectCachedValueEx<T> {
             result = doCompute.get();
             tracker = null;
         }
+        if (computeStart != 0) {
+            CachedValueProviderStatistics.recordCompute(getValueProvider().getClass(), System.nanoTime() - computeStart);
+        }
         if (result == null) {
             return new Data<>(null, ArrayUtil.EMPTY_OBJECT_ARRAY, ArrayUtil.EMPTY_LONG_ARRAY, null);
         }
@@ -102,7 +107,15 @@ public abstract class CachedValueBase<T> implements ProjectCachedValueEx<T> {
     }
 
     private boolean checkUpToDate(Data<T> data) {
-        if (isUpToDate(data)) {
+        if (CachedValueProviderStatistics.isEnabled()) {
+            long start = System.nanoTime();
+            boolean upToDate = isUpToDate(data);
+            CachedValueProviderStatistics.recordUpToDateCheck(getValueProvider().getClass(), System.nanoTime() - start, upToDate);
+            if (upToDate) {
+                return true;
+            }
+        }
+        else if (isUpToDate(data)) {
             return true;
         }
         if (data.trackingInfo != null) {
@@ -119,6 +132,9 @@ public abstract class CachedValueBase<T> implements ProjectCachedValueEx<T> {
         for (int i = 0; i < data.myDependencies.length; i++) {
             Object dependency = data.myDependencies[i];
             if (isDependencyOutOfDate(dependency, data.myTimeStamps[i])) {
+                if (CachedValueProviderStatistics.isEnabled()) {
+                    CachedValueProviderStatistics.recordInvalidation(getValueProvider().getClass(), dependency);
+                }
                 return false;
             }
         }
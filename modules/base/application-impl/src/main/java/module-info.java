@@ -23,6 +23,7 @@ module consulo.application.impl {
     // TODO remove this dependency in future
     requires java.desktop;
     requires java.management;
+    requires jdk.jfr;
 
     requires args4j;
     requires com.google.gson;
@@ -47,6 +48,7 @@ module consulo.application.impl {
         consulo.it,
         consulo.web.ide, consulo.web.ui.impl, consulo.web.editor.impl;
 
+    exports consulo.application.impl.internal.jfr to jdk.jfr;
     exports consulo.application.impl.internal.macro to consulo.ide.impl, consulo.module.impl, consulo.project.impl;
 
     exports consulo.application.impl.internal.progress to
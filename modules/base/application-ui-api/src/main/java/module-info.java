@@ -18,5 +18,5 @@ module consulo.application.ui.api {
     exports consulo.application.ui.setting;
     exports consulo.application.ui.util;
 
-    exports consulo.application.ui.internal to consulo.credential.storage.impl;
+    exports consulo.application.ui.internal to consulo.credential.storage.impl, consulo.ide.impl;
 }
\ No newline at end of file
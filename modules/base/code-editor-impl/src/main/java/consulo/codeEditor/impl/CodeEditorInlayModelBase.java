@@ -335,7 +335,7 @@ public class CodeEditorInlayModelBase implements InlayModel, Disposable, Dumpabl
 
     @Override
     public boolean hasInlineElementsInRange(int startOffset, int endOffset) {
-        return !myInlineElementsTree.processOverlappingWith(startOffset, endOffset, inlay -> false);
+        return !myInlineElementsTree.processOverlappingWithOptimistically(startOffset, endOffset, inlay -> false);
     }
 
     @Override
@@ -345,7 +345,7 @@ public class CodeEditorInlayModelBase implements InlayModel, Disposable, Dumpabl
 
     @Override
     public boolean hasInlineElementAt(int offset) {
-        return !myInlineElementsTree.processOverlappingWith(offset, offset, inlay -> false);
+        return !myInlineElementsTree.processOverlappingWithOptimistically(offset, offset, inlay -> false);
     }
 
     @Override
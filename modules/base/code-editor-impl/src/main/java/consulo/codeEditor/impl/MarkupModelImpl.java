@@ -330,7 +330,7 @@ public class MarkupModelImpl extends UserDataHolderBase implements MarkupModelEx
     @Override
     public boolean containsHighlighter(RangeHighlighter highlighter) {
         Predicate<RangeHighlighterEx> equalId = h -> h.getId() != highlighter.getId();
-        return !treeFor(highlighter).processOverlappingWith(highlighter.getStartOffset(), highlighter.getEndOffset(), equalId);
+        return !treeFor(highlighter).processOverlappingWithOptimistically(highlighter.getStartOffset(), highlighter.getEndOffset(), equalId);
     }
 
     @Override
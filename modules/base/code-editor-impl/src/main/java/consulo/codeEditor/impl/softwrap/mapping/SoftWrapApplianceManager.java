@@ -1,7 +1,9 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package consulo.codeEditor.impl.softwrap.mapping;
 
+import consulo.application.Application;
 import consulo.application.util.Dumpable;
+import consulo.application.util.registry.Registry;
 import consulo.codeEditor.*;
 import consulo.codeEditor.impl.*;
 import consulo.codeEditor.impl.softwrap.SoftWrapImpl;
@@ -60,6 +62,11 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
     // before editor is shown and actual available width is known
     private static final int QUICK_WRAP_CHAR_COUNT = 1000;
 
+    // documents longer than this are wrapped precisely in portions, after a quick tentative wrapping of the whole text
+    private static final int INCREMENTAL_RECALCULATION_THRESHOLD = 1024 * 1024;
+    private static final int INCREMENTAL_CHUNK_SIZE = 16 * 1024;
+    private static final int INCREMENTAL_TIME_SLICE_MS = 10;
+
     /**
      * Enumerates possible type of soft wrap indents to use.
      */
@@ -107,6 +114,18 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
     private IncrementalCacheUpdateEvent myDocumentChangedEvent;
     private int myAvailableWidth = QUICK_DUMMY_WRAPPING;
 
+    private boolean myRoughWrappingRequested;
+    private int myInterruptOffset = Integer.MAX_VALUE;
+    /**
+     * State of the incremental recalculation: soft wraps are calculated precisely from {@link #myIncrementalOffset}
+     * to the document end, then from the document start to {@link #myIncrementalStopOffset} (start of the precisely wrapped visible area).
+     * Negative offset means there's no incremental recalculation in progress.
+     */
+    private int myIncrementalOffset = -1;
+    private int myIncrementalStopOffset;
+    private boolean myIncrementalWrappedAround;
+    private int myIncrementalGeneration;
+
     public SoftWrapApplianceManager(
         SoftWrapsStorage storage,
         CodeEditorBase editor,
@@ -130,6 +149,7 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
 
     public void reset() {
         myIsDirty = true;
+        cancelIncrementalRecalculation();
         for (SoftWrapAwareDocumentParsingListener listener : myListeners) {
             listener.reset();
         }
@@ -137,6 +157,7 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
 
     public void release() {
         myLineWrapPositionStrategy = null;
+        cancelIncrementalRecalculation();
     }
 
     private void recalculate(IncrementalCacheUpdateEvent e) {
@@ -210,6 +231,11 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
         }
         myIsDirty = false;
 
+        if (isIncrementalRecalculationApplicable()) {
+            startIncrementalRecalculation();
+            return true;
+        }
+
         recalculateSoftWraps(new IncrementalCacheUpdateEvent(myEditor.getDocument()));
 
         onRecalculationEnd();
@@ -217,6 +243,123 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
         return true;
     }
 
+    private boolean isIncrementalRecalculationApplicable() {
+        return myVisibleAreaWidth != QUICK_DUMMY_WRAPPING
+            && myEditor.getDocument().getTextLength() > INCREMENTAL_RECALCULATION_THRESHOLD
+            && !Application.get().isUnitTestMode()
+            && Registry.is("editor.soft.wrap.incremental.recalculation");
+    }
+
+    /**
+     * Wraps the whole document tentatively (which is cheap), then calculates exact soft wraps for the visible area
+     * and schedules calculation for the rest of the document in portions, to avoid freezing UI on huge documents.
+     */
+    private void startIncrementalRecalculation() {
+        Document document = myEditor.getDocument();
+        myRoughWrappingRequested = true;
+        try {
+            recalculateSoftWraps(new IncrementalCacheUpdateEvent(document));
+        }
+        finally {
+            myRoughWrappingRequested = false;
+        }
+
+        Rectangle visibleArea = myEditor.getScrollingModel().getVisibleArea();
+        int visibleStart = myEditor.visualLineStartOffset(myEditor.yToVisualLine(visibleArea.y));
+        int visibleEnd = myEditor.visualLineStartOffset(myEditor.yToVisualLine(visibleArea.y + visibleArea.height) + 1);
+        IncrementalCacheUpdateEvent visibleEvent = new IncrementalCacheUpdateEvent(visibleStart, visibleStart, myEditor);
+        recalculateSoftWrapsUntil(visibleEvent, Math.max(visibleEnd, visibleStart + INCREMENTAL_CHUNK_SIZE));
+        onRecalculationEnd();
+
+        myIncrementalStopOffset = visibleEvent.getStartOffset();
+        myIncrementalOffset = visibleEvent.getActualEndOffset();
+        myIncrementalWrappedAround = false;
+        scheduleIncrementalRecalculation();
+    }
+
+    private void scheduleIncrementalRecalculation() {
+        int generation = ++myIncrementalGeneration;
+        Application application = Application.get();
+        application.invokeLater(
+            () -> continueIncrementalRecalculation(generation),
+            application.getAnyModalityState(),
+            () -> myEditor.isDisposed() || generation != myIncrementalGeneration
+        );
+    }
+
+    private void cancelIncrementalRecalculation() {
+        myIncrementalOffset = -1;
+        myIncrementalGeneration++;
+    }
+
+    private void continueIncrementalRecalculation(int generation) {
+        if (generation != myIncrementalGeneration || myIncrementalOffset < 0 || myIsDirty || myVisibleAreaWidth <= 0) {
+            return;
+        }
+        if (myInProgress) {
+            scheduleIncrementalRecalculation();
+            return;
+        }
+
+        long deadline = System.currentTimeMillis() + INCREMENTAL_TIME_SLICE_MS;
+        int softWrapsBefore = getNumberOfSoftWrapsBefore(myLastTopLeftCornerOffset);
+        int anchorOffset = myLastTopLeftCornerOffset;
+        ScrollingModelEx scrollingModel = myEditor.getScrollingModel();
+        int yScrollOffset = scrollingModel.getVerticalScrollOffset();
+        int textLength = myEditor.getDocument().getTextLength();
+        while (System.currentTimeMillis() < deadline) {
+            if (!myIncrementalWrappedAround && myIncrementalOffset >= textLength) {
+                myIncrementalWrappedAround = true;
+                myIncrementalOffset = 0;
+            }
+            if (myIncrementalWrappedAround && myIncrementalOffset >= myIncrementalStopOffset) {
+                myIncrementalOffset = -1;
+                break;
+            }
+
+            int chunkEnd = myIncrementalOffset + INCREMENTAL_CHUNK_SIZE;
+            IncrementalCacheUpdateEvent event = new IncrementalCacheUpdateEvent(myIncrementalOffset, myIncrementalOffset, myEditor);
+            recalculateSoftWrapsUntil(event, chunkEnd);
+            if (myIncrementalWrappedAround && event.getActualEndOffset() < chunkEnd) {
+                // reached already precisely wrapped area
+                myIncrementalOffset = -1;
+                break;
+            }
+            myIncrementalOffset = Math.max(event.getActualEndOffset(), myIncrementalOffset + 1);
+        }
+        onRecalculationEnd();
+
+        // keep the same text at the top of the viewport while soft wraps above it change
+        int softWrapsNow = getNumberOfSoftWrapsBefore(anchorOffset);
+        if (softWrapsNow != softWrapsBefore) {
+            scrollingModel.disableAnimation();
+            try {
+                scrollingModel.scrollVertically(yScrollOffset + (softWrapsNow - softWrapsBefore) * myEditor.getLineHeight());
+            }
+            finally {
+                scrollingModel.enableAnimation();
+            }
+            updateLastTopLeftCornerOffset();
+        }
+
+        if (myIncrementalOffset >= 0) {
+            scheduleIncrementalRecalculation();
+        }
+    }
+
+    /**
+     * Recalculates soft wraps for the given event, stopping at the first soft wrap or line start after {@code interruptOffset}.
+     */
+    private void recalculateSoftWrapsUntil(IncrementalCacheUpdateEvent event, int interruptOffset) {
+        myInterruptOffset = interruptOffset;
+        try {
+            recalculateSoftWraps(event);
+        }
+        finally {
+            myInterruptOffset = Integer.MAX_VALUE;
+        }
+    }
+
     private void onRecalculationEnd() {
         updateLastTopLeftCornerOffset();
         for (SoftWrapAwareDocumentParsingListener listener : myListeners) {
@@ -276,7 +419,7 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
     }
 
     protected void doRecalculateSoftWraps0(IncrementalCacheUpdateEvent event, int endOffsetUpperEstimate) {
-        if (myVisibleAreaWidth == QUICK_DUMMY_WRAPPING) {
+        if (myVisibleAreaWidth == QUICK_DUMMY_WRAPPING || myRoughWrappingRequested) {
             doRecalculateSoftWrapsRoughly(event);
         }
         else {
@@ -590,14 +733,16 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
     }
 
     private boolean checkIsDoneAfterNewLine() {
-        return myContext.currentPosition.offset > myContext.rangeEndOffset;
+        return myContext.currentPosition.offset > myContext.rangeEndOffset
+            && (myInterruptOffset == Integer.MAX_VALUE || myContext.currentPosition.offset > myInterruptOffset);
     }
 
     private boolean checkIsDoneAfterSoftWrap() {
         SoftWrapImpl lastSoftWrap = myDataMapper.getLastSoftWrap();
         LOG.assertTrue(lastSoftWrap != null);
         return myContext.currentPosition.offset > myContext.rangeEndOffset
-            && myDataMapper.matchesOldSoftWrap(lastSoftWrap, myEventBeingProcessed.getLengthDiff());
+            && (myContext.currentPosition.offset > myInterruptOffset
+            || myDataMapper.matchesOldSoftWrap(lastSoftWrap, myEventBeingProcessed.getLengthDiff()));
     }
 
     /**
@@ -1015,6 +1160,15 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
 
     public void documentChanged(DocumentEvent event, boolean processAlsoLineEnd) {
         LOG.assertTrue(myDocumentChangedEvent != null);
+        if (myIncrementalOffset >= 0) {
+            int lengthDiff = event.getNewLength() - event.getOldLength();
+            if (event.getOffset() < myIncrementalOffset) {
+                myIncrementalOffset = Math.max(event.getOffset(), myIncrementalOffset + lengthDiff);
+            }
+            if (event.getOffset() < myIncrementalStopOffset) {
+                myIncrementalStopOffset = Math.max(event.getOffset(), myIncrementalStopOffset + lengthDiff);
+            }
+        }
         recalculate(myDocumentChangedEvent);
         if (processAlsoLineEnd) {
             int lineEndOffset = DocumentUtil.getLineEndOffset(myDocumentChangedEvent.getMandatoryEndOffset(), event.getDocument());
@@ -1034,12 +1188,14 @@ public abstract class SoftWrapApplianceManager implements Dumpable {
     @Override
     public String dumpState() {
         return String.format(
-            "recalculation in progress: %b; event being processed: %s, available width: %d, visible width: %d, dirty: %b",
+            "recalculation in progress: %b; event being processed: %s, available width: %d, visible width: %d, dirty: %b, " +
+                "incremental offset: %d",
             myInProgress,
             myEventBeingProcessed,
             myAvailableWidth,
             myVisibleAreaWidth,
-            myIsDirty
+            myIsDirty,
+            myIncrementalOffset
         );
     }
 
@@ -16,6 +16,7 @@
 package consulo.diff.comparison;
 
 import consulo.application.progress.ProgressIndicator;
+import consulo.application.util.diff.DiffAlgorithm;
 import consulo.application.util.registry.Registry;
 import consulo.diff.comparison.iterable.FairDiffIterable;
 import consulo.diff.util.MergeRange;
@@ -41,8 +42,16 @@ public class ByLine {
                                          List<? extends CharSequence> lines2,
                                          ComparisonPolicy policy,
                                          ProgressIndicator indicator) {
+    return compare(lines1, lines2, policy, DiffAlgorithm.DEFAULT, indicator);
+  }
+
+  public static FairDiffIterable compare(List<? extends CharSequence> lines1,
+                                         List<? extends CharSequence> lines2,
+                                         ComparisonPolicy policy,
+                                         DiffAlgorithm algorithm,
+                                         ProgressIndicator indicator) {
     indicator.checkCanceled();
-    return doCompare(getLines(lines1, policy), getLines(lines2, policy), policy, indicator);
+    return doCompare(getLines(lines1, policy), getLines(lines2, policy), policy, algorithm, indicator);
   }
 
   
@@ -51,8 +60,17 @@ public class ByLine {
                                          List<? extends CharSequence> lines3,
                                          ComparisonPolicy policy,
                                          ProgressIndicator indicator) {
+    return compare(lines1, lines2, lines3, policy, DiffAlgorithm.DEFAULT, indicator);
+  }
+
+  public static List<MergeRange> compare(List<? extends CharSequence> lines1,
+                                         List<? extends CharSequence> lines2,
+                                         List<? extends CharSequence> lines3,
+                                         ComparisonPolicy policy,
+                                         DiffAlgorithm algorithm,
+                                         ProgressIndicator indicator) {
     indicator.checkCanceled();
-    return doCompare(getLines(lines1, policy), getLines(lines2, policy), getLines(lines3, policy), policy, indicator);
+    return doCompare(getLines(lines1, policy), getLines(lines2, policy), getLines(lines3, policy), policy, algorithm, indicator);
   }
 
   //
@@ -63,11 +81,12 @@ public class ByLine {
   static FairDiffIterable doCompare(List<Line> lines1,
                                     List<Line> lines2,
                                     ComparisonPolicy policy,
+                                    DiffAlgorithm algorithm,
                                     ProgressIndicator indicator) {
     indicator.checkCanceled();
 
     if (policy == IGNORE_WHITESPACES) {
-      FairDiffIterable changes = compareSmart(lines1, lines2, indicator);
+      FairDiffIterable changes = compareSmart(lines1, lines2, algorithm, indicator);
       changes = optimizeLineChunks(lines1, lines2, changes, indicator);
       return expandRanges(lines1, lines2, changes);
     }
@@ -75,7 +94,7 @@ public class ByLine {
       List<Line> iwLines1 = convertMode(lines1, IGNORE_WHITESPACES);
       List<Line> iwLines2 = convertMode(lines2, IGNORE_WHITESPACES);
 
-      FairDiffIterable iwChanges = compareSmart(iwLines1, iwLines2, indicator);
+      FairDiffIterable iwChanges = compareSmart(iwLines1, iwLines2, algorithm, indicator);
       iwChanges = optimizeLineChunks(lines1, lines2, iwChanges, indicator);
       return correctChangesSecondStep(lines1, lines2, iwChanges);
     }
@@ -86,6 +105,7 @@ public class ByLine {
                                     List<Line> lines2,
                                     List<Line> lines3,
                                     ComparisonPolicy policy,
+                                    DiffAlgorithm algorithm,
                                     ProgressIndicator indicator) {
     indicator.checkCanceled();
 
@@ -93,11 +113,11 @@ public class ByLine {
     List<Line> iwLines2 = convertMode(lines2, IGNORE_WHITESPACES);
     List<Line> iwLines3 = convertMode(lines3, IGNORE_WHITESPACES);
 
-    FairDiffIterable iwChanges1 = compareSmart(iwLines2, iwLines1, indicator);
+    FairDiffIterable iwChanges1 = compareSmart(iwLines2, iwLines1, algorithm, indicator);
     iwChanges1 = optimizeLineChunks(lines2, lines1, iwChanges1, indicator);
     FairDiffIterable iterable1 = correctChangesSecondStep(lines2, lines1, iwChanges1);
 
-    FairDiffIterable iwChanges2 = compareSmart(iwLines2, iwLines3, indicator);
+    FairDiffIterable iwChanges2 = compareSmart(iwLines2, iwLines3, algorithm, indicator);
     iwChanges2 = optimizeLineChunks(lines2, lines3, iwChanges2, indicator);
     FairDiffIterable iterable2 = correctChangesSecondStep(lines2, lines3, iwChanges2);
 
@@ -304,15 +324,17 @@ public class ByLine {
   
   private static FairDiffIterable compareSmart(List<Line> lines1,
                                                List<Line> lines2,
+                                               DiffAlgorithm algorithm,
                                                ProgressIndicator indicator) {
     int threshold = Registry.intValue("diff.unimportant.line.char.count");
-    if (threshold == 0) return diff(lines1, lines2, indicator);
+    if (threshold == 0) return diff(lines1, lines2, algorithm, indicator);
 
     Pair<List<Line>, IntList> bigLines1 = getBigLines(lines1, threshold);
     Pair<List<Line>, IntList> bigLines2 = getBigLines(lines2, threshold);
 
-    FairDiffIterable changes = diff(bigLines1.first, bigLines2.first, indicator);
-    return new ChangeCorrector.SmartLineChangeCorrector(bigLines1.second, bigLines2.second, lines1, lines2, changes, indicator).build();
+    FairDiffIterable changes = diff(bigLines1.first, bigLines2.first, algorithm, indicator);
+    return new ChangeCorrector.SmartLineChangeCorrector(bigLines1.second, bigLines2.second, lines1, lines2, changes, algorithm, indicator)
+      .build();
   }
 
   
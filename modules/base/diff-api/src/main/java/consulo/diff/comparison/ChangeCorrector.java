@@ -20,6 +20,7 @@ import consulo.diff.comparison.iterable.DiffIterableUtil;
 import consulo.diff.comparison.iterable.FairDiffIterable;
 import consulo.diff.util.Range;
 import consulo.application.progress.ProgressIndicator;
+import consulo.application.util.diff.DiffAlgorithm;
 import consulo.util.collection.primitive.ints.IntList;
 
 import java.util.List;
@@ -154,13 +155,17 @@ abstract class ChangeCorrector {
     
     private final List<Line> myLines2;
 
+    private final DiffAlgorithm myAlgorithm;
+
     public SmartLineChangeCorrector(IntList indexes1,
                                     IntList indexes2,
                                     List<Line> lines1,
                                     List<Line> lines2,
                                     FairDiffIterable changes,
+                                    DiffAlgorithm algorithm,
                                     ProgressIndicator indicator) {
       super(lines1.size(), lines2.size(), changes, indicator);
+      myAlgorithm = algorithm;
       myIndexes1 = indexes1;
       myIndexes2 = indexes2;
       myLines1 = lines1;
@@ -173,7 +178,7 @@ abstract class ChangeCorrector {
 
       List<Line> inner1 = myLines1.subList(expand.start1, expand.end1);
       List<Line> inner2 = myLines2.subList(expand.start2, expand.end2);
-      FairDiffIterable innerChanges = diff(inner1, inner2, myIndicator);
+      FairDiffIterable innerChanges = diff(inner1, inner2, myAlgorithm, myIndicator);
 
       myBuilder.markEqual(start1, start2, expand.start1, expand.start2);
 
@@ -17,12 +17,14 @@ package consulo.diff.comparison.iterable;
 
 import consulo.application.progress.ProgressIndicator;
 import consulo.application.util.diff.Diff;
+import consulo.application.util.diff.DiffAlgorithm;
 import consulo.application.util.diff.FilesTooBigForDiffException;
 import consulo.application.util.registry.Registry;
 import consulo.diff.comparison.DiffTooBigException;
 import consulo.diff.comparison.TrimUtil;
 import consulo.diff.fragment.DiffFragment;
 import consulo.diff.util.Range;
+import consulo.util.collection.HashingStrategy;
 import consulo.util.lang.Comparing;
 import consulo.util.lang.Pair;
 import org.jspecify.annotations.Nullable;
@@ -41,11 +43,16 @@ public class DiffIterableUtil {
  
   public static FairDiffIterable diff(int[] data1, int[] data2, ProgressIndicator indicator)
           throws DiffTooBigException {
+    return diff(data1, data2, DiffAlgorithm.DEFAULT, indicator);
+  }
+
+  public static FairDiffIterable diff(int[] data1, int[] data2, DiffAlgorithm algorithm, ProgressIndicator indicator)
+          throws DiffTooBigException {
     indicator.checkCanceled();
 
     try {
-      // TODO: use ProgressIndicator inside
-      Diff.Change change = Diff.buildChanges(data1, data2);
+      // TODO: use ProgressIndicator inside the default algorithm
+      Diff.Change change = Diff.buildChanges(data1, data2, algorithm, indicator);
       return fair(create(change, data1.length, data2.length));
     }
     catch (FilesTooBigForDiffException e) {
@@ -59,11 +66,16 @@ public class DiffIterableUtil {
  
   public static <T> FairDiffIterable diff(T[] data1, T[] data2, ProgressIndicator indicator)
           throws DiffTooBigException {
+    return diff(data1, data2, DiffAlgorithm.DEFAULT, indicator);
+  }
+
+  public static <T> FairDiffIterable diff(T[] data1, T[] data2, DiffAlgorithm algorithm, ProgressIndicator indicator)
+          throws DiffTooBigException {
     indicator.checkCanceled();
 
     try {
-      // TODO: use ProgressIndicator inside
-      Diff.Change change = Diff.buildChanges(data1, data2);
+      // TODO: use ProgressIndicator inside the default algorithm
+      Diff.Change change = Diff.buildChanges(data1, data2, HashingStrategy.canonical(), algorithm, indicator);
       return fair(create(change, data1.length, data2.length));
     }
     catch (FilesTooBigForDiffException e) {
@@ -77,12 +89,17 @@ public class DiffIterableUtil {
  
   public static <T> FairDiffIterable diff(List<T> objects1, List<T> objects2, ProgressIndicator indicator)
           throws DiffTooBigException {
+    return diff(objects1, objects2, DiffAlgorithm.DEFAULT, indicator);
+  }
+
+  public static <T> FairDiffIterable diff(List<T> objects1, List<T> objects2, DiffAlgorithm algorithm, ProgressIndicator indicator)
+          throws DiffTooBigException {
     indicator.checkCanceled();
 
     // TODO: compare lists instead of arrays in Diff
     Object[] data1 = ((List)objects1).toArray(new Object[objects1.size()]);
     Object[] data2 = ((List)objects2).toArray(new Object[objects2.size()]);
-    return diff(data1, data2, indicator);
+    return diff(data1, data2, algorithm, indicator);
   }
 
   //
@@ -27,6 +27,7 @@ import consulo.diff.content.EmptyContent;
 import consulo.diff.content.FileContent;
 import consulo.diff.impl.internal.action.DocumentFragmentContent;
 import consulo.diff.impl.internal.content.*;
+import consulo.diff.impl.internal.util.MappedLineDiff;
 import consulo.diff.internal.DiffContentFactoryEx;
 import consulo.diff.internal.DiffUserDataKeysEx;
 import consulo.document.Document;
@@ -176,6 +177,8 @@ public class DiffContentFactoryImpl extends DiffContentFactoryEx {
   @Override
   public DiffContent create(@Nullable Project project, VirtualFile file) {
     if (file.isDirectory()) return new DirectoryContentImpl(project, file);
+    // compared by MappedLineDiff instead of the preview the document would contain
+    if (!file.getFileType().isBinary() && MappedLineDiff.isTooLargeForDocument(file)) return new FileContentImpl(project, file);
     DocumentContent content = createDocument(project, file);
     if (content != null) return content;
     return new FileContentImpl(project, file);
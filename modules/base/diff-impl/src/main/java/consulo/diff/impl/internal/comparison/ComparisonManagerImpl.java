@@ -17,7 +17,10 @@ package consulo.diff.impl.internal.comparison;
 
 import consulo.annotation.component.ServiceImpl;
 import consulo.application.progress.ProgressIndicator;
+import consulo.application.util.concurrent.JobLauncher;
+import consulo.application.util.diff.DiffAlgorithm;
 import consulo.application.util.diff.FilesTooBigForDiffException;
+import consulo.application.util.registry.Registry;
 import consulo.diff.comparison.*;
 import consulo.diff.comparison.iterable.DiffIterable;
 import consulo.diff.comparison.iterable.FairDiffIterable;
@@ -42,13 +45,20 @@ import jakarta.inject.Singleton;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 @Singleton
 @ServiceImpl
 public class ComparisonManagerImpl implements ComparisonManagerEx {
   public static final Logger LOG = Logger.getInstance(ComparisonManagerImpl.class);
 
+  // refinement of fewer fragments is not worth scheduling
+  private static final int PARALLEL_REFINEMENT_THRESHOLD = 16;
+
   
   @Override
   public List<LineFragment> compareLines(CharSequence text1,
@@ -57,7 +67,7 @@ public class ComparisonManagerImpl implements ComparisonManagerEx {
                                          ProgressIndicator indicator) throws DiffTooBigException {
     List<Line> lines1 = getLines(text1);
     List<Line> lines2 = getLines(text2);
-    FairDiffIterable iterable = ByLine.compare(lines1, lines2, policy, indicator);
+    FairDiffIterable iterable = compareLineLists(lines1, lines2, policy, indicator);
     return convertIntoLineFragments(lines1, lines2, iterable);
   }
 
@@ -71,7 +81,19 @@ public class ComparisonManagerImpl implements ComparisonManagerEx {
     List<Line> lines1 = getLines(text1);
     List<Line> lines2 = getLines(text2);
     List<Line> lines3 = getLines(text3);
-    List<MergeRange> ranges = ByLine.compare(lines1, lines2, lines3, policy, indicator);
+    List<MergeRange> ranges;
+    if (Registry.is("diff.histogram.algorithm")) {
+      ranges = ByLine.compare(lines1, lines2, lines3, policy, DiffAlgorithm.HISTOGRAM, indicator);
+    }
+    else {
+      try {
+        ranges = ByLine.compare(lines1, lines2, lines3, policy, indicator);
+      }
+      catch (DiffTooBigException e) {
+        LOG.info("Contents are too different for the default algorithm, falling back to the histogram one");
+        ranges = ByLine.compare(lines1, lines2, lines3, policy, DiffAlgorithm.HISTOGRAM, indicator);
+      }
+    }
     return convertIntoMergeLineFragments(ranges);
   }
 
@@ -83,62 +105,102 @@ public class ComparisonManagerImpl implements ComparisonManagerEx {
                                               ProgressIndicator indicator) throws DiffTooBigException {
     List<LineFragment> lineFragments = compareLines(text1, text2, policy, indicator);
 
+    // fragments are refined independently, results are merged in order, so they don't depend on the order of refinement
+    AtomicReferenceArray<List<LineFragment>> refined = new AtomicReferenceArray<>(lineFragments.size());
+    ConcurrentSkipListSet<Integer> tooBigChunks = new ConcurrentSkipListSet<>();
+    if (lineFragments.size() >= PARALLEL_REFINEMENT_THRESHOLD) {
+      List<Integer> indexes = IntStream.range(0, lineFragments.size()).boxed().toList();
+      JobLauncher.getInstance().invokeConcurrentlyUnderProgress(indexes, indicator, index -> {
+        LineFragment fragment = lineFragments.get(index);
+        // by-word comparison is not tried after a few fails, so such fragments are not refined at all
+        if (!isInsertionOrDeletion(fragment) && tooBigChunks.headSet(index).size() >= FilesTooBigForDiffException.MAX_BAD_LINES) {
+          return true;
+        }
+        refined.set(index, refineFragment(text1, text2, fragment, policy, index, tooBigChunks, indicator));
+        return true;
+      });
+      indicator.checkCanceled();
+    }
+
     List<LineFragment> fineFragments = new ArrayList<>(lineFragments.size());
     int tooBigChunksCount = 0;
 
-    for (LineFragment fragment : lineFragments) {
-      CharSequence subSequence1 = text1.subSequence(fragment.getStartOffset1(), fragment.getEndOffset1());
-      CharSequence subSequence2 = text2.subSequence(fragment.getStartOffset2(), fragment.getEndOffset2());
+    for (int i = 0; i < lineFragments.size(); i++) {
+      LineFragment fragment = lineFragments.get(i);
 
-      if (fragment.getStartLine1() == fragment.getEndLine1() ||
-        fragment.getStartLine2() == fragment.getEndLine2()) { // Insertion / Deletion
-        if (isEquals(subSequence1, subSequence2, policy)) {
-          fineFragments.add(new LineFragmentImpl(fragment, Collections.<DiffFragment>emptyList()));
-        }
-        else {
-          fineFragments.add(new LineFragmentImpl(fragment, null));
-        }
+      if (!isInsertionOrDeletion(fragment) && tooBigChunksCount >= FilesTooBigForDiffException.MAX_BAD_LINES) { // Do not try to build fine blocks after few fails)
+        fineFragments.add(new LineFragmentImpl(fragment, null));
         continue;
       }
 
-      if (tooBigChunksCount >= FilesTooBigForDiffException.MAX_BAD_LINES) { // Do not try to build fine blocks after few fails)
-        fineFragments.add(new LineFragmentImpl(fragment, null));
-        continue;
+      List<LineFragment> fragments = refined.get(i);
+      if (fragments == null) {
+        fragments = refineFragment(text1, text2, fragment, policy, i, tooBigChunks, indicator);
+      }
+      if (tooBigChunks.contains(i)) {
+        tooBigChunksCount++;
+      }
+      fineFragments.addAll(fragments);
+    }
+    return fineFragments;
+  }
+
+  private List<LineFragment> refineFragment(CharSequence text1,
+                                            CharSequence text2,
+                                            LineFragment fragment,
+                                            ComparisonPolicy policy,
+                                            int index,
+                                            Set<Integer> tooBigChunks,
+                                            ProgressIndicator indicator) {
+    CharSequence subSequence1 = text1.subSequence(fragment.getStartOffset1(), fragment.getEndOffset1());
+    CharSequence subSequence2 = text2.subSequence(fragment.getStartOffset2(), fragment.getEndOffset2());
+
+    if (isInsertionOrDeletion(fragment)) {
+      if (isEquals(subSequence1, subSequence2, policy)) {
+        return Collections.singletonList(new LineFragmentImpl(fragment, Collections.<DiffFragment>emptyList()));
       }
+      else {
+        return Collections.singletonList(new LineFragmentImpl(fragment, null));
+      }
+    }
 
-      try {
-        List<ByWord.LineBlock> lineBlocks = ByWord.compareAndSplit(subSequence1, subSequence2, policy, indicator);
-        assert lineBlocks.size() != 0;
+    try {
+      List<ByWord.LineBlock> lineBlocks = ByWord.compareAndSplit(subSequence1, subSequence2, policy, indicator);
+      assert lineBlocks.size() != 0;
 
-        int startOffset1 = fragment.getStartOffset1();
-        int startOffset2 = fragment.getStartOffset2();
+      int startOffset1 = fragment.getStartOffset1();
+      int startOffset2 = fragment.getStartOffset2();
 
-        int currentStartLine1 = fragment.getStartLine1();
-        int currentStartLine2 = fragment.getStartLine2();
+      int currentStartLine1 = fragment.getStartLine1();
+      int currentStartLine2 = fragment.getStartLine2();
 
-        for (int i = 0; i < lineBlocks.size(); i++) {
-          ByWord.LineBlock block = lineBlocks.get(i);
-          Range offsets = block.offsets;
+      List<LineFragment> fineFragments = new ArrayList<>(lineBlocks.size());
+      for (int i = 0; i < lineBlocks.size(); i++) {
+        ByWord.LineBlock block = lineBlocks.get(i);
+        Range offsets = block.offsets;
 
-          // special case for last line to void problem with empty last line
-          int currentEndLine1 = i != lineBlocks.size() - 1 ? currentStartLine1 + block.newlines1 : fragment.getEndLine1();
-          int currentEndLine2 = i != lineBlocks.size() - 1 ? currentStartLine2 + block.newlines2 : fragment.getEndLine2();
+        // special case for last line to void problem with empty last line
+        int currentEndLine1 = i != lineBlocks.size() - 1 ? currentStartLine1 + block.newlines1 : fragment.getEndLine1();
+        int currentEndLine2 = i != lineBlocks.size() - 1 ? currentStartLine2 + block.newlines2 : fragment.getEndLine2();
 
-          fineFragments.add(new LineFragmentImpl(currentStartLine1, currentEndLine1, currentStartLine2, currentEndLine2,
-                                                 offsets.start1 + startOffset1, offsets.end1 + startOffset1,
-                                                 offsets.start2 + startOffset2, offsets.end2 + startOffset2,
-                                                 block.fragments));
+        fineFragments.add(new LineFragmentImpl(currentStartLine1, currentEndLine1, currentStartLine2, currentEndLine2,
+                                               offsets.start1 + startOffset1, offsets.end1 + startOffset1,
+                                               offsets.start2 + startOffset2, offsets.end2 + startOffset2,
+                                               block.fragments));
 
-          currentStartLine1 = currentEndLine1;
-          currentStartLine2 = currentEndLine2;
-        }
-      }
-      catch (DiffTooBigException e) {
-        fineFragments.add(new LineFragmentImpl(fragment, null));
-        tooBigChunksCount++;
+        currentStartLine1 = currentEndLine1;
+        currentStartLine2 = currentEndLine2;
       }
+      return fineFragments;
     }
-    return fineFragments;
+    catch (DiffTooBigException e) {
+      tooBigChunks.add(index);
+      return Collections.singletonList(new LineFragmentImpl(fragment, null));
+    }
+  }
+
+  private static boolean isInsertionOrDeletion(LineFragment fragment) {
+    return fragment.getStartLine1() == fragment.getEndLine1() || fragment.getStartLine2() == fragment.getEndLine2();
   }
 
   
@@ -182,10 +244,30 @@ public class ComparisonManagerImpl implements ComparisonManagerEx {
                                   List<? extends CharSequence> lines2,
                                   ComparisonPolicy policy,
                                   ProgressIndicator indicator) throws DiffTooBigException {
-    FairDiffIterable iterable = ByLine.compare(lines1, lines2, policy, indicator);
+    FairDiffIterable iterable = compareLineLists(lines1, lines2, policy, indicator);
     return ContainerUtil.newArrayList(iterable.iterateChanges());
   }
 
+  /*
+   * The default algorithm gives up on too different contents, so they are compared by the histogram one, which never does.
+   * It can also be used for all comparisons.
+   */
+  private static FairDiffIterable compareLineLists(List<? extends CharSequence> lines1,
+                                                   List<? extends CharSequence> lines2,
+                                                   ComparisonPolicy policy,
+                                                   ProgressIndicator indicator) {
+    if (Registry.is("diff.histogram.algorithm")) {
+      return ByLine.compare(lines1, lines2, policy, DiffAlgorithm.HISTOGRAM, indicator);
+    }
+    try {
+      return ByLine.compare(lines1, lines2, policy, indicator);
+    }
+    catch (DiffTooBigException e) {
+      LOG.info("Contents are too different for the default algorithm, falling back to the histogram one");
+      return ByLine.compare(lines1, lines2, policy, DiffAlgorithm.HISTOGRAM, indicator);
+    }
+  }
+
   @Override
   public boolean isEquals(CharSequence text1, CharSequence text2, ComparisonPolicy policy) {
     return ComparisonUtil.isEquals(text1, text2, policy);
@@ -0,0 +1,232 @@
+package consulo.diff.impl.internal.util;
+
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.util.diff.DiffAlgorithm;
+import consulo.diff.comparison.iterable.DiffIterableUtil;
+import consulo.diff.util.Range;
+import consulo.util.collection.ContainerUtil;
+import consulo.virtualFileSystem.RawFileLoader;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Comparison of files which are too large to be loaded into documents.
+ * <p>
+ * Files are memory mapped window by window and read in a single pass. Every line is reduced to a 64-bit hash and
+ * lines with equal hashes get the same id, so the heap holds an int per line and a hash per distinct line
+ * instead of the text. Lines are compared by the histogram algorithm, which doesn't give up on large inputs.
+ * <p>
+ * Lines are separated by {@code \n}, {@code \r\n} or {@code \r}, like lines of a document.
+ *
+ * @since 2026-10-19
+ */
+public final class MappedLineDiff {
+    private static final long WINDOW = 64L << 20;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private MappedLineDiff() {
+    }
+
+    /**
+     * @return true if the file is a local one which is too large to be loaded into a document,
+     * a document of such a file contains only the beginning of it
+     */
+    public static boolean isTooLargeForDocument(VirtualFile file) {
+        return file.isInLocalFileSystem() && RawFileLoader.getInstance().isLargeForContentLoading(file.getLength());
+    }
+
+    public static boolean contentEquals(Path file1, Path file2, ProgressIndicator indicator) throws IOException {
+        try (FileChannel channel1 = FileChannel.open(file1, StandardOpenOption.READ);
+             FileChannel channel2 = FileChannel.open(file2, StandardOpenOption.READ)) {
+            long size = channel1.size();
+            if (size != channel2.size()) {
+                return false;
+            }
+            for (long position = 0; position < size; position += WINDOW) {
+                indicator.checkCanceled();
+                long length = Math.min(WINDOW, size - position);
+                MappedByteBuffer buffer1 = channel1.map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer buffer2 = channel2.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (!buffer1.equals(buffer2)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Line separators are ignored, lines are numbered like lines of a document.
+     *
+     * @return changed line ranges
+     */
+    public static List<Range> compare(Path file1, Path file2, ProgressIndicator indicator) throws IOException {
+        LineEnumerator enumerator = new LineEnumerator();
+        int[] lines1 = enumerator.enumerate(file1, indicator);
+        int[] lines2 = enumerator.enumerate(file2, indicator);
+        List<Range> changes =
+            ContainerUtil.newArrayList(DiffIterableUtil.diff(lines1, lines2, DiffAlgorithm.HISTOGRAM, indicator).iterateChanges());
+        if (changes.isEmpty()) {
+            // different lines with colliding hashes look equal, so the files are told equal only after comparing their bytes
+            int line = findFirstDifferentLine(file1, file2, indicator);
+            if (line >= 0) {
+                changes.add(new Range(line, lines1.length, line, lines2.length));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @return the first line which differs when line separators are ignored, or -1 if there is none
+     */
+    private static int findFirstDifferentLine(Path file1, Path file2, ProgressIndicator indicator) throws IOException {
+        try (LineReader reader1 = new LineReader(file1, indicator); LineReader reader2 = new LineReader(file2, indicator)) {
+            int line = 0;
+            while (true) {
+                int b = reader1.read();
+                if (b != reader2.read()) {
+                    return line;
+                }
+                if (b == -1) {
+                    return -1;
+                }
+                if (b == '\n') {
+                    line++;
+                }
+            }
+        }
+    }
+
+    private static final class LineEnumerator {
+        // open addressing table from a line hash to its id plus one, 0 for an empty slot
+        private long[] myHashes = new long[1 << 16];
+        private int[] myIds = new int[1 << 16];
+        private int myCount;
+
+        int[] enumerate(Path file, ProgressIndicator indicator) throws IOException {
+            int[] lines = new int[1024];
+            int lineCount = 0;
+            long hash = FNV_OFFSET;
+
+            try (LineReader reader = new LineReader(file, indicator)) {
+                int b;
+                while ((b = reader.read()) != -1) {
+                    if (b == '\n') {
+                        if (lineCount == lines.length) {
+                            lines = Arrays.copyOf(lines, lines.length * 2);
+                        }
+                        lines[lineCount++] = getId(hash);
+                        hash = FNV_OFFSET;
+                    }
+                    else {
+                        hash = (hash ^ b) * FNV_PRIME;
+                    }
+                }
+            }
+
+            // the last line, empty if the file ends with a line separator
+            lines = Arrays.copyOf(lines, lineCount + 1);
+            lines[lineCount] = getId(hash);
+            return lines;
+        }
+
+        private int getId(long hash) {
+            int mask = myHashes.length - 1;
+            int slot = mix(hash) & mask;
+            while (myIds[slot] != 0) {
+                if (myHashes[slot] == hash) {
+                    return myIds[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            myHashes[slot] = hash;
+            myIds[slot] = ++myCount;
+            if (myCount * 2 > myHashes.length) {
+                rehash();
+            }
+            return myCount - 1;
+        }
+
+        private void rehash() {
+            long[] hashes = myHashes;
+            int[] ids = myIds;
+            myHashes = new long[hashes.length * 2];
+            myIds = new int[ids.length * 2];
+            int mask = myHashes.length - 1;
+            for (int i = 0; i < hashes.length; i++) {
+                if (ids[i] == 0) {
+                    continue;
+                }
+                int slot = mix(hashes[i]) & mask;
+                while (myIds[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                myHashes[slot] = hashes[i];
+                myIds[slot] = ids[i];
+            }
+        }
+
+        private static int mix(long hash) {
+            return (int)(hash ^ (hash >>> 32));
+        }
+    }
+
+    /**
+     * Reads a file window by window, with every line separator replaced by a single {@code \n}.
+     */
+    private static final class LineReader implements AutoCloseable {
+        private final FileChannel myChannel;
+        private final ProgressIndicator myIndicator;
+        private final long mySize;
+        private long myPosition;
+        private @Nullable MappedByteBuffer myBuffer;
+        private boolean myAfterCarriageReturn;
+
+        LineReader(Path file, ProgressIndicator indicator) throws IOException {
+            myChannel = FileChannel.open(file, StandardOpenOption.READ);
+            myIndicator = indicator;
+            mySize = myChannel.size();
+        }
+
+        /**
+         * @return the next byte, {@code \n} for a line separator, or -1 at the end of the file
+         */
+        int read() throws IOException {
+            while (true) {
+                if (myBuffer == null || !myBuffer.hasRemaining()) {
+                    if (myPosition >= mySize) {
+                        return -1;
+                    }
+                    myIndicator.checkCanceled();
+                    long length = Math.min(WINDOW, mySize - myPosition);
+                    myBuffer = myChannel.map(FileChannel.MapMode.READ_ONLY, myPosition, length);
+                    myPosition += length;
+                }
+                int b = myBuffer.get() & 0xFF;
+                boolean afterCarriageReturn = myAfterCarriageReturn;
+                myAfterCarriageReturn = b == '\r';
+                if (b == '\n' && afterCarriageReturn) {
+                    // the rest of "\r\n"
+                    continue;
+                }
+                return b == '\r' ? '\n' : b;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            myChannel.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package consulo.diff.impl.internal.util;
+
+import consulo.application.progress.EmptyProgressIndicator;
+import consulo.application.progress.ProgressIndicator;
+import consulo.diff.util.Range;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @since 2026-10-19
+ */
+public class MappedLineDiffTest {
+    // there is no application to take the default modality state from
+    private static final ProgressIndicator INDICATOR = new EmptyProgressIndicator(anotherState -> false);
+
+    @TempDir
+    Path myDir;
+
+    @Test
+    void equalLinesAreMatched() throws IOException {
+        assertEquals(List.of(), compare("a\nb\nc\n", "a\nb\nc\n"));
+        assertEquals(List.of(new Range(1, 2, 1, 2)), compare("a\nb\nc", "a\nx\nc"));
+        assertEquals(List.of(new Range(1, 1, 1, 3)), compare("a\nc", "a\nb\nb\nc"));
+        assertEquals(List.of(new Range(0, 1, 0, 0), new Range(3, 3, 2, 3)), compare("x\na\nb\nc", "a\nb\ny\nc"));
+    }
+
+    @Test
+    void repeatedLinesKeepTheirPositions() throws IOException {
+        String text = "same\n".repeat(1000);
+        assertEquals(List.of(new Range(500, 500, 500, 501)), compare(text, text.substring(0, 2500) + "other\n" + text.substring(2500)));
+        // lines which are equal in both files get equal hashes, different lines get different ones
+        assertEquals(List.of(new Range(0, 1, 0, 1)), compare("ab\ncd", "ba\ncd"));
+    }
+
+    @Test
+    void lineSeparatorsAreIgnored() throws IOException {
+        assertEquals(List.of(), compare("a\nb\n", "a\r\nb\r\n"));
+        assertEquals(List.of(), compare("a\nb\n", "a\rb\r"));
+        assertEquals(List.of(), compare("a\r\nb", "a\rb"));
+        // "\n\r" is two separators
+        assertEquals(List.of(new Range(1, 1, 1, 2)), compare("a\nb", "a\n\rb"));
+        assertEquals(List.of(new Range(1, 2, 1, 2)), compare("a\r\nb", "a\r\nc"));
+    }
+
+    @Test
+    void lastLineWithoutSeparator() throws IOException {
+        // a file ending with a separator has an empty last line, like a document
+        assertEquals(List.of(new Range(2, 2, 2, 3)), compare("a\nb", "a\nb\n"));
+        assertEquals(List.of(new Range(2, 3, 2, 3)), compare("a\nb\nc", "a\nb\nd"));
+        assertEquals(List.of(), compare("a\r", "a\n"));
+        assertEquals(List.of(), compare("", ""));
+        assertEquals(List.of(new Range(0, 0, 0, 1)), compare("", "a\n"));
+    }
+
+    @Test
+    void contentEquals() throws IOException {
+        assertTrue(MappedLineDiff.contentEquals(write("1", "a\nb"), write("2", "a\nb"), INDICATOR));
+        assertFalse(MappedLineDiff.contentEquals(write("3", "a\nb"), write("4", "a\r\nb"), INDICATOR));
+        assertFalse(MappedLineDiff.contentEquals(write("5", "a\nb"), write("6", "a\nc"), INDICATOR));
+    }
+
+    private List<Range> compare(String text1, String text2) throws IOException {
+        return MappedLineDiff.compare(write("1", text1), write("2", text2), INDICATOR);
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(myDir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
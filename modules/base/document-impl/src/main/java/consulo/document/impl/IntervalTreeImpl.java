@@ -13,9 +13,11 @@ import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
 import org.jspecify.annotations.Nullable;
 
+import java.lang.invoke.VarHandle;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.locks.Lock;
@@ -28,7 +30,16 @@ public abstract class IntervalTreeImpl<T> extends RedBlackTree<T> implements Int
     static final Logger LOG = Logger.getInstance(IntervalTreeImpl.class);
     static final boolean DEBUG = LOG.isDebugEnabled() || ApplicationManager.getApplication() != null && ApplicationManager.getApplication().isUnitTestMode();
     private int keySize; // number of all intervals, counting all duplicates, some of them maybe gced
-    final ReadWriteLock l = new ReentrantReadWriteLock();
+    final ReadWriteLock l = new StampingReadWriteLock();
+    // incremented on the outermost write lock acquire and release, i.e. odd while some thread modifies the tree
+    private volatile int myWriteStamp;
+
+    // limits the descent of the optimistic reader in case it observes a half-rotated tree
+    private static final int MAX_OPTIMISTIC_DEPTH = 128;
+    // the optimistic reader buffers the intervals, larger results are processed by the locked walk which stops as soon as the processor asks
+    private static final int MAX_OPTIMISTIC_RESULTS = 32;
+    // returned by the optimistic walk which can't be trusted
+    private static final List<Object> OPTIMISTIC_WALK_FAILED = new ArrayList<>(0);
 
     protected abstract int compareEqualStartIntervals(IntervalNode<T> i1, IntervalNode<T> i2);
 
@@ -425,6 +436,69 @@ public abstract class IntervalTreeImpl<T> extends RedBlackTree<T> implements Int
         }
     }
 
+    private final class StampingReadWriteLock extends ReentrantReadWriteLock {
+        private final WriteLock myWriteLock = new StampingWriteLock(this);
+
+        @Override
+        public WriteLock writeLock() {
+            return myWriteLock;
+        }
+    }
+
+    private final class StampingWriteLock extends ReentrantReadWriteLock.WriteLock {
+        private StampingWriteLock(ReentrantReadWriteLock lock) {
+            super(lock);
+        }
+
+        @Override
+        public void lock() {
+            super.lock();
+            onAcquired();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            super.lockInterruptibly();
+            onAcquired();
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (super.tryLock()) {
+                onAcquired();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            if (super.tryLock(timeout, unit)) {
+                onAcquired();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void unlock() {
+            if (getHoldCount() == 1) {
+                //noinspection NonAtomicOperationOnVolatileField guarded by the write lock
+                myWriteStamp++;
+            }
+            super.unlock();
+        }
+
+        private void onAcquired() {
+            if (getHoldCount() == 1) {
+                //noinspection NonAtomicOperationOnVolatileField guarded by the write lock
+                myWriteStamp++;
+                // the volatile write is only a release: without the fence plain writes to the tree may become visible before the odd stamp
+                VarHandle.storeStoreFence();
+            }
+        }
+    }
+
     void assertUnderWriteLock() {
         if (DEBUG) {
             assert isAcquired(l.writeLock()) : l.writeLock();
@@ -555,6 +629,101 @@ public abstract class IntervalTreeImpl<T> extends RedBlackTree<T> implements Int
         return processOverlappingWith(root.getRight(), start, end, modCountBefore, delta, processor);
     }
 
+    /**
+     * The same as {@link #processOverlappingWith(int, int, Predicate)}, but when possible the intervals are collected without the read lock
+     * and the processor is called outside of it, so the tree may be modified while the processor runs.
+     * Meant for queries like "is there an interval in the range", whose processors don't expect the intervals to stay unchanged.
+     */
+    public boolean processOverlappingWithOptimistically(int start, int end, Predicate<? super T> processor) {
+        List<T> overlapping = collectOverlappingOptimistically(start, end);
+        if (overlapping == null) {
+            return processOverlappingWith(start, end, processor);
+        }
+        for (T t : overlapping) {
+            if (!processor.test(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tries to collect intervals overlapping with the range without taking the read lock.
+     * The tree is read seqlock-style: if a writer held the lock before or during the walk, the result is discarded.
+     * The walk gives up after {@link #MAX_OPTIMISTIC_RESULTS} intervals, so a processor which stops early doesn't pay for the rest of them.
+     *
+     * @return overlapping intervals in the tree order, or null if the caller should fall back to the locked walk
+     */
+    private @Nullable List<T> collectOverlappingOptimistically(int start, int end) {
+        int stamp = myWriteStamp;
+        if ((stamp & 1) != 0) {
+            return null;
+        }
+
+        List<T> result;
+        try {
+            result = collectOverlapping(getRoot(), start, end, 0, 0, null);
+        }
+        catch (RuntimeException e) {
+            // the tree was modified under our feet
+            return null;
+        }
+        if (result == OPTIMISTIC_WALK_FAILED) {
+            return null;
+        }
+
+        VarHandle.acquireFence();
+        if (myWriteStamp != stamp) {
+            return null;
+        }
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    /**
+     * @param result intervals collected so far, null if there are none yet, so a walk without overlaps doesn't allocate
+     * @return the result, or {@link #OPTIMISTIC_WALK_FAILED}
+     */
+    @SuppressWarnings("unchecked")
+    private @Nullable List<T> collectOverlapping(@Nullable IntervalNode<T> root,
+                                                 int start,
+                                                 int end,
+                                                 int deltaUpToRootExclusive,
+                                                 int depth,
+                                                 @Nullable List<T> result) {
+        if (root == null) {
+            return result;
+        }
+        if (!root.isValid() || depth > MAX_OPTIMISTIC_DEPTH) {
+            return (List<T>)OPTIMISTIC_WALK_FAILED;
+        }
+
+        int delta = deltaUpToRootExclusive + root.delta;
+        if (start > maxEndOf(root, deltaUpToRootExclusive)) {
+            return result;
+        }
+
+        result = collectOverlapping(root.getLeft(), start, end, delta, depth + 1, result);
+        if (result == OPTIMISTIC_WALK_FAILED) {
+            return result;
+        }
+        int myStartOffset = root.intervalStart() + delta;
+        int myEndOffset = root.intervalEnd() + delta;
+        if (Math.max(myStartOffset, start) <= Math.min(myEndOffset, end)) {
+            List<T> collected = result == null ? new SmartList<>() : result;
+            root.processAliveKeys(t -> collected.add(t));
+            if (collected.size() > MAX_OPTIMISTIC_RESULTS) {
+                return (List<T>)OPTIMISTIC_WALK_FAILED;
+            }
+            result = collected;
+        }
+
+        if (end < myStartOffset) {
+            return result;
+        }
+
+        return collectOverlapping(root.getRight(), start, end, delta, depth + 1, result);
+    }
+
     @Override
     public boolean processOverlappingWithOutside(int start, int end, Predicate<? super T> processor) {
         try {
@@ -1121,6 +1290,72 @@ public abstract class IntervalTreeImpl<T> extends RedBlackTree<T> implements Int
         return keySize;
     }
 
+    /**
+     * Detaches all nodes from the tree, pushing all pending deltas down, so that every node keeps its absolute offsets.
+     * Must be followed by {@link #attachSortedNodes(List)}.
+     *
+     * @return valid nodes with alive keys, in the tree order
+     */
+    List<IntervalNode<T>> detachAllNodes() {
+        assertUnderWriteLock();
+        List<IntervalNode<T>> alive = new ArrayList<>(nodeSize());
+        detachSubtree(getRoot(), alive);
+        super.clear();
+        keySize = 0;
+        return alive;
+    }
+
+    private void detachSubtree(@Nullable IntervalNode<T> node, List<? super IntervalNode<T>> alive) {
+        if (node == null) {
+            return;
+        }
+        pushDelta(node);
+        IntervalNode<T> left = node.getLeft();
+        IntervalNode<T> right = node.getRight();
+
+        detachSubtree(left, alive);
+        if (node.isValid() && node.hasAliveKey(false)) {
+            alive.add(node);
+        }
+        detachSubtree(right, alive);
+
+        // parent links are cleared after the children are processed since pushDelta() checks the parent
+        node.setParent(null);
+        node.setLeft(null);
+        node.setRight(null);
+        node.setAttachedToTree(false);
+    }
+
+    /**
+     * Builds the tree from detached nodes with absolute offsets in one pass.
+     * Nodes must be sorted according to the tree order and must not contain equal intervals.
+     */
+    void attachSortedNodes(List<IntervalNode<T>> nodes) {
+        assertUnderWriteLock();
+        for (IntervalNode<T> node : nodes) {
+            node.setValid(true);
+            node.clearDelta();
+        }
+        rebuildFromSorted(nodes);
+
+        int modCount = getModCount();
+        for (IntervalNode<T> node : nodes) {
+            node.setCachedValues(0, true, modCount);
+            node.setAttachedToTree(true);
+            keySize += node.intervals.size();
+        }
+        computeMaxEnds(getRoot());
+    }
+
+    private int computeMaxEnds(@Nullable IntervalNode<T> node) {
+        if (node == null) {
+            return 0;
+        }
+        int maxEnd = Math.max(node.intervalEnd(), Math.max(computeMaxEnds(node.getLeft()), computeMaxEnds(node.getRight())));
+        node.maxEnd = maxEnd;
+        return maxEnd;
+    }
+
     // returns true if all deltas involved are still 0
     void pushDelta(@Nullable IntervalNode<T> root) {
         if (root == null || !root.isValid()) {
@@ -62,6 +62,7 @@ public class RangeMarkerTree<T extends RangeMarkerEx> extends IntervalTreeImpl<T
     }
 
     private static final int DUPLICATE_LIMIT = 30; // assertion: no more than DUPLICATE_LIMIT range markers are allowed to be registered at given (start, end)
+    private static final int BULK_REBUILD_THRESHOLD = 512; // min number of affected nodes to rebuild the whole tree instead of re-inserting them one by one
 
     @Override
     public RMNode<T> addInterval(T interval, int start, int end,
@@ -214,11 +215,95 @@ public class RangeMarkerTree<T extends RangeMarkerEx> extends IntervalTreeImpl<T
         checkMax(false);
 
         if (!affected.isEmpty()) {
+            if (shouldRebuildOnChange(affected.size())) {
+                return rebuildOnChange(e, affected);
+            }
             return updateAffectedNodes(e, 0, affected);
         }
         return Collections.emptyList();
     }
 
+    // removing and re-inserting k affected nodes costs O(k * log(n)) with rebalancing on each step,
+    // while rebuilding the whole tree from the sorted node list is O(n) (plus sorting of the affected nodes)
+    private boolean shouldRebuildOnChange(int affectedCount) {
+        if (affectedCount < BULK_REBUILD_THRESHOLD) {
+            return false;
+        }
+        int nodeCount = nodeSize();
+        int log = 32 - Integer.numberOfLeadingZeros(nodeCount);
+        return (long) affectedCount * log >= nodeCount;
+    }
+
+    // the same as updateAffectedNodes(e, 0, affected), but all nodes are re-linked into the new tree in one pass
+    // return invalidated markers
+    private List<T> rebuildOnChange(DocumentEvent e, List<? extends IntervalNode<T>> affected) {
+        List<IntervalNode<T>> unaffected = detachAllNodes();
+
+        List<T> invalidated = new ArrayList<>();
+        List<IntervalNode<T>> updated = new ArrayList<>(affected.size());
+        for (IntervalNode<T> node : affected) {
+            node.setValid(true);
+            RangeMarkerImpl marker = getAnyNodeMarker(node, invalidated);
+            if (marker == null) continue; // node is dropped from the tree
+
+            marker.onDocumentChanged(e);
+
+            if (marker.isValid()) {
+                updated.add(node);
+            }
+            else {
+                node.setValid(false);
+                ((RMNode<?>) node).onRemoved();
+                //noinspection DataFlowIssue
+                node.processAliveKeys(t -> invalidated.add(t));
+            }
+        }
+        updated.sort(this::compareDetachedNodes);
+
+        attachSortedNodes(mergeSortedNodes(unaffected, updated));
+        checkMax(true);
+        return invalidated;
+    }
+
+    private List<IntervalNode<T>> mergeSortedNodes(List<IntervalNode<T>> nodes1, List<IntervalNode<T>> nodes2) {
+        List<IntervalNode<T>> result = new ArrayList<>(nodes1.size() + nodes2.size());
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < nodes1.size() || i2 < nodes2.size()) {
+            IntervalNode<T> next;
+            if (i2 >= nodes2.size() || i1 < nodes1.size() && compareDetachedNodes(nodes1.get(i1), nodes2.get(i2)) <= 0) {
+                next = nodes1.get(i1++);
+            }
+            else {
+                next = nodes2.get(i2++);
+            }
+
+            IntervalNode<T> last = result.isEmpty() ? null : result.get(result.size() - 1);
+            if (last != null && compareDetachedNodes(last, next) == 0) {
+                // two ranges become the one
+                IntervalNode<T> target = last;
+                next.processAliveKeys(t -> {
+                    target.addInterval(t);
+                    setNode(t, target);
+                    return true;
+                });
+            }
+            else {
+                result.add(next);
+            }
+        }
+        return result;
+    }
+
+    private int compareDetachedNodes(IntervalNode<T> n1, IntervalNode<T> n2) {
+        int start1 = n1.intervalStart();
+        int start2 = n2.intervalStart();
+        if (start1 != start2) {
+            return start1 - start2;
+        }
+        return compareEqualStartIntervals(n1, n2);
+    }
+
     // return invalidated markers
     private List<T> updateAffectedNodes(DocumentEvent e, int reTargetShift,
                                                  List<? extends IntervalNode<T>> affected) {
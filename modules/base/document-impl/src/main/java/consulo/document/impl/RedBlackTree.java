@@ -4,6 +4,7 @@ package consulo.document.impl;
 import consulo.util.lang.BitUtil;
 import org.jspecify.annotations.Nullable;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
@@ -443,4 +444,42 @@ public abstract class RedBlackTree<K> extends AtomicInteger {
         root = null;
         nodeSize = 0;
     }
+
+    /**
+     * Replaces the whole tree with a balanced one built from detached {@code nodes} in O(n).
+     * Nodes must be sorted according to the tree order and contain no duplicates.
+     */
+    void rebuildFromSorted(List<? extends Node<K>> nodes) {
+        incModCount();
+
+        int size = nodes.size();
+        // all levels above redDepth are full, nodes at redDepth (if any) are colored red to keep black heights equal
+        int redDepth = 31 - Integer.numberOfLeadingZeros(size + 1);
+        root = buildBalanced(nodes, 0, size, null, 0, redDepth);
+        nodeSize = size;
+        verifyProperties();
+    }
+
+    private static <K> @Nullable Node<K> buildBalanced(List<? extends Node<K>> nodes,
+                                                       int from,
+                                                       int to,
+                                                       @Nullable Node<K> parent,
+                                                       int depth,
+                                                       int redDepth) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<K> node = nodes.get(mid);
+        node.setParent(parent);
+        if (depth == redDepth) {
+            node.setRed();
+        }
+        else {
+            node.setBlack();
+        }
+        node.setLeft(buildBalanced(nodes, from, mid, node, depth + 1, redDepth));
+        node.setRight(buildBalanced(nodes, mid + 1, to, node, depth + 1, redDepth));
+        return node;
+    }
 }
@@ -0,0 +1,241 @@
+package consulo.document.impl;
+
+import consulo.document.RangeMarker;
+import consulo.document.internal.RangeMarkerEx;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the one pass rebuild of {@link RangeMarkerTree} on large changes updates markers the same way as changes
+ * which touch a single marker, and that lock-free overlap queries are not affected by concurrent changes.
+ *
+ * @since 2026-10-19
+ */
+public class RangeMarkerTreeTest {
+    private static final String ALPHABET = "abc \n";
+
+    @Test
+    void largeChangesMatchSingleMarkerChanges() throws Throwable {
+        RangeMarkerImpl.runAssertingInternalInvariants(() -> {
+            Random random = new Random(1);
+            DocumentImpl document = new DocumentImpl(randomText(random, 4000), true);
+            List<RangeMarkerImpl> markers = new ArrayList<>();
+            // every marker alone in a copy of the document, where a change affects one node and the tree is not rebuilt
+            List<DocumentImpl> singleDocuments = new ArrayList<>();
+            List<RangeMarkerImpl> singleMarkers = new ArrayList<>();
+
+            for (int step = 0; step < 12; step++) {
+                // at least BULK_REBUILD_THRESHOLD markers are affected by the change below
+                for (int i = 0; i < 800; i++) {
+                    int length = document.getTextLength();
+                    int start = random.nextInt(length + 1);
+                    int end = Math.min(length, start + random.nextInt(20));
+                    boolean greedyToLeft = random.nextInt(4) == 0;
+                    boolean greedyToRight = random.nextInt(4) == 0;
+                    markers.add(createMarker(document, start, end, greedyToLeft, greedyToRight));
+
+                    DocumentImpl singleDocument = new DocumentImpl(document.getImmutableCharSequence(), true);
+                    singleDocuments.add(singleDocument);
+                    singleMarkers.add(createMarker(singleDocument, start, end, greedyToLeft, greedyToRight));
+                }
+
+                int length = document.getTextLength();
+                int start = random.nextInt(length / 4);
+                int end = start + length / 2 + random.nextInt(length / 4);
+                String replacement = switch (step % 3) {
+                    case 0 -> "";
+                    case 1 -> randomText(random, end - start);
+                    default -> randomText(random, random.nextInt(100));
+                };
+                document.replaceString(start, end, replacement);
+                for (DocumentImpl singleDocument : singleDocuments) {
+                    singleDocument.replaceString(start, end, replacement);
+                }
+
+                for (int i = 0; i < markers.size(); i++) {
+                    RangeMarkerImpl marker = markers.get(i);
+                    RangeMarkerImpl singleMarker = singleMarkers.get(i);
+                    assertEquals(singleMarker.isValid(), marker.isValid(), singleMarker.toString());
+                    if (singleMarker.isValid()) {
+                        assertEquals(singleMarker.getTextRange(), marker.getTextRange());
+                    }
+                }
+                assertOverlapping(document, markers, random);
+
+                // the rebuilt tree is still usable for ordinary updates
+                markers.get(random.nextInt(markers.size())).dispose();
+                document.insertString(random.nextInt(document.getTextLength() + 1), "x");
+                assertOverlapping(document, markers, random);
+                markers.removeIf(marker -> !marker.isValid());
+                singleMarkers.clear();
+                singleDocuments.clear();
+                for (RangeMarkerImpl marker : markers) {
+                    DocumentImpl singleDocument = new DocumentImpl(document.getImmutableCharSequence(), true);
+                    singleDocuments.add(singleDocument);
+                    singleMarkers.add(createMarker(singleDocument, marker.getStartOffset(), marker.getEndOffset(),
+                        marker.isGreedyToLeft(), marker.isGreedyToRight()));
+                }
+            }
+        });
+    }
+
+    @Test
+    void equalMarkersAreMergedOnRebuild() throws Throwable {
+        RangeMarkerImpl.runAssertingInternalInvariants(() -> {
+            DocumentImpl document = new DocumentImpl("x".repeat(3000), true);
+            List<RangeMarkerImpl> markers = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                markers.add(createMarker(document, 1000 + i, 1001 + i, false, false));
+            }
+
+            // all the markers collapse to (1000,1000)
+            document.deleteString(1000, 2100);
+            Set<RangeMarker> overlapping = collectOverlapping(document, 0, document.getTextLength());
+            for (RangeMarkerImpl marker : markers) {
+                if (marker.isValid()) {
+                    assertEquals(1000, marker.getStartOffset());
+                    assertEquals(1000, marker.getEndOffset());
+                    assertTrue(overlapping.contains(marker));
+                }
+                else {
+                    assertFalse(overlapping.contains(marker));
+                }
+            }
+
+            document.insertString(1000, "yy");
+            for (RangeMarkerImpl marker : markers) {
+                if (marker.isValid()) {
+                    assertEquals(1000, marker.getStartOffset());
+                    assertEquals(1000, marker.getEndOffset());
+                }
+            }
+        });
+    }
+
+    @Test
+    void optimisticReadsDuringChanges() throws Throwable {
+        Random random = new Random(2);
+        DocumentImpl document = new DocumentImpl(randomText(random, 20000), true);
+        RangeMarkerTree<RangeMarkerEx> tree = new RangeMarkerTree<>(document);
+
+        // markers in the beginning of the document are never touched by the writer
+        Set<RangeMarkerEx> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 20; i++) {
+            expected.add(addToTree(tree, document, i * 50, i * 50 + 10));
+        }
+        List<RangeMarkerEx> changed = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int start = 2000 + random.nextInt(document.getTextLength() - 2000);
+            changed.add(addToTree(tree, document, start, Math.min(document.getTextLength(), start + random.nextInt(30))));
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        Set<RangeMarkerEx> actual = Collections.newSetFromMap(new IdentityHashMap<>());
+                        assertTrue(tree.processOverlappingWithOptimistically(0, 1000, actual::add));
+                        assertEquals(expected, actual);
+                        assertFalse(tree.processOverlappingWithOptimistically(0, 1000, marker -> false));
+                    }
+                }
+                catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "optimistic reader " + i);
+            reader.start();
+            readers.add(reader);
+        }
+
+        try {
+            long deadline = System.currentTimeMillis() + 2000;
+            while (System.currentTimeMillis() < deadline && failure.get() == null) {
+                int length = document.getTextLength();
+                int start = 2000 + random.nextInt(length - 2000);
+                if (random.nextInt(10) == 0) {
+                    // large enough to rebuild the tree
+                    document.replaceString(2000, length, randomText(random, length - 2000));
+                }
+                else if (random.nextBoolean()) {
+                    document.insertString(start, randomText(random, 1 + random.nextInt(10)));
+                }
+                else {
+                    document.deleteString(start, Math.min(length, start + random.nextInt(10)));
+                }
+
+                changed.removeIf(marker -> !marker.isValid());
+                while (changed.size() < 3000) {
+                    int markerStart = 2000 + random.nextInt(document.getTextLength() - 2000);
+                    int markerEnd = Math.min(document.getTextLength(), markerStart + random.nextInt(30));
+                    changed.add(addToTree(tree, document, markerStart, markerEnd));
+                }
+            }
+        }
+        finally {
+            stop.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            tree.dispose(document);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        for (RangeMarkerEx marker : expected) {
+            assertTrue(marker.isValid());
+        }
+    }
+
+    private static RangeMarkerImpl createMarker(DocumentImpl document, int start, int end, boolean greedyToLeft, boolean greedyToRight) {
+        RangeMarkerImpl marker = new RangeMarkerImpl(document, start, end, true, true);
+        marker.setGreedyToLeft(greedyToLeft);
+        marker.setGreedyToRight(greedyToRight);
+        return marker;
+    }
+
+    private static RangeMarkerEx addToTree(RangeMarkerTree<RangeMarkerEx> tree, DocumentImpl document, int start, int end) {
+        RangeMarkerImpl marker = new RangeMarkerImpl(document, start, end, false, true);
+        tree.addInterval(marker, start, end, false, false, false, 0);
+        return marker;
+    }
+
+    private static void assertOverlapping(DocumentImpl document, List<RangeMarkerImpl> markers, Random random) {
+        for (int i = 0; i < 20; i++) {
+            int start = random.nextInt(document.getTextLength() + 1);
+            int end = Math.min(document.getTextLength(), start + random.nextInt(200));
+
+            Set<RangeMarker> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (RangeMarkerImpl marker : markers) {
+                if (marker.isValid() && Math.max(marker.getStartOffset(), start) <= Math.min(marker.getEndOffset(), end)) {
+                    expected.add(marker);
+                }
+            }
+            assertEquals(expected, collectOverlapping(document, start, end));
+        }
+    }
+
+    private static Set<RangeMarker> collectOverlapping(DocumentImpl document, int start, int end) {
+        Set<RangeMarker> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        Predicate<RangeMarker> processor = result::add;
+        document.processRangeMarkersOverlappingWith(start, end, processor);
+        return result;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package consulo.document.impl;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link RedBlackTree#rebuildFromSorted(List)} builds a valid red-black tree keeping the order of the nodes.
+ *
+ * @since 2026-10-19
+ */
+public class RedBlackTreeTest {
+    @Test
+    void rebuildFromSorted() {
+        for (int size = 0; size <= 1100; size++) {
+            IntTree tree = new IntTree();
+            List<IntNode> nodes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                nodes.add(new IntNode(i));
+            }
+
+            int modCount = tree.getModCount();
+            tree.rebuildFromSorted(nodes);
+            assertEquals(modCount + 1, tree.getModCount());
+            assertEquals(size, tree.size());
+            assertTrue(tree.root == null || tree.root.isBlack(), "root must be black");
+            assertTrue(tree.root == null || tree.root.getParent() == null);
+
+            List<Integer> keys = new ArrayList<>(size);
+            checkSubtree(tree.root, keys);
+            for (int i = 0; i < size; i++) {
+                assertEquals(i, keys.get(i));
+            }
+            // as balanced as a binary tree can be
+            assertEquals(32 - Integer.numberOfLeadingZeros(size), height(tree.root), "size: " + size);
+        }
+    }
+
+    @Test
+    void rebuildReplacesPreviousTree() {
+        IntTree tree = new IntTree();
+        List<IntNode> first = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            first.add(new IntNode(i));
+        }
+        tree.rebuildFromSorted(first);
+
+        List<IntNode> second = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            second.add(first.get(i * 10));
+        }
+        tree.rebuildFromSorted(second);
+
+        assertEquals(7, tree.size());
+        List<Integer> keys = new ArrayList<>();
+        checkSubtree(tree.root, keys);
+        assertEquals(List.of(0, 10, 20, 30, 40, 50, 60), keys);
+    }
+
+    /**
+     * Checks parent links, that a red node has no red children and that all paths have the same number of black nodes.
+     *
+     * @return black height of the subtree
+     */
+    private static int checkSubtree(RedBlackTree.@Nullable Node<Integer> node, List<Integer> keys) {
+        if (node == null) {
+            return 1;
+        }
+        RedBlackTree.Node<Integer> left = node.getLeft();
+        RedBlackTree.Node<Integer> right = node.getRight();
+        if (!node.isBlack()) {
+            assertTrue(left == null || left.isBlack(), "red node with a red child");
+            assertTrue(right == null || right.isBlack(), "red node with a red child");
+        }
+        assertTrue(left == null || left.getParent() == node);
+        assertTrue(right == null || right.getParent() == node);
+
+        int leftHeight = checkSubtree(left, keys);
+        keys.add(((IntNode)node).myKey);
+        int rightHeight = checkSubtree(right, keys);
+        assertEquals(leftHeight, rightHeight, "black heights differ");
+        return leftHeight + (node.isBlack() ? 1 : 0);
+    }
+
+    private static int height(RedBlackTree.@Nullable Node<Integer> node) {
+        return node == null ? 0 : 1 + Math.max(height(node.getLeft()), height(node.getRight()));
+    }
+
+    private static class IntTree extends RedBlackTree<Integer> {
+        @Override
+        protected Node<Integer> swapWithMaxPred(Node<Integer> nowAscendant, Node<Integer> nowDescendant) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class IntNode extends RedBlackTree.Node<Integer> {
+        private final int myKey;
+
+        private IntNode(int key) {
+            myKey = key;
+        }
+
+        @Override
+        public boolean processAliveKeys(Predicate<? super Integer> processor) {
+            return processor.test(myKey);
+        }
+
+        @Override
+        public boolean hasAliveKey(boolean purgeDead) {
+            return true;
+        }
+    }
+}
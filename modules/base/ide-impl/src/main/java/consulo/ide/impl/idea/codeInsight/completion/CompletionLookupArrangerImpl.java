@@ -55,6 +55,11 @@ public class CompletionLookupArrangerImpl extends LookupArranger implements Comp
 
     private String myLastLookupPrefix;
 
+    // presentation order of the matching items as of the previous arrangement, valid while the prefix doesn't change
+    private final Map<CompletionSorterImpl, PresentationOrder> myPresentationOrders = new HashMap<>();
+    private final Set<LookupElement> myPresentationOrdered = ContainerUtil.newIdentityTroveSet();
+    private int myPresentationOrderPrefixChanges;
+
     public CompletionLookupArrangerImpl(CompletionProcessEx process) {
         myProcess = process;
     }
@@ -71,6 +76,93 @@ public class CompletionLookupArrangerImpl extends LookupArranger implements Comp
         return inputBySorter;
     }
 
+    /**
+     * Same as {@code groupItemsBySorter(getMatchingItems())}, but only the items added since the previous call are sorted
+     * by presentation, and then merged into the remembered order of the older ones.
+     */
+    private MultiMap<CompletionSorterImpl, LookupElement> groupMatchingItemsBySorter() {
+        List<LookupElement> items = getMatchingItems();
+        if (!Registry.is("ide.completion.incremental.arrangement")) {
+            return groupItemsBySorter(items);
+        }
+
+        if (myPresentationOrderPrefixChanges != myPrefixChanges) {
+            resetPresentationOrder();
+            myPresentationOrderPrefixChanges = myPrefixChanges;
+        }
+
+        MultiMap<CompletionSorterImpl, LookupElement> added = MultiMap.createLinked();
+        for (LookupElement element : items) {
+            if (myPresentationOrdered.add(element)) {
+                added.putValue(obtainSorter(element), element);
+            }
+        }
+        for (CompletionSorterImpl sorter : added.keySet()) {
+            myPresentationOrders.computeIfAbsent(sorter, s -> new PresentationOrder());
+        }
+
+        Set<LookupElement> matching = ContainerUtil.newIdentityTroveSet(items);
+        MultiMap<CompletionSorterImpl, LookupElement> inputBySorter = MultiMap.createLinked();
+        for (Iterator<Map.Entry<CompletionSorterImpl, PresentationOrder>> iterator = myPresentationOrders.entrySet().iterator();
+             iterator.hasNext(); ) {
+            Map.Entry<CompletionSorterImpl, PresentationOrder> entry = iterator.next();
+            PresentationOrder order = entry.getValue();
+
+            List<LookupElement> startMatches = new ArrayList<>();
+            List<LookupElement> middleMatches = new ArrayList<>();
+            for (LookupElement element : added.get(entry.getKey())) {
+                (itemMatcher(element).isStartMatch(element) ? startMatches : middleMatches).add(element);
+            }
+            ContainerUtil.sort(startMatches, BY_PRESENTATION_COMPARATOR);
+            ContainerUtil.sort(middleMatches, BY_PRESENTATION_COMPARATOR);
+            order.myStartMatches = mergeByPresentation(order.myStartMatches, startMatches, matching);
+            order.myMiddleMatches = mergeByPresentation(order.myMiddleMatches, middleMatches, matching);
+
+            if (order.myStartMatches.isEmpty() && order.myMiddleMatches.isEmpty()) {
+                iterator.remove();
+            }
+            else {
+                inputBySorter.putValues(entry.getKey(), ContainerUtil.concat(order.myStartMatches, order.myMiddleMatches));
+            }
+        }
+        return inputBySorter;
+    }
+
+    /**
+     * Merges two lists sorted by presentation, dropping the old items which don't match anymore.
+     * Old items go first among equal ones, the same way a stable sort of all the items would order them.
+     */
+    private List<LookupElement> mergeByPresentation(
+        List<LookupElement> sorted,
+        List<LookupElement> added,
+        Set<LookupElement> matching
+    ) {
+        List<LookupElement> result = new ArrayList<>(sorted.size() + added.size());
+        int i = 0;
+        int j = 0;
+        while (i < sorted.size()) {
+            LookupElement old = sorted.get(i);
+            if (!matching.contains(old)) {
+                myPresentationOrdered.remove(old);
+                i++;
+            }
+            else if (j < added.size() && BY_PRESENTATION_COMPARATOR.compare(added.get(j), old) < 0) {
+                result.add(added.get(j++));
+            }
+            else {
+                result.add(old);
+                i++;
+            }
+        }
+        result.addAll(added.subList(j, added.size()));
+        return result;
+    }
+
+    private void resetPresentationOrder() {
+        myPresentationOrders.clear();
+        myPresentationOrdered.clear();
+    }
+
     
     private CompletionSorterImpl obtainSorter(LookupElement element) {
         //noinspection ConstantConditions
@@ -162,6 +254,11 @@ public class CompletionLookupArrangerImpl extends LookupArranger implements Comp
     public void addElement(LookupElement element, LookupElementPresentation presentation) {
         CompletionStatistician.clearBaseStatisticsInfo(element);
 
+        if (myPresentationOrdered.contains(element)) {
+            // re-added with a new presentation, its remembered position may be wrong now
+            resetPresentationOrder();
+        }
+
         PresentationInvariant invariant =
             new PresentationInvariant(presentation.getItemText(), presentation.getTailText(), presentation.getTypeText());
         element.putUserData(PRESENTATION_INVARIANT, invariant);
@@ -179,6 +276,12 @@ public class CompletionLookupArrangerImpl extends LookupArranger implements Comp
         trimToLimit(context);
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        resetPresentationOrder();
+    }
+
     @Override
     public void itemSelected(@Nullable LookupElement lookupItem, char completionChar) {
         myProcess.itemSelected(lookupItem, completionChar);
@@ -189,8 +292,7 @@ public class CompletionLookupArrangerImpl extends LookupArranger implements Comp
             return;
         }
 
-        List<LookupElement> items = getMatchingItems();
-        Iterator<LookupElement> iterator = sortByRelevance(groupItemsBySorter(items)).iterator();
+        Iterator<LookupElement> iterator = sortByRelevance(groupMatchingItemsBySorter()).iterator();
 
         Set<LookupElement> retainedSet = ContainerUtil.newIdentityTroveSet();
         retainedSet.addAll(getPrefixItems(true));
@@ -306,7 +408,7 @@ public class CompletionLookupArrangerImpl extends LookupArranger implements Comp
     
     private Pair<List<LookupElement>, Integer> doArrangeItems(LookupElementListPresenter lookup, boolean onExplicitAction) {
         List<LookupElement> items = getMatchingItems();
-        Iterable<LookupElement> sortedByRelevance = sortByRelevance(groupItemsBySorter(items));
+        Iterable<LookupElement> sortedByRelevance = sortByRelevance(groupMatchingItemsBySorter());
 
         LookupElement relevantSelection = findMostRelevantItem(sortedByRelevance);
         List<LookupElement> listModel = isAlphaSorted() ? sortByPresentation(items)
@@ -568,6 +670,11 @@ public class CompletionLookupArrangerImpl extends LookupArranger implements Comp
         return true;
     }
 
+    private static final class PresentationOrder {
+        private List<LookupElement> myStartMatches = Collections.emptyList();
+        private List<LookupElement> myMiddleMatches = Collections.emptyList();
+    }
+
     private static class EmptyClassifier extends Classifier<LookupElement> {
 
         private EmptyClassifier() {
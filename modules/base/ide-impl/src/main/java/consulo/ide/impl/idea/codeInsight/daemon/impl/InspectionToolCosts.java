@@ -0,0 +1,42 @@
+package consulo.ide.impl.idea.codeInsight.daemon.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Run time of local inspection tools measured in the previous highlighting passes, per tool short name.
+ * <p>
+ * Tools are started from the most expensive one, so that a slow tool doesn't start last and keep the pass running
+ * long after all the cheap tools are done.
+ *
+ * @since 2026-10-19
+ */
+final class InspectionToolCosts {
+    private static final Map<String, Long> ourCosts = new ConcurrentHashMap<>();
+
+    private InspectionToolCosts() {
+    }
+
+    static void record(String shortName, long nanos) {
+        // exponential moving average, a single outlier shouldn't reorder the tools
+        ourCosts.merge(shortName, nanos, (oldNanos, newNanos) -> oldNanos - (oldNanos >> 2) + (newNanos >> 2));
+    }
+
+    static long getCost(String shortName) {
+        return ourCosts.getOrDefault(shortName, 0L);
+    }
+
+    /**
+     * @return copy of the items, the most expensive first; tools which were never measured go last
+     */
+    static <T> List<T> sortByCost(Collection<? extends T> items, Function<? super T, String> shortName) {
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingLong((T item) -> getCost(shortName.apply(item))).reversed());
+        return sorted;
+    }
+}
@@ -21,6 +21,7 @@ import consulo.application.internal.ApplicationEx;
 import consulo.application.progress.ProgressIndicator;
 import consulo.application.progress.ProgressManager;
 import consulo.application.util.concurrent.JobLauncher;
+import consulo.application.util.registry.Registry;
 import consulo.colorScheme.EditorColorsScheme;
 import consulo.colorScheme.TextAttributes;
 import consulo.component.ProcessCanceledException;
@@ -34,6 +35,7 @@ import consulo.ide.impl.idea.codeInspection.ex.LocalDescriptorsUtil;
 import consulo.ide.impl.idea.codeInspection.ex.ProblemDescriptorImpl;
 import consulo.ide.impl.idea.codeInspection.ui.InspectionToolPresentation;
 import consulo.ide.impl.idea.openapi.keymap.KeymapUtil;
+import consulo.ide.impl.internal.jfr.InspectionToolEvent;
 import consulo.language.Language;
 import consulo.language.editor.Pass;
 import consulo.language.editor.annotation.HighlightSeverity;
@@ -288,7 +290,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
             elementDialectIds
         );
         inspectInjectedPsi(inside, isOnTheFly, progress, iManager, true, toolWrappers);
-        visitRestElementsAndCleanup(progress, outside, session, init, elementDialectIds);
+        visitRestElementsAndCleanup(progress, outside, session, init, elementDialectIds, isOnTheFly);
         inspectInjectedPsi(outside, isOnTheFly, progress, iManager, false, toolWrappers);
 
         progress.checkCanceled();
@@ -309,7 +311,8 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
         Set<String> elementDialectIds
     ) {
         List<InspectionContext> init = new ArrayList<>();
-        List<Map.Entry<LocalInspectionToolWrapper, Set<String>>> entries = new ArrayList<>(toolToSpecifiedLanguageIds.entrySet());
+        List<Map.Entry<LocalInspectionToolWrapper, Set<String>>> entries =
+            InspectionToolCosts.sortByCost(toolToSpecifiedLanguageIds.entrySet(), entry -> entry.getKey().getShortName());
 
         Predicate<Map.Entry<LocalInspectionToolWrapper, Set<String>>> processor = pair -> {
             LocalInspectionToolWrapper toolWrapper = pair.getKey();
@@ -365,6 +368,9 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
 
         Object state = toolWrapper.getToolState().getState();
 
+        long start = System.nanoTime();
+        InspectionToolEvent event = new InspectionToolEvent();
+        event.begin();
         PsiElementVisitor visitor = InspectionEngine.createVisitorAndAcceptElements(
             tool,
             holder,
@@ -375,9 +381,19 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
             dialectIdsSpecifiedForTool,
             state
         );
+        InspectionEngine.commitToolEvent(
+            event,
+            tool,
+            getFile(),
+            InspectionToolEvent.PRIORITY_RANGE,
+            elements.size(),
+            holder.getResultCount()
+        );
+
+        long priorityNanos = System.nanoTime() - start;
 
         synchronized (init) {
-            init.add(new InspectionContext(toolWrapper, holder, holder.getResultCount(), visitor, dialectIdsSpecifiedForTool));
+            init.add(new InspectionContext(toolWrapper, holder, holder.getResultCount(), visitor, dialectIdsSpecifiedForTool, priorityNanos));
         }
         advanceProgress(1);
 
@@ -392,27 +408,48 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
         List<PsiElement> elements,
         LocalInspectionToolSession session,
         List<InspectionContext> init,
-        Set<String> elementDialectIds
+        Set<String> elementDialectIds,
+        boolean isOnTheFly
     ) {
+        boolean streamResults = isOnTheFly && Registry.is("daemon.inspections.stream.results");
         @RequiredReadAction
         Predicate<InspectionContext> processor = context -> {
             indicator.checkCanceled();
             Application.get().assertReadAccessAllowed();
+            long start = System.nanoTime();
+            InspectionToolEvent event = new InspectionToolEvent();
+            event.begin();
             InspectionEngine.acceptElements(elements, context.visitor, elementDialectIds, context.dialectIdsSpecifiedForTool);
             advanceProgress(1);
 
             Object state = context.tool.getToolState().getState();
             context.tool.getTool().inspectionFinished(session, context.holder, state);
+            InspectionEngine.commitToolEvent(
+                event,
+                context.tool.getTool(),
+                getFile(),
+                InspectionToolEvent.REST,
+                elements.size(),
+                context.holder.getResultCount() - context.problemsSize
+            );
+            InspectionToolCosts.record(context.tool.getShortName(), context.priorityNanos + System.nanoTime() - start);
 
             if (context.holder.hasResults()) {
                 List<ProblemDescriptor> allProblems = context.holder.getResults();
                 List<ProblemDescriptor> restProblems = allProblems.subList(context.problemsSize, allProblems.size());
                 appendDescriptors(getFile(), restProblems, context.tool);
+                if (streamResults) {
+                    // show the results of this tool now instead of waiting for the slowest one
+                    for (ProblemDescriptor descriptor : restProblems) {
+                        addDescriptorIncrementally(descriptor, context.tool, indicator);
+                    }
+                }
             }
             return true;
         };
+        List<InspectionContext> contexts = InspectionToolCosts.sortByCost(init, context -> context.tool.getShortName());
         boolean result =
-            JobLauncher.getInstance().invokeConcurrentlyUnderProgress(init, indicator, myFailFastOnAcquireReadAction, processor);
+            JobLauncher.getInstance().invokeConcurrentlyUnderProgress(contexts, indicator, myFailFastOnAcquireReadAction, processor);
         if (!result) {
             throw new ProcessCanceledException();
         }
@@ -871,6 +908,8 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
 
             LocalInspectionToolSession injSession = new LocalInspectionToolSession(injectedPsi, 0, injectedPsi.getTextLength());
             Set<String> dialectIdsSpecifiedForTool = pair.getValue();
+            InspectionToolEvent event = new InspectionToolEvent();
+            event.begin();
             InspectionEngine.createVisitorAndAcceptElements(
                 tool,
                 holder,
@@ -883,6 +922,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
             );
             tool.inspectionFinished(injSession, holder, state);
             List<ProblemDescriptor> problems = holder.getResults();
+            InspectionEngine.commitToolEvent(event, tool, injectedPsi, InspectionToolEvent.INJECTED, elements.size(), problems.size());
             if (!problems.isEmpty()) {
                 appendDescriptors(injectedPsi, problems, wrapper);
             }
@@ -914,13 +954,15 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
             int problemsSize,
             // need this to diff between found problems in visible part and the rest
             PsiElementVisitor visitor,
-            @Nullable Set<String> dialectIdsSpecifiedForTool
+            @Nullable Set<String> dialectIdsSpecifiedForTool,
+            long priorityNanos
         ) {
             this.tool = tool;
             this.holder = holder;
             this.problemsSize = problemsSize;
             this.visitor = visitor;
             this.dialectIdsSpecifiedForTool = dialectIdsSpecifiedForTool;
+            this.priorityNanos = priorityNanos;
         }
 
         
@@ -931,5 +973,6 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
         
         private final PsiElementVisitor visitor;
         private final @Nullable Set<String> dialectIdsSpecifiedForTool;
+        private final long priorityNanos;
     }
 }
@@ -21,6 +21,7 @@ import consulo.fileEditor.FileEditorManager;
 import consulo.fileEditor.TextEditor;
 import consulo.fileEditor.highlight.HighlightingPass;
 import consulo.ide.impl.idea.openapi.application.impl.ApplicationInfoImpl;
+import consulo.ide.impl.internal.jfr.DaemonPassEvent;
 import consulo.language.editor.FileStatusMap;
 import consulo.language.editor.highlight.TextEditorHighlightingPass;
 import consulo.language.editor.impl.highlight.EditorBoundHighlightingPass;
@@ -519,6 +520,8 @@ final class PassExecutorService implements Disposable {
                 }
             }
 
+            DaemonPassEvent event = new DaemonPassEvent();
+            event.begin();
             ProgressManager.getInstance().executeProcessUnderProgress(
                 () -> {
                     boolean success = ApplicationManagerEx.getApplicationEx().tryRunReadAction(() -> {
@@ -551,6 +554,7 @@ final class PassExecutorService implements Disposable {
                 },
                 myUpdateProgress
             );
+            commitPassEvent(event, myPass, myFileEditor, DaemonPassEvent.COLLECT, myUpdateProgress.isCanceled());
 
             log(myUpdateProgress, myPass, "Finished. ");
 
@@ -588,6 +592,24 @@ final class PassExecutorService implements Disposable {
         }
     }
 
+    private static void commitPassEvent(
+        DaemonPassEvent event,
+        TextEditorHighlightingPass pass,
+        FileEditor fileEditor,
+        String phase,
+        boolean canceled
+    ) {
+        if (event.shouldCommit()) {
+            VirtualFile file = fileEditor.getFile();
+            event.passClass = pass.getClass();
+            event.passId = pass.getId();
+            event.phase = phase;
+            event.file = file == null ? null : file.getPath();
+            event.canceled = canceled;
+            event.commit();
+        }
+    }
+
     private void applyInformationToEditorsLater(
         FileEditor fileEditor,
         TextEditorHighlightingPass pass,
@@ -608,7 +630,10 @@ final class PassExecutorService implements Disposable {
                 if (Application.get().isUnifiedApplication()
                     || fileEditor.getComponent().isDisplayable()
                     || Application.get().isHeadlessEnvironment()) {
+                    DaemonPassEvent event = new DaemonPassEvent();
+                    event.begin();
                     pass.applyInformationToEditor();
+                    commitPassEvent(event, pass, fileEditor, DaemonPassEvent.APPLY, false);
                     repaintErrorStripeAndIcon(fileEditor);
                     FileStatusMap fileStatusMap = DaemonCodeAnalyzerInternal.getInstanceEx(myProject).getFileStatusMap();
                     if (document != null) {
@@ -21,6 +21,7 @@ import consulo.application.progress.ProgressIndicator;
 import consulo.application.progress.ProgressManager;
 import consulo.application.util.concurrent.JobLauncher;
 import consulo.document.util.TextRange;
+import consulo.ide.impl.internal.jfr.InspectionToolEvent;
 import consulo.language.Language;
 import consulo.language.editor.impl.inspection.reference.RefManagerImpl;
 import consulo.language.editor.inspection.scheme.GlobalInspectionToolWrapper;
@@ -42,6 +43,7 @@ import consulo.logging.Logger;
 import consulo.util.collection.ContainerUtil;
 import consulo.util.collection.SmartHashSet;
 import consulo.util.lang.function.Predicates;
+import consulo.virtualFileSystem.VirtualFile;
 import org.jspecify.annotations.Nullable;
 
 import java.util.*;
@@ -92,6 +94,25 @@ public class InspectionEngine {
         return visitor;
     }
 
+    public static void commitToolEvent(
+        InspectionToolEvent event,
+        LocalInspectionTool tool,
+        PsiFile file,
+        String phase,
+        int elementCount,
+        int problemCount
+    ) {
+        if (event.shouldCommit()) {
+            VirtualFile virtualFile = file.getViewProvider().getVirtualFile();
+            event.tool = tool.getShortName();
+            event.file = virtualFile.getPath();
+            event.phase = phase;
+            event.elementCount = elementCount;
+            event.problemCount = problemCount;
+            event.commit();
+        }
+    }
+
     /**
      * @param elements
      * @param elementVisitor
@@ -213,6 +234,8 @@ public class InspectionEngine {
             LocalInspectionTool tool = entry.getKey().getTool();
             Object toolState = entry.getKey().getToolState().getState();
             Set<String> dialectIdsSpecifiedForTool = entry.getValue();
+            InspectionToolEvent event = new InspectionToolEvent();
+            event.begin();
             createVisitorAndAcceptElements(
                 tool,
                 holder,
@@ -224,6 +247,7 @@ public class InspectionEngine {
                 toolState
             );
             tool.inspectionFinished(session, holder, toolState);
+            commitToolEvent(event, tool, file, InspectionToolEvent.WHOLE_FILE, elements.size(), holder.getResultCount());
 
             if (holder.hasResults()) {
                 resultDescriptors.put(
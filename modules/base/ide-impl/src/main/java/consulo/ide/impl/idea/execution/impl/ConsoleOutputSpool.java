@@ -0,0 +1,331 @@
+package consulo.ide.impl.idea.execution.impl;
+
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.util.concurrent.AppExecutorUtil;
+import consulo.logging.Logger;
+import consulo.util.io.FileUtil;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Append-only disk copy of everything printed to a console, so that output dropped by the cycle buffer is not lost.
+ * <p>
+ * Text is stored as UTF-8 in a temporary file. Every {@link #INDEX_STEP}-th line start is remembered in a sparse index,
+ * lines are read back through memory mapped windows of the file, so heap usage doesn't depend on the output size.
+ * Carriage returns are stored as is, so lines are separated by {@code "\n"}, {@code "\r"} or {@code "\r\n"}
+ * and line numbers match the ones of the editor the file is opened in.
+ * <p>
+ * Printing threads only put the text to a queue, it is written to the file by a single background writer.
+ * The writer publishes an immutable {@link State} after every write, and readers scan the file up to the size of the state
+ * they took without any locking: the written part of the file never changes, {@link #clear()} switches to a new file.
+ * Every reader opens its own channel, so an interrupted reader doesn't close the channel of the writer.
+ *
+ * @since 2026-10-19
+ */
+final class ConsoleOutputSpool {
+    private static final Logger LOG = Logger.getInstance(ConsoleOutputSpool.class);
+
+    private static final int INDEX_STEP = 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAP_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private static final ExecutorService ourWriter = AppExecutorUtil.createBoundedApplicationPoolExecutor("Console Output Spool Writer", 1);
+
+    private static final Object CLEAR = new Object();
+    private static final Object DISPOSE = new Object();
+
+    /**
+     * Written part of the file. {@code lineIndex} holds byte offsets of lines 0, INDEX_STEP, 2 * INDEX_STEP, ...
+     * and is shared with the writer, which only appends to it after {@code indexSize}.
+     */
+    private record State(File file, long size, long lineCount, long[] lineIndex, int indexSize) {
+    }
+
+    // texts and CLEAR/DISPOSE commands in the order of calls
+    private final Queue<Object> myQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean myWriteScheduled = new AtomicBoolean();
+    private volatile boolean myDisposed;
+    // null if the file can't be written
+    private volatile @Nullable State myState;
+
+    // accessed by the writer only
+    private final ByteBuffer myWriteBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private @Nullable FileChannel myChannel;
+    private long[] myLineIndex;
+    private int myIndexSize;
+    private long mySize;
+    private long myLineCount;
+    // the last written byte is '\r', so '\n' written next doesn't start one more line
+    private boolean myAfterCarriageReturn;
+
+    private ConsoleOutputSpool() {
+    }
+
+    static @Nullable ConsoleOutputSpool create() {
+        ConsoleOutputSpool spool = new ConsoleOutputSpool();
+        return spool.openFile() ? spool : null;
+    }
+
+    @Nullable File getFile() {
+        State state = myState;
+        return state == null ? null : state.file();
+    }
+
+    long getLineCount() {
+        State state = myState;
+        return state == null ? 0 : state.lineCount();
+    }
+
+    long getSize() {
+        State state = myState;
+        return state == null ? 0 : state.size();
+    }
+
+    /**
+     * Doesn't block: the text is written to the file in background.
+     */
+    void append(String text) {
+        if (!text.isEmpty()) {
+            enqueue(text);
+        }
+    }
+
+    void clear() {
+        enqueue(CLEAR);
+    }
+
+    void dispose() {
+        enqueue(DISPOSE);
+        myDisposed = true;
+    }
+
+    /**
+     * Passes lines starting from {@code startLine} to the processor until it returns {@code false} or the written output ends.
+     * Text appended during the call is not reported.
+     */
+    void processLines(long startLine, Predicate<? super String> processor) {
+        State state = myState;
+        if (state == null || startLine >= state.lineCount()) {
+            return;
+        }
+
+        long size = state.size();
+        try (FileChannel channel = FileChannel.open(state.file().toPath(), StandardOpenOption.READ)) {
+            int indexEntry = (int)(startLine / INDEX_STEP);
+            long line = (long)indexEntry * INDEX_STEP;
+            long position = state.lineIndex()[indexEntry];
+            long lineStart = position;
+            boolean afterCarriageReturn = position > 0 && readByte(channel, position - 1) == '\r';
+            while (position < size) {
+                long windowSize = Math.min(MAP_WINDOW_SIZE, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                for (int i = 0; i < windowSize; i++) {
+                    byte b = window.get(i);
+                    if (b == '\n' && afterCarriageReturn) {
+                        // the rest of "\r\n", the line is already reported
+                        lineStart = position + i + 1;
+                    }
+                    else if (b == '\n' || b == '\r') {
+                        long lineEnd = position + i;
+                        if (line >= startLine && !processor.test(readLine(channel, lineStart, lineEnd))) {
+                            return;
+                        }
+                        line++;
+                        lineStart = lineEnd + 1;
+                    }
+                    afterCarriageReturn = b == '\r';
+                }
+                position += windowSize;
+            }
+            if (line >= startLine) {
+                processor.test(readLine(channel, lineStart, size));
+            }
+        }
+        catch (ClosedChannelException | NoSuchFileException e) {
+            // the reading thread was interrupted, or the output was cleared or the console was disposed
+        }
+        catch (IOException e) {
+            LOG.warn("Cannot read console output from " + state.file(), e);
+        }
+    }
+
+    /**
+     * @return number of the first line at or after {@code startLine} which contains {@code text}, or {@code -1}
+     */
+    long findLine(long startLine, String text, ProgressIndicator indicator) {
+        long[] result = {-1};
+        long[] line = {startLine};
+        processLines(startLine, s -> {
+            indicator.checkCanceled();
+            if (s.contains(text)) {
+                result[0] = line[0];
+                return false;
+            }
+            line[0]++;
+            return true;
+        });
+        return result[0];
+    }
+
+    private void enqueue(Object command) {
+        if (myDisposed) {
+            return;
+        }
+        myQueue.offer(command);
+        if (myWriteScheduled.compareAndSet(false, true)) {
+            ourWriter.execute(this::write);
+        }
+    }
+
+    private void write() {
+        // reset before polling, so a command queued after the last poll schedules another run
+        myWriteScheduled.set(false);
+        Object command;
+        while ((command = myQueue.poll()) != null) {
+            if (command == DISPOSE) {
+                closeFile();
+                myQueue.clear();
+                return;
+            }
+            if (command == CLEAR) {
+                myWriteBuffer.clear();
+                closeFile();
+                openFile();
+            }
+            else if (myState != null) {
+                writeText((String)command);
+            }
+        }
+
+        State state = myState;
+        if (state == null) {
+            return;
+        }
+        try {
+            flushBuffer();
+            myState = new State(state.file(), mySize, myLineCount, myLineIndex, myIndexSize);
+        }
+        catch (IOException e) {
+            LOG.warn("Cannot write console output to " + state.file(), e);
+            closeFile();
+        }
+    }
+
+    private void writeText(String text) {
+        State state = myState;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            // '\n' and '\r' can't be a part of a multi-byte utf-8 sequence
+            byte b = bytes[i];
+            boolean lineSeparator = b == '\r' || b == '\n' && !myAfterCarriageReturn;
+            myAfterCarriageReturn = b == '\r';
+            if (lineSeparator && myLineCount++ % INDEX_STEP == 0) {
+                if (myIndexSize == myLineIndex.length) {
+                    myLineIndex = Arrays.copyOf(myLineIndex, myIndexSize * 2);
+                }
+                myLineIndex[myIndexSize++] = mySize + i + 1;
+            }
+        }
+
+        try {
+            if (bytes.length > myWriteBuffer.remaining()) {
+                flushBuffer();
+            }
+            if (bytes.length > myWriteBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+            }
+            else {
+                myWriteBuffer.put(bytes);
+            }
+            mySize += bytes.length;
+        }
+        catch (IOException e) {
+            LOG.warn("Cannot write console output to " + state.file(), e);
+            closeFile();
+        }
+    }
+
+    private boolean openFile() {
+        try {
+            File file = FileUtil.createTempFile("console", ".log", true);
+            myChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+            myLineIndex = new long[16];
+            myLineIndex[0] = 0;
+            myIndexSize = 1;
+            mySize = 0;
+            myLineCount = 1;
+            myAfterCarriageReturn = false;
+            myState = new State(file, 0, 1, myLineIndex, 1);
+            return true;
+        }
+        catch (IOException e) {
+            LOG.warn("Cannot create console output file", e);
+            return false;
+        }
+    }
+
+    // readers still scanning the file keep their channels, readers which come later see no output
+    private void closeFile() {
+        State state = myState;
+        if (state == null) {
+            return;
+        }
+        myState = null;
+        try {
+            myChannel.close();
+        }
+        catch (IOException e) {
+            LOG.debug(e);
+        }
+        FileUtil.delete(state.file());
+    }
+
+    // lines longer than the map window are truncated to their tail
+    private static String readLine(FileChannel channel, long start, long end) throws IOException {
+        int length = (int)Math.min(end - start, MAP_WINDOW_SIZE);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = end - length;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    private static int readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        return channel.read(buffer, position) == 1 ? buffer.get(0) : -1;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (myWriteBuffer.position() == 0) {
+            return;
+        }
+        myWriteBuffer.flip();
+        writeFully(myWriteBuffer);
+        myWriteBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            myChannel.write(buffer, myChannel.size());
+        }
+    }
+}
@@ -15,6 +15,9 @@ import consulo.codeEditor.action.*;
 import consulo.codeEditor.event.EditorMouseEvent;
 import consulo.codeEditor.markup.*;
 import consulo.colorScheme.TextAttributes;
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.Task;
+import consulo.application.util.registry.Registry;
 import consulo.colorScheme.TextAttributesKey;
 import consulo.colorScheme.event.EditorColorsListener;
 import consulo.content.scope.SearchScope;
@@ -45,6 +48,7 @@ import consulo.localize.LocalizeValue;
 import consulo.logging.Logger;
 import consulo.navigation.Navigatable;
 import consulo.navigation.OpenFileDescriptor;
+import consulo.navigation.OpenFileDescriptorFactory;
 import consulo.platform.base.icon.PlatformIconGroup;
 import consulo.process.ProcessHandler;
 import consulo.process.event.ProcessEvent;
@@ -60,6 +64,7 @@ import consulo.ui.ex.action.*;
 import consulo.ui.clipboard.DataTransferType;
 import consulo.ui.ex.CopyPasteManager;
 import consulo.ui.ex.awt.IdeBorderFactory;
+import consulo.ui.ex.awt.Messages;
 import consulo.ui.ex.awt.SideBorder;
 import consulo.ui.ex.awt.UIUtil;
 import consulo.ui.ex.awt.util.Alarm;
@@ -72,6 +77,8 @@ import consulo.util.lang.Pair;
 import consulo.util.lang.StringUtil;
 import consulo.util.lang.SystemProperties;
 import consulo.util.lang.ref.SimpleReference;
+import consulo.virtualFileSystem.LocalFileSystem;
+import consulo.virtualFileSystem.VirtualFile;
 import org.jspecify.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
@@ -80,6 +87,7 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.*;
@@ -121,6 +129,11 @@ public class ConsoleViewImpl extends JPanel implements ConsoleView, ObservableCo
      */
     private final TokenBuffer myDeferredBuffer =
         new TokenBuffer(ConsoleBuffer.useCycleBuffer() ? ConsoleBuffer.getCycleBufferSize() : Integer.MAX_VALUE);
+    /**
+     * full copy of the printed text, which is kept on disk when the cycle buffer drops old output
+     */
+    private final @Nullable ConsoleOutputSpool myOutputSpool =
+        ConsoleBuffer.useCycleBuffer() && Registry.is("console.disk.buffer") ? ConsoleOutputSpool.create() : null;
 
     private boolean myUpdateFoldingsEnabled = true;
 
@@ -316,6 +329,9 @@ public class ConsoleViewImpl extends JPanel implements ConsoleView, ObservableCo
             each.textCleared();
         }
 
+        if (myOutputSpool != null) {
+            myOutputSpool.clear();
+        }
         synchronized (LOCK) {
             // real document content will be cleared on next flush;
             myDeferredBuffer.clear();
@@ -535,6 +551,9 @@ public class ConsoleViewImpl extends JPanel implements ConsoleView, ObservableCo
             myEditor = null;
             myHyperlinks = null;
         }
+        if (myOutputSpool != null) {
+            myOutputSpool.dispose();
+        }
     }
 
     private void cancelAllFlushRequests() {
@@ -605,6 +624,9 @@ public class ConsoleViewImpl extends JPanel implements ConsoleView, ObservableCo
 
     protected void print(String text, ConsoleViewContentType contentType, @Nullable HyperlinkInfo info) {
         text = StringUtil.convertLineSeparators(text, keepSlashR);
+        if (myOutputSpool != null) {
+            myOutputSpool.append(text);
+        }
         synchronized (LOCK) {
             myDeferredBuffer.print(text, contentType, info);
 
@@ -1228,6 +1250,91 @@ public class ConsoleViewImpl extends JPanel implements ConsoleView, ObservableCo
         }
     }
 
+    private static void openFullOutput(Project project, ConsoleOutputSpool spool, int line) {
+        File ioFile = spool.getFile();
+        VirtualFile file = ioFile == null ? null : LocalFileSystem.getInstance().refreshAndFindFileByIoFile(ioFile);
+        if (file == null) {
+            return;
+        }
+        file.refresh(false, false);
+        OpenFileDescriptorFactory.getInstance(project).newBuilder(file).line(line).build().navigate(true);
+    }
+
+    private static class OpenFullOutputAction extends LegacyDumbAwareAction {
+        private final Project myProject;
+        private final ConsoleOutputSpool mySpool;
+
+        OpenFullOutputAction(Project project, ConsoleOutputSpool spool) {
+            super(
+                LocalizeValue.localizeTODO("Open Full Output"),
+                LocalizeValue.localizeTODO("Open the whole output, including the text dropped from the console, in an editor"),
+                PlatformIconGroup.actionsMenu_open()
+            );
+            myProject = project;
+            mySpool = spool;
+        }
+
+        @Override
+        public void update(AnActionEvent e) {
+            e.getPresentation().setEnabled(mySpool.getSize() > 0);
+        }
+
+        @Override
+        @RequiredUIAccess
+        public void actionPerformed(AnActionEvent e) {
+            openFullOutput(myProject, mySpool, (int)Math.min(Integer.MAX_VALUE, mySpool.getLineCount() - 1));
+        }
+    }
+
+    private static class FindInFullOutputAction extends LegacyDumbAwareAction {
+        private final Project myProject;
+        private final ConsoleOutputSpool mySpool;
+
+        FindInFullOutputAction(Project project, ConsoleOutputSpool spool) {
+            super(
+                LocalizeValue.localizeTODO("Find in Full Output..."),
+                LocalizeValue.localizeTODO("Search the whole output, including the text dropped from the console"),
+                PlatformIconGroup.actionsFind()
+            );
+            myProject = project;
+            mySpool = spool;
+        }
+
+        @Override
+        public void update(AnActionEvent e) {
+            e.getPresentation().setEnabled(mySpool.getSize() > 0);
+        }
+
+        @Override
+        @RequiredUIAccess
+        public void actionPerformed(AnActionEvent e) {
+            String text = Messages.showInputDialog(myProject, "Text to find:", "Find in Full Output", null);
+            if (StringUtil.isEmpty(text)) {
+                return;
+            }
+
+            new Task.Backgroundable(myProject, LocalizeValue.localizeTODO("Searching console output")) {
+                private long myLine = -1;
+
+                @Override
+                public void run(ProgressIndicator indicator) {
+                    myLine = mySpool.findLine(0, text, indicator);
+                }
+
+                @Override
+                @RequiredUIAccess
+                public void onSuccess() {
+                    if (myLine < 0) {
+                        Messages.showInfoMessage(myProject, "'" + text + "' not found", "Find in Full Output");
+                    }
+                    else {
+                        openFullOutput(myProject, mySpool, (int)Math.min(Integer.MAX_VALUE, myLine));
+                    }
+                }
+            }.queue();
+        }
+    }
+
     // finds range marker the [offset..offset+1) belongs to
     private RangeMarker findTokenMarker(int offset) {
         RangeMarker[] marker = new RangeMarker[1];
@@ -1531,6 +1638,10 @@ public class ConsoleViewImpl extends JPanel implements ConsoleView, ObservableCo
         consoleActions.add(autoScrollToTheEndAction);
         consoleActions.add(ActionManager.getInstance().getAction("Print"));
         consoleActions.add(new ClearThisConsoleAction(this));
+        if (myOutputSpool != null) {
+            consoleActions.add(new OpenFullOutputAction(myProject, myOutputSpool));
+            consoleActions.add(new FindInFullOutputAction(myProject, myOutputSpool));
+        }
         consoleActions.addAll(customActions);
 
         SimpleReference<AnAction[]> result = SimpleReference.create(consoleActions.toArray(AnAction.EMPTY_ARRAY));
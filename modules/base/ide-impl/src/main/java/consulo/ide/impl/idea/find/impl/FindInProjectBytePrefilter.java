@@ -0,0 +1,223 @@
+package consulo.ide.impl.idea.find.impl;
+
+import consulo.document.Document;
+import consulo.document.FileDocumentManager;
+import consulo.find.FindModel;
+import consulo.logging.Logger;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rejects files which cannot contain a plain literal by scanning their raw bytes,
+ * so that the document (and charset decoding of the whole file) is only created for files with a byte-level hit.
+ * <p>
+ * The filter is conservative: whenever the bytes on disk may not correspond to the document text one-to-one
+ * (unsaved document, multi-byte charset, line separators in the pattern, etc.) the file is reported as a possible match.
+ *
+ * @since 2026-10-19
+ */
+final class FindInProjectBytePrefilter {
+    private static final Logger LOG = Logger.getInstance(FindInProjectBytePrefilter.class);
+
+    private static final int NUL_CHECK_LENGTH = 4096;
+
+    // lower case ascii characters which some non-ascii characters fold to
+    private static final BitSet NON_ASCII_CASE_VARIANTS = collectNonAsciiCaseVariants();
+
+    private final String myPattern;
+    private final boolean myCaseSensitive;
+    private final boolean myAsciiPattern;
+    private final byte[] myAsciiBytes;
+    private final Map<Charset, byte[]> myEncodedPatterns = new ConcurrentHashMap<>();
+
+    private FindInProjectBytePrefilter(String pattern, boolean caseSensitive, boolean asciiPattern) {
+        myPattern = pattern;
+        myCaseSensitive = caseSensitive;
+        myAsciiPattern = asciiPattern;
+        myAsciiBytes = asciiPattern ? pattern.getBytes(StandardCharsets.US_ASCII) : null;
+    }
+
+    /**
+     * @return prefilter for the model, or {@code null} if the model can't be checked on raw bytes (e.g. regular expressions)
+     */
+    static @Nullable FindInProjectBytePrefilter create(FindModel findModel) {
+        if (findModel.isRegularExpressions()) {
+            return null;
+        }
+
+        String pattern = findModel.getStringToFind();
+        if (pattern.isEmpty() || pattern.indexOf('\n') >= 0 || pattern.indexOf('\r') >= 0) {
+            return null;
+        }
+
+        boolean ascii = isAscii(pattern);
+        if (!findModel.isCaseSensitive() && (!ascii || hasNonAsciiCaseVariants(pattern))) {
+            // case folding of non-ascii characters can't be done byte-wise
+            return null;
+        }
+        return new FindInProjectBytePrefilter(pattern, findModel.isCaseSensitive(), ascii);
+    }
+
+    /**
+     * @return {@code false} only if the file definitely has no occurrence of the pattern
+     */
+    boolean mayContainOccurrences(VirtualFile file) {
+        FileDocumentManager documentManager = FileDocumentManager.getInstance();
+        Document document = documentManager.getCachedDocument(file);
+        if (document != null) {
+            // text is already decoded and may differ from the disk content
+            return true;
+        }
+
+        byte[] pattern = getEncodedPattern(file.getCharset());
+        if (pattern == null) {
+            return true;
+        }
+
+        byte[] content;
+        try {
+            content = file.contentsToByteArray();
+        }
+        catch (IOException e) {
+            LOG.debug(e);
+            return true;
+        }
+
+        if (hasNulBytes(content)) {
+            // probably utf-16/32 content without declared charset, leave it for the regular search
+            return true;
+        }
+        return indexOf(content, pattern, !myCaseSensitive) >= 0;
+    }
+
+    private byte @Nullable [] getEncodedPattern(Charset charset) {
+        if (myAsciiPattern) {
+            return myEncodedPatterns.computeIfAbsent(charset, this::encodeAsciiPattern);
+        }
+        return StandardCharsets.UTF_8.equals(charset) ? myEncodedPatterns.computeIfAbsent(charset, myPattern::getBytes) : null;
+    }
+
+    private byte[] encodeAsciiPattern(Charset charset) {
+        try {
+            byte[] encoded = myPattern.getBytes(charset);
+            // only ascii compatible charsets are supported, for others an empty array is cached as a marker
+            return Arrays.equals(encoded, myAsciiBytes) ? encoded : new byte[0];
+        }
+        catch (UnsupportedOperationException e) {
+            return new byte[0];
+        }
+    }
+
+    private static boolean hasNulBytes(byte[] content) {
+        int length = Math.min(content.length, NUL_CHECK_LENGTH);
+        for (int i = 0; i < length; i++) {
+            if (content[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The search folds case with {@link Character#toLowerCase(char)} and {@link Character#toUpperCase(char)},
+     * so e.g. "k" matches the Kelvin sign and "i" matches the dotted capital I, which an ascii byte match misses.
+     */
+    private static boolean hasNonAsciiCaseVariants(String asciiText) {
+        for (int i = 0; i < asciiText.length(); i++) {
+            if (NON_ASCII_CASE_VARIANTS.get(Character.toLowerCase(asciiText.charAt(i)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BitSet collectNonAsciiCaseVariants() {
+        BitSet result = new BitSet(0x80);
+        for (char c = 0x80; c < Character.MAX_VALUE; c++) {
+            char lower = Character.toLowerCase(c);
+            char upper = Character.toUpperCase(c);
+            if (lower < 0x80) {
+                result.set(Character.toLowerCase(lower));
+            }
+            if (upper < 0x80) {
+                result.set(Character.toLowerCase(upper));
+            }
+        }
+        return result;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Boyer-Moore-Horspool search. If {@code ignoreAsciiCase} is set, the pattern must consist of ascii bytes only.
+     */
+    static int indexOf(byte[] text, byte[] pattern, boolean ignoreAsciiCase) {
+        int patternLength = pattern.length;
+        if (patternLength == 0) {
+            // marker of an unsupported charset
+            return 0;
+        }
+        if (patternLength > text.length) {
+            return -1;
+        }
+
+        byte[] folded = pattern;
+        if (ignoreAsciiCase) {
+            folded = new byte[patternLength];
+            for (int i = 0; i < patternLength; i++) {
+                folded[i] = toLowerAscii(pattern[i]);
+            }
+        }
+
+        int[] shift = new int[256];
+        Arrays.fill(shift, patternLength);
+        for (int i = 0; i < patternLength - 1; i++) {
+            shift[folded[i] & 0xFF] = patternLength - 1 - i;
+            if (ignoreAsciiCase) {
+                shift[toUpperAscii(folded[i]) & 0xFF] = patternLength - 1 - i;
+            }
+        }
+
+        int last = patternLength - 1;
+        int position = 0;
+        int limit = text.length - patternLength;
+        while (position <= limit) {
+            int i = last;
+            while (i >= 0 && matches(text[position + i], folded[i], ignoreAsciiCase)) {
+                i--;
+            }
+            if (i < 0) {
+                return position;
+            }
+            position += shift[text[position + last] & 0xFF];
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte textByte, byte patternByte, boolean ignoreAsciiCase) {
+        return textByte == patternByte || ignoreAsciiCase && toLowerAscii(textByte) == patternByte;
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte)(b + ('a' - 'A')) : b;
+    }
+
+    private static byte toUpperAscii(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte)(b - ('a' - 'A')) : b;
+    }
+}
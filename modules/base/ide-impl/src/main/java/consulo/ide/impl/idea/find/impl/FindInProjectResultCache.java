@@ -0,0 +1,194 @@
+package consulo.ide.impl.idea.find.impl;
+
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.component.messagebus.MessageBusConnection;
+import consulo.document.Document;
+import consulo.document.FileDocumentManager;
+import consulo.find.FindModel;
+import consulo.find.FindSearchContext;
+import consulo.module.content.layer.event.ModuleRootEvent;
+import consulo.module.content.layer.event.ModuleRootListener;
+import consulo.project.Project;
+import consulo.util.collection.primitive.ints.ConcurrentIntObjectMap;
+import consulo.util.collection.primitive.ints.IntMaps;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import consulo.virtualFileSystem.VirtualFileWithId;
+import consulo.virtualFileSystem.event.BulkFileListener;
+import consulo.virtualFileSystem.event.VFileDeleteEvent;
+import consulo.virtualFileSystem.event.VFileEvent;
+import consulo.virtualFileSystem.fileType.FileTypeEvent;
+import consulo.virtualFileSystem.fileType.FileTypeListener;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Remembers files which had no occurrences for the recent Find in Path queries, together with their modification stamps.
+ * <p>
+ * A file without occurrences of a plain literal can't contain a longer literal which includes it, so when the query
+ * is repeated or refined (e.g. while typing in the find popup) such files are skipped until they are modified.
+ * Files are kept by their ids, and the cache is dropped when files are deleted, or roots or file types change.
+ *
+ * @since 2026-10-19
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public final class FindInProjectResultCache {
+    private static final int MAX_QUERIES = 4;
+
+    private record QueryKey(String stringToFind, boolean caseSensitive, boolean wholeWords, boolean regularExpressions, boolean multiline) {
+        static @Nullable QueryKey of(FindModel model) {
+            if (model.getStringToFind().isEmpty() || model.getSearchContext() != FindSearchContext.ANY) {
+                return null;
+            }
+            return new QueryKey(
+                model.getStringToFind(),
+                model.isCaseSensitive(),
+                model.isWholeWordsOnly(),
+                model.isRegularExpressions(),
+                model.isMultiline()
+            );
+        }
+
+        /**
+         * @return true if a file without occurrences of this query can't have occurrences of {@code other}
+         */
+        boolean covers(QueryKey other) {
+            if (caseSensitive != other.caseSensitive
+                || wholeWords != other.wholeWords
+                || regularExpressions != other.regularExpressions
+                || multiline != other.multiline) {
+                return false;
+            }
+            if (stringToFind.equals(other.stringToFind)) {
+                return true;
+            }
+            if (regularExpressions || wholeWords) {
+                return false;
+            }
+            return caseSensitive
+                ? other.stringToFind.contains(stringToFind)
+                : StringUtil.containsIgnoreCase(other.stringToFind, stringToFind);
+        }
+    }
+
+    /**
+     * Known misses applicable to a single search run.
+     */
+    public static final class Session {
+        private final List<ConcurrentIntObjectMap<Long>> myKnownMisses;
+        private final ConcurrentIntObjectMap<Long> myMisses;
+
+        private Session(List<ConcurrentIntObjectMap<Long>> knownMisses, ConcurrentIntObjectMap<Long> misses) {
+            myKnownMisses = knownMisses;
+            myMisses = misses;
+        }
+
+        public boolean isKnownMiss(VirtualFile file) {
+            if (!(file instanceof VirtualFileWithId fileWithId) || myKnownMisses.isEmpty()) {
+                return false;
+            }
+            long stamp = getStamp(file);
+            for (ConcurrentIntObjectMap<Long> misses : myKnownMisses) {
+                Long knownStamp = misses.get(fileWithId.getId());
+                if (knownStamp != null && knownStamp == stamp) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void recordMiss(VirtualFile file) {
+            if (file instanceof VirtualFileWithId fileWithId) {
+                myMisses.put(fileWithId.getId(), Long.valueOf(getStamp(file)));
+            }
+        }
+
+        public void recordHit(VirtualFile file) {
+            if (file instanceof VirtualFileWithId fileWithId) {
+                myMisses.remove(fileWithId.getId());
+            }
+        }
+    }
+
+    public static FindInProjectResultCache getInstance(Project project) {
+        return project.getInstance(FindInProjectResultCache.class);
+    }
+
+    // access ordered, guarded by itself
+    private final LinkedHashMap<QueryKey, ConcurrentIntObjectMap<Long>> myQueries = new LinkedHashMap<>(MAX_QUERIES, 0.75f, true);
+
+    @Inject
+    public FindInProjectResultCache(Project project) {
+        MessageBusConnection connection = project.getApplication().getMessageBus().connect(project);
+        connection.subscribe(BulkFileListener.class, new BulkFileListener() {
+            @Override
+            public void after(List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileDeleteEvent) {
+                        // ids of deleted files may be reused
+                        clear();
+                        return;
+                    }
+                }
+            }
+        });
+        connection.subscribe(FileTypeListener.class, new FileTypeListener() {
+            @Override
+            public void fileTypesChanged(FileTypeEvent event) {
+                clear();
+            }
+        });
+
+        project.getMessageBus().connect(project).subscribe(ModuleRootListener.class, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(ModuleRootEvent event) {
+                clear();
+            }
+        });
+    }
+
+    /**
+     * @return session for the model, or {@code null} if the results of the model are not cacheable
+     */
+    public @Nullable Session startSession(FindModel model) {
+        QueryKey key = QueryKey.of(model);
+        if (key == null) {
+            return null;
+        }
+
+        synchronized (myQueries) {
+            List<ConcurrentIntObjectMap<Long>> knownMisses = new ArrayList<>();
+            for (Map.Entry<QueryKey, ConcurrentIntObjectMap<Long>> entry : myQueries.entrySet()) {
+                if (entry.getKey().covers(key)) {
+                    knownMisses.add(entry.getValue());
+                }
+            }
+
+            ConcurrentIntObjectMap<Long> misses = myQueries.computeIfAbsent(key, k -> IntMaps.newConcurrentIntObjectHashMap());
+            if (myQueries.size() > MAX_QUERIES) {
+                Iterator<QueryKey> iterator = myQueries.keySet().iterator();
+                iterator.next();
+                iterator.remove();
+            }
+            return new Session(knownMisses, misses);
+        }
+    }
+
+    public void clear() {
+        synchronized (myQueries) {
+            myQueries.clear();
+        }
+    }
+
+    private static long getStamp(VirtualFile file) {
+        Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+        return document != null ? document.getModificationStamp() : file.getModificationStamp();
+    }
+}
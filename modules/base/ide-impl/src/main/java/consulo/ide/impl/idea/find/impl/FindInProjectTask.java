@@ -85,6 +85,8 @@ class FindInProjectTask {
     private final Set<VirtualFile> myLargeFiles = Collections.synchronizedSet(new HashSet<>());
     private final Set<? extends VirtualFile> myFilesToScanInitially;
     private final AtomicLong myTotalFilesSize = new AtomicLong();
+    private final @Nullable FindInProjectBytePrefilter myBytePrefilter;
+    private final FindInProjectResultCache.@Nullable Session myCacheSession;
     private final
     
     List<FindInProjectSearchEngine.FindInProjectSearcher> mySearchers;
@@ -114,6 +116,9 @@ class FindInProjectTask {
 
         TooManyUsagesStatus.createFor(myProgress);
 
+        myBytePrefilter = Registry.is("find.in.path.byte.prefilter") ? FindInProjectBytePrefilter.create(findModel) : null;
+        myCacheSession = Registry.is("find.in.path.result.cache") ? FindInProjectResultCache.getInstance(project).startSession(findModel) : null;
+
         mySearchers = ContainerUtil.mapNotNull(FindInProjectSearchEngine.getExtensions(), se -> se.createSearcher(findModel, project));
     }
 
@@ -221,6 +226,10 @@ class FindInProjectTask {
             ));
             myProgress.setText2(FindLocalize.findSearchingForStringInFileOccurrencesProgress(occurrenceCount));
 
+            if (myCacheSession != null && myCacheSession.isKnownMiss(virtualFile)) {
+                return true;
+            }
+
             Pair.NonNull<PsiFile, VirtualFile> pair = ReadAction.compute(() -> findFile(virtualFile));
             if (pair == null) {
                 return true;
@@ -229,6 +238,15 @@ class FindInProjectTask {
             Set<UsageInfo> processedUsages = usagesBeingProcessed.computeIfAbsent(virtualFile, __ -> ContainerUtil.newConcurrentSet());
             PsiFile psiFile = pair.first;
             VirtualFile sourceVirtualFile = pair.second;
+            // misses are looked up before the file is resolved, so only files searched in themselves are cached
+            FindInProjectResultCache.Session cacheSession = virtualFile.equals(sourceVirtualFile) ? myCacheSession : null;
+            if (myBytePrefilter != null && !myBytePrefilter.mayContainOccurrences(sourceVirtualFile)) {
+                if (cacheSession != null) {
+                    cacheSession.recordMiss(sourceVirtualFile);
+                }
+                return true;
+            }
+
             AtomicBoolean projectFileUsagesFound = new AtomicBoolean();
             if (!FindInProjectUtil.processUsagesInFile(psiFile, sourceVirtualFile, myFindModel, info -> {
                 if (skipProjectFile) {
@@ -255,6 +273,15 @@ class FindInProjectTask {
                 return true;
             }
 
+            if (cacheSession != null) {
+                if (processedUsages.isEmpty()) {
+                    cacheSession.recordMiss(sourceVirtualFile);
+                }
+                else {
+                    cacheSession.recordHit(sourceVirtualFile);
+                }
+            }
+
             long totalSize;
             if (processedUsages.isEmpty()) {
                 totalSize = myTotalFilesSize.get();
@@ -0,0 +1,44 @@
+package consulo.ide.impl.idea.internal;
+
+import consulo.annotation.component.ActionImpl;
+import consulo.annotation.component.ActionParentRef;
+import consulo.annotation.component.ActionRef;
+import consulo.application.internal.util.CachedValueProviderStatistics;
+import consulo.application.ui.internal.InternalActionGroup;
+import consulo.localize.LocalizeValue;
+import consulo.logging.Logger;
+import consulo.ui.annotation.RequiredUIAccess;
+import consulo.ui.ex.CopyPasteManager;
+import consulo.ui.ex.action.AnActionEvent;
+import consulo.ui.ex.action.DumbAwareAction;
+
+/**
+ * Dumps statistics collected by {@link ToggleCachedValueStatisticsAction} to the log and the clipboard.
+ *
+ * @since 2026-10-19
+ */
+@ActionImpl(id = "Internal.DumpCachedValueStatistics", parents = @ActionParentRef(@ActionRef(type = InternalActionGroup.class)))
+public class DumpCachedValueStatisticsAction extends DumbAwareAction {
+    private static final Logger LOG = Logger.getInstance(DumpCachedValueStatisticsAction.class);
+
+    public DumpCachedValueStatisticsAction() {
+        super(LocalizeValue.localizeTODO("Dump Cached Value Statistics"));
+    }
+
+    @Override
+    @RequiredUIAccess
+    public void actionPerformed(AnActionEvent e) {
+        String dump = CachedValueProviderStatistics.dump();
+        LOG.info("Cached value statistics:\n" + dump);
+        try {
+            CopyPasteManager.getInstance().setText(dump);
+        }
+        catch (Exception ignore) {
+        }
+    }
+
+    @Override
+    public void update(AnActionEvent e) {
+        e.getPresentation().setEnabled(CachedValueProviderStatistics.hasStatistics());
+    }
+}
@@ -0,0 +1,42 @@
+package consulo.ide.impl.idea.internal;
+
+import consulo.annotation.component.ActionImpl;
+import consulo.annotation.component.ActionParentRef;
+import consulo.annotation.component.ActionRef;
+import consulo.application.ui.internal.InternalActionGroup;
+import consulo.ide.impl.psi.impl.DocumentCommitThread;
+import consulo.language.impl.internal.psi.DocumentCommitProcessor;
+import consulo.localize.LocalizeValue;
+import consulo.logging.Logger;
+import consulo.ui.annotation.RequiredUIAccess;
+import consulo.ui.ex.action.AnActionEvent;
+import consulo.ui.ex.action.DumbAwareAction;
+import jakarta.inject.Inject;
+
+/**
+ * Logs reparse and apply timings of document commits and resets them.
+ *
+ * @since 2026-10-19
+ */
+@ActionImpl(id = "Internal.DumpDocumentCommitMetrics", parents = @ActionParentRef(@ActionRef(type = InternalActionGroup.class)))
+public class DumpDocumentCommitMetricsAction extends DumbAwareAction {
+    private static final Logger LOG = Logger.getInstance(DumpDocumentCommitMetricsAction.class);
+
+    private final DocumentCommitProcessor myDocumentCommitProcessor;
+
+    @Inject
+    public DumpDocumentCommitMetricsAction(DocumentCommitProcessor documentCommitProcessor) {
+        super(LocalizeValue.localizeTODO("Dump Document Commit Metrics"));
+        myDocumentCommitProcessor = documentCommitProcessor;
+    }
+
+    @Override
+    @RequiredUIAccess
+    public void actionPerformed(AnActionEvent e) {
+        if (myDocumentCommitProcessor instanceof DocumentCommitThread commitThread) {
+            DocumentCommitThread.CommitMetrics metrics = commitThread.getMetrics();
+            LOG.info("Document commit metrics: " + metrics);
+            metrics.reset();
+        }
+    }
+}
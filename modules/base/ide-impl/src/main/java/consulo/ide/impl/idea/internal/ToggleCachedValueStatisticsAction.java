@@ -0,0 +1,35 @@
+package consulo.ide.impl.idea.internal;
+
+import consulo.annotation.component.ActionImpl;
+import consulo.annotation.component.ActionParentRef;
+import consulo.annotation.component.ActionRef;
+import consulo.application.internal.util.CachedValueProviderStatistics;
+import consulo.application.ui.internal.InternalActionGroup;
+import consulo.localize.LocalizeValue;
+import consulo.ui.annotation.RequiredUIAccess;
+import consulo.ui.ex.action.AnActionEvent;
+import consulo.ui.ex.action.DumbAwareToggleAction;
+
+/**
+ * @since 2026-10-19
+ */
+@ActionImpl(id = "Internal.ToggleCachedValueStatistics", parents = @ActionParentRef(@ActionRef(type = InternalActionGroup.class)))
+public class ToggleCachedValueStatisticsAction extends DumbAwareToggleAction {
+    public ToggleCachedValueStatisticsAction() {
+        super(LocalizeValue.localizeTODO("Collect Cached Value Statistics"));
+    }
+
+    @Override
+    public boolean isSelected(AnActionEvent e) {
+        return CachedValueProviderStatistics.isEnabled();
+    }
+
+    @Override
+    @RequiredUIAccess
+    public void setSelected(AnActionEvent e, boolean state) {
+        if (state) {
+            CachedValueProviderStatistics.reset();
+        }
+        CachedValueProviderStatistics.setEnabled(state);
+    }
+}
@@ -0,0 +1,33 @@
+package consulo.ide.impl.internal.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One phase of a highlighting pass run by the daemon: collecting information in background, or applying it in UI thread.
+ *
+ * @since 2026-10-19
+ */
+@Name("consulo.DaemonPass")
+@Label("Daemon Pass")
+@Category({"Consulo", "Daemon"})
+@Description("Highlighting pass collecting or applying information for a file")
+@StackTrace(false)
+public final class DaemonPassEvent extends Event {
+    public static final String COLLECT = "collect";
+    public static final String APPLY = "apply";
+
+    @Label("Pass")
+    public Class<?> passClass;
+
+    @Label("Pass Id")
+    public int passId;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("File")
+    public String file;
+
+    @Label("Canceled")
+    public boolean canceled;
+}
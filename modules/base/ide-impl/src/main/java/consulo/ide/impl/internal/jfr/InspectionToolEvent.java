@@ -0,0 +1,36 @@
+package consulo.ide.impl.internal.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Run of a single local inspection tool over (a part of) a file.
+ *
+ * @since 2026-10-19
+ */
+@Name("consulo.InspectionTool")
+@Label("Inspection Tool")
+@Category({"Consulo", "Daemon"})
+@Description("Local inspection tool visiting the elements of a file")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class InspectionToolEvent extends Event {
+    public static final String PRIORITY_RANGE = "priority range";
+    public static final String REST = "rest";
+    public static final String INJECTED = "injected";
+    public static final String WHOLE_FILE = "whole file";
+
+    @Label("Tool")
+    public String tool;
+
+    @Label("File")
+    public String file;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Elements")
+    public int elementCount;
+
+    @Label("Problems")
+    public int problemCount;
+}
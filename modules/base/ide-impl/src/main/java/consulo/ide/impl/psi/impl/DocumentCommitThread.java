@@ -47,7 +47,10 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BooleanSupplier;
 
 @ServiceImpl
@@ -57,6 +60,7 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
     private static final String SYNC_COMMIT_REASON = "Sync commit";
 
     private final ExecutorService executor;
+    private final CommitMetrics myMetrics = new CommitMetrics();
     private volatile boolean isDisposed;
 
     static DocumentCommitThread getInstance() {
@@ -73,6 +77,10 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
         isDisposed = true;
     }
 
+    public CommitMetrics getMetrics() {
+        return myMetrics;
+    }
+
     @Override
     public void commitAsynchronously(Project project,
                                      Document document,
@@ -148,7 +156,8 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
                 ProperTextRange changedPsiRange = ChangedPsiRangeUtil
                     .getChangedPsiRange(file, task.document, task.myLastCommittedText, document.getImmutableCharSequence());
                 if (changedPsiRange != null) {
-                    BooleanSupplier finishProcessor = doCommit(task, file, oldFileNode, changedPsiRange, reparseInjectedProcessors);
+                    BooleanSupplier finishProcessor =
+                        doCommit(task, file, oldFileNode, changedPsiRange, reparseInjectedProcessors, synchronously);
                     finishProcessors.add(finishProcessor);
                 }
             }
@@ -210,6 +219,93 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
         return "Document commit thread; application: " + ApplicationManager.getApplication() + "; isDisposed: " + isDisposed;
     }
 
+    /**
+     * Time spent in reparse (in background for asynchronous commits, in the calling thread for synchronous ones)
+     * versus time spent applying the precomputed tree diff in the write action.
+     */
+    public static final class CommitMetrics {
+        private final LongAdder myAsyncReparseCount = new LongAdder();
+        private final LongAdder myAsyncReparseTime = new LongAdder();
+        private final LongAdder mySyncReparseCount = new LongAdder();
+        private final LongAdder mySyncReparseTime = new LongAdder();
+        private final LongAdder myApplyCount = new LongAdder();
+        private final LongAdder myApplyTime = new LongAdder();
+        private final LongAdder myDiscardedCount = new LongAdder();
+
+        void onReparsed(long timeNanos, boolean synchronously) {
+            if (synchronously) {
+                mySyncReparseCount.increment();
+                mySyncReparseTime.add(timeNanos);
+            }
+            else {
+                myAsyncReparseCount.increment();
+                myAsyncReparseTime.add(timeNanos);
+            }
+        }
+
+        void onApplied(long timeNanos) {
+            myApplyCount.increment();
+            myApplyTime.add(timeNanos);
+        }
+
+        void onDiscarded() {
+            myDiscardedCount.increment();
+        }
+
+        public long getAsyncReparseCount() {
+            return myAsyncReparseCount.sum();
+        }
+
+        public long getAsyncReparseTimeNanos() {
+            return myAsyncReparseTime.sum();
+        }
+
+        public long getSyncReparseCount() {
+            return mySyncReparseCount.sum();
+        }
+
+        public long getSyncReparseTimeNanos() {
+            return mySyncReparseTime.sum();
+        }
+
+        public long getApplyCount() {
+            return myApplyCount.sum();
+        }
+
+        public long getApplyTimeNanos() {
+            return myApplyTime.sum();
+        }
+
+        /**
+         * @return number of precomputed diffs thrown away because the document changed after the reparse
+         */
+        public long getDiscardedCount() {
+            return myDiscardedCount.sum();
+        }
+
+        public void reset() {
+            myAsyncReparseCount.reset();
+            myAsyncReparseTime.reset();
+            mySyncReparseCount.reset();
+            mySyncReparseTime.reset();
+            myApplyCount.reset();
+            myApplyTime.reset();
+            myDiscardedCount.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                Locale.US,
+                "background reparse: %d (%d ms); synchronous reparse: %d (%d ms); apply: %d (%d ms); discarded: %d",
+                getAsyncReparseCount(), TimeUnit.NANOSECONDS.toMillis(getAsyncReparseTimeNanos()),
+                getSyncReparseCount(), TimeUnit.NANOSECONDS.toMillis(getSyncReparseTimeNanos()),
+                getApplyCount(), TimeUnit.NANOSECONDS.toMillis(getApplyTimeNanos()),
+                getDiscardedCount()
+            );
+        }
+    }
+
     private static class CommitTask {
         
         private final Document document;
@@ -282,11 +378,12 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
 
     // returns runnable to execute under write action in AWT to finish the commit, updates "outChangedRange"
     
-    private static BooleanSupplier doCommit(CommitTask task,
-                                            PsiFile file,
-                                            FileASTNode oldFileNode,
-                                            ProperTextRange changedPsiRange,
-                                            List<? super BooleanSupplier> outReparseInjectedProcessors) {
+    private BooleanSupplier doCommit(CommitTask task,
+                                     PsiFile file,
+                                     FileASTNode oldFileNode,
+                                     ProperTextRange changedPsiRange,
+                                     List<? super BooleanSupplier> outReparseInjectedProcessors,
+                                     boolean synchronously) {
         Document document = task.getDocument();
         CharSequence newDocumentText = document.getImmutableCharSequence();
 
@@ -303,6 +400,7 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
         if (indicator == null) {
             indicator = new EmptyProgressIndicator();
         }
+        long reparseStart = System.nanoTime();
         try (
             BlockSupportImpl.ReparseResult result =
                 BlockSupportImpl.reparse(file, oldFileNode, changedPsiRange, newDocumentText, indicator, task.myLastCommittedText)) {
@@ -323,11 +421,15 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
             };
         }
 
+        myMetrics.onReparsed(System.nanoTime() - reparseStart, synchronously);
+
         return () -> {
             FileViewProvider viewProvider = file.getViewProvider();
             if (!task.isStillValid() || documentManager.getCachedViewProvider(document) != viewProvider) {
+                myMetrics.onDiscarded();
                 return false; // optimistic locking failed
             }
+            long applyStart = System.nanoTime();
 
             if (!ApplicationManager.getApplication().isWriteAccessAllowed() && documentManager.isEventSystemEnabled(document)) {
                 VirtualFile vFile = viewProvider.getVirtualFile();
@@ -346,6 +448,7 @@ public final class DocumentCommitThread implements Disposable, DocumentCommitPro
 
             assertAfterCommit(document, file, (FileElement) oldFileNode);
 
+            myMetrics.onApplied(System.nanoTime() - applyStart);
             return true;
         };
     }
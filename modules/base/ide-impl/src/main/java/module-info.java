@@ -10,6 +10,7 @@ open module consulo.ide.impl {
     requires java.prefs;
     requires java.scripting;
     requires jdk.unsupported;
+    requires jdk.jfr;
 
     requires consulo.container.api;
     requires consulo.util.nodep;
@@ -537,6 +538,7 @@ open module consulo.ide.impl {
     exports consulo.ide.impl.configurable to consulo.sand.language.plugin, consulo.desktop.awt.ide.impl, consulo.desktop.awt.editor.impl, consulo.desktop.awt.ui.impl;
     exports consulo.ide.impl.desktop.awt.editor to consulo.desktop.awt.ide.impl, consulo.desktop.awt.editor.impl, consulo.desktop.awt.ui.impl;
     exports consulo.ide.impl.wm.statusBar to consulo.desktop.awt.ide.impl, consulo.desktop.awt.editor.impl, consulo.desktop.awt.ui.impl;
+    exports consulo.ide.impl.internal.jfr to jdk.jfr;
     exports consulo.ide.impl.internal to consulo.desktop.awt.ide.impl, consulo.desktop.awt.editor.impl, consulo.desktop.awt.ui.impl;
     exports consulo.ide.impl.idea.ui.popup.actionPopup to consulo.desktop.awt.ide.impl, consulo.desktop.awt.editor.impl, consulo.desktop.awt.ui.impl;
 
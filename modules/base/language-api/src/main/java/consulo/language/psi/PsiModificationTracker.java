@@ -5,8 +5,10 @@ import consulo.annotation.access.RequiredWriteAction;
 import consulo.annotation.component.ComponentScope;
 import consulo.annotation.component.ServiceAPI;
 import consulo.component.util.ModificationTracker;
+import consulo.module.Module;
 import consulo.project.Project;
 import consulo.util.dataholder.Key;
+import consulo.virtualFileSystem.VirtualFile;
 
 /**
  * An interface used to support tracking of common PSI modifications. It has three main usage patterns:
@@ -55,4 +57,18 @@ public interface PsiModificationTracker extends ModificationTracker {
 
     
     ModificationTracker getModificationTracker();
+
+    /**
+     * Tracks physical PSI modifications inside the content of the given module.
+     * <p>
+     * The counter is also increased on every change which can't be attributed to a single module
+     * (project roots or file types change, PSI changes outside of module content, {@link #incCounter()}),
+     * so it's safe to use it instead of {@link #getModificationTracker()} for caches which depend only on the module content.
+     */
+    ModificationTracker forModule(Module module);
+
+    /**
+     * Same as {@link #forModule(Module)}, but narrowed to PSI changes under the given content root.
+     */
+    ModificationTracker forContentRoot(VirtualFile contentRoot);
 }
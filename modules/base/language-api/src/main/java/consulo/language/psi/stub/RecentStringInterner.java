@@ -19,6 +19,7 @@ import com.uber.nullaway.annotations.Contract;
 import consulo.application.util.LowMemoryWatcher;
 import consulo.disposer.Disposable;
 import consulo.util.collection.SLRUCache;
+import consulo.util.interner.SharedStringInterner;
 import org.jspecify.annotations.Nullable;
 
 import java.util.concurrent.locks.Lock;
@@ -40,7 +41,8 @@ class RecentStringInterner {
         
         @Override
         public String createValue(String key) {
-          return key;
+          // recently used strings are cached here, older ones are still deduplicated while something refers to them
+          return SharedStringInterner.intern(key);
         }
 
         @Override
@@ -205,10 +205,18 @@ public final class DaemonListeners implements Disposable {
                 }
 
                 errorStripeUpdateManager.get().repaintErrorStripePanel(editor);
+                HighlightingSnapshotManager.getInstance(myProject).restoreSnapshot(editor);
             }
 
             @Override
             public void editorReleased(EditorFactoryEvent event) {
+                Editor editor = event.getEditor();
+                Document document = editor.getDocument();
+                if (editor.getProject() == myProject && editorFactory.getEditors(document, myProject).length <= 1
+                    && worthBothering(document, myProject)) {
+                    HighlightingSnapshotManager.getInstance(myProject).saveSnapshot(document);
+                }
+
                 // mem leak after closing last editor otherwise
                 application.invokeLater(() -> intentionsUI.get().invalidate(), project.getDisposed());
             }
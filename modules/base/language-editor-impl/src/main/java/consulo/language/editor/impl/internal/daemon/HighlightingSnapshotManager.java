@@ -0,0 +1,388 @@
+package consulo.language.editor.impl.internal.daemon;
+
+import consulo.annotation.access.RequiredReadAction;
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.application.Application;
+import consulo.application.concurrent.ApplicationConcurrency;
+import consulo.application.util.registry.Registry;
+import consulo.codeEditor.DocumentMarkupModel;
+import consulo.codeEditor.Editor;
+import consulo.codeEditor.markup.MarkupModelEx;
+import consulo.colorScheme.TextAttributesKey;
+import consulo.container.boot.ContainerPathManager;
+import consulo.document.Document;
+import consulo.document.FileDocumentManager;
+import consulo.document.util.TextRange;
+import consulo.language.editor.DaemonCodeAnalyzer;
+import consulo.language.editor.Pass;
+import consulo.language.editor.annotation.HighlightSeverity;
+import consulo.language.editor.impl.internal.highlight.GeneralHighlightingPass;
+import consulo.language.editor.impl.internal.highlight.UpdateHighlightersUtilImpl;
+import consulo.language.editor.impl.internal.markup.ErrorStripeUpdateManager;
+import consulo.language.editor.impl.internal.rawHighlight.HighlightInfoImpl;
+import consulo.language.editor.internal.DaemonCodeAnalyzerInternal;
+import consulo.language.editor.rawHighlight.HighlightInfo;
+import consulo.language.editor.rawHighlight.HighlightInfoType;
+import consulo.language.editor.rawHighlight.HighlightInfoTypeImpl;
+import consulo.language.editor.rawHighlight.SeverityRegistrar;
+import consulo.localize.LocalizeValue;
+import consulo.logging.Logger;
+import consulo.project.Project;
+import consulo.util.io.FileUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jspecify.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Persists the highlighting of a file when its last editor is closed, and shows it again as provisional results when
+ * the file is reopened (also after restart) with the same content, until the daemon computes the actual highlighting.
+ * <p>
+ * Restored infos get the same groups as the passes which produced them, so every pass replaces them in the ranges
+ * it applies its own results to, the same way it replaces results of its previous run.
+ * Quick fixes, gutter icons and file level annotations are not persisted.
+ *
+ * @since 2026-10-19
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public final class HighlightingSnapshotManager {
+    private static final Logger LOG = Logger.getInstance(HighlightingSnapshotManager.class);
+
+    private static final int VERSION = 1;
+    private static final int MAX_SNAPSHOT_FILES = 500;
+    private static final int MAX_INFOS = 50_000;
+    private static final int[] PERSISTED_GROUPS = {Pass.UPDATE_ALL, GeneralHighlightingPass.POST_UPDATE_ALL, Pass.LOCAL_INSPECTIONS};
+
+    private record SnapshotInfo(
+        int startOffset,
+        int endOffset,
+        int group,
+        String severityName,
+        int severityValue,
+        String attributesKey,
+        String description,
+        String toolTip,
+        boolean afterEndOfLine,
+        boolean needsUpdateOnTyping,
+        String inspectionToolId
+    ) {
+    }
+
+    private final Project myProject;
+    private final ExecutorService myExecutor;
+    private final File myDirectory;
+
+    public static HighlightingSnapshotManager getInstance(Project project) {
+        return project.getInstance(HighlightingSnapshotManager.class);
+    }
+
+    @Inject
+    public HighlightingSnapshotManager(Project project, ApplicationConcurrency applicationConcurrency) {
+        myProject = project;
+        myExecutor = applicationConcurrency.createSequentialApplicationPoolExecutor("HighlightingSnapshotManager pool");
+        myDirectory = new File(ContainerPathManager.get().getSystemPath(), "highlightingSnapshots/" + project.getLocationHash());
+    }
+
+    private static boolean isEnabled() {
+        return Registry.is("daemon.highlighting.snapshots");
+    }
+
+    /**
+     * Remembers the highlighting of the document, if the daemon has finished with it.
+     */
+    public void saveSnapshot(Document document) {
+        if (isEnabled() && !myProject.isDisposed()) {
+            Application.get().runReadAction(() -> doSaveSnapshot(document));
+        }
+    }
+
+    @RequiredReadAction
+    private void doSaveSnapshot(Document document) {
+        VirtualFile file = FileDocumentManager.getInstance().getFile(document);
+        if (file == null || !file.isInLocalFileSystem()) {
+            return;
+        }
+        DaemonCodeAnalyzerInternal codeAnalyzer = DaemonCodeAnalyzerInternal.getInstanceEx(myProject);
+        if (!codeAnalyzer.getFileStatusMap().allDirtyScopesAreNull(document)) {
+            // incomplete highlighting would hide problems until the daemon gets to them
+            return;
+        }
+
+        List<SnapshotInfo> infos = new ArrayList<>();
+        DaemonCodeAnalyzer.processHighlights(document, myProject, null, 0, document.getTextLength(), info -> {
+            SnapshotInfo snapshotInfo = toSnapshotInfo((HighlightInfoImpl) info);
+            if (snapshotInfo != null) {
+                infos.add(snapshotInfo);
+            }
+            return infos.size() < MAX_INFOS;
+        });
+
+        String url = file.getUrl();
+        CharSequence text = document.getImmutableCharSequence();
+        myExecutor.execute(() -> write(url, text, infos));
+    }
+
+    /**
+     * Shows the remembered highlighting in the editor, if the daemon hasn't highlighted its document yet.
+     */
+    public void restoreSnapshot(Editor editor) {
+        if (!isEnabled()) {
+            return;
+        }
+        Document document = editor.getDocument();
+        VirtualFile file = FileDocumentManager.getInstance().getFile(document);
+        if (file == null || !file.isInLocalFileSystem()) {
+            return;
+        }
+
+        String url = file.getUrl();
+        long modificationStamp = document.getModificationStamp();
+        CharSequence text = document.getImmutableCharSequence();
+        myExecutor.execute(() -> {
+            List<SnapshotInfo> infos = read(url, text);
+            if (infos == null || infos.isEmpty()) {
+                return;
+            }
+
+            boolean applied = Application.get().runReadAction((Supplier<Boolean>) () -> {
+                if (myProject.isDisposed() || editor.isDisposed() || document.getModificationStamp() != modificationStamp) {
+                    return false;
+                }
+                return apply(document, infos);
+            });
+            if (applied) {
+                myProject.getUIAccess().give(() -> {
+                    if (!editor.isDisposed() && !myProject.isDisposed()) {
+                        ErrorStripeUpdateManager.getInstance(myProject).repaintErrorStripePanel(editor);
+                    }
+                });
+            }
+        });
+    }
+
+    @RequiredReadAction
+    private boolean apply(Document document, List<SnapshotInfo> snapshotInfos) {
+        DaemonCodeAnalyzerInternal codeAnalyzer = DaemonCodeAnalyzerInternal.getInstanceEx(myProject);
+        if (codeAnalyzer.getFileStatusMap().allDirtyScopesAreNull(document) || hasPersistedGroupHighlights(document)) {
+            // the daemon got there first
+            return false;
+        }
+
+        SeverityRegistrar severityRegistrar = SeverityRegistrar.getSeverityRegistrar(myProject);
+        Map<Integer, List<HighlightInfo>> infosByGroup = new HashMap<>();
+        int textLength = document.getTextLength();
+        for (SnapshotInfo snapshotInfo : snapshotInfos) {
+            if (snapshotInfo.endOffset() > textLength) {
+                continue;
+            }
+            HighlightInfo info = toHighlightInfo(snapshotInfo, severityRegistrar);
+            infosByGroup.computeIfAbsent(snapshotInfo.group(), group -> new ArrayList<>()).add(info);
+        }
+
+        MarkupModelEx markup = (MarkupModelEx) DocumentMarkupModel.forDocument(document, myProject, true);
+        TextRange range = new TextRange(0, textLength);
+        for (Map.Entry<Integer, List<HighlightInfo>> entry : infosByGroup.entrySet()) {
+            UpdateHighlightersUtilImpl.setHighlightersInRange(myProject, document, range, null, entry.getValue(), markup, entry.getKey());
+        }
+        return true;
+    }
+
+    @RequiredReadAction
+    private boolean hasPersistedGroupHighlights(Document document) {
+        return !DaemonCodeAnalyzer.processHighlights(
+            document,
+            myProject,
+            null,
+            0,
+            document.getTextLength(),
+            info -> !isPersistedGroup(((HighlightInfoImpl) info).getGroup())
+        );
+    }
+
+    private static boolean isPersistedGroup(int group) {
+        for (int persistedGroup : PERSISTED_GROUPS) {
+            if (persistedGroup == group) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable SnapshotInfo toSnapshotInfo(HighlightInfoImpl info) {
+        if (!isPersistedGroup(info.getGroup()) || info.isFileLevelAnnotation() || info.myForcedTextAttributes != null) {
+            return null;
+        }
+        TextAttributesKey attributesKey = info.myForcedTextAttributesKey != null ? info.myForcedTextAttributesKey : info.getType().getAttributesKey();
+        if (attributesKey == null) {
+            return null;
+        }
+        HighlightSeverity severity = info.getSeverity();
+        String inspectionToolId = info.getInspectionToolId();
+        return new SnapshotInfo(
+            info.getStartOffset(),
+            info.getEndOffset(),
+            info.getGroup(),
+            severity.getName(),
+            severity.myVal,
+            attributesKey.getExternalName(),
+            info.getDescription().getValue(),
+            info.getToolTip().getValue(),
+            info.isAfterEndOfLine(),
+            info.needUpdateOnTyping(),
+            inspectionToolId == null ? "" : inspectionToolId
+        );
+    }
+
+    private static HighlightInfo toHighlightInfo(SnapshotInfo info, SeverityRegistrar severityRegistrar) {
+        HighlightSeverity severity = findSeverity(info.severityName(), info.severityValue(), severityRegistrar);
+        TextAttributesKey attributesKey = TextAttributesKey.createTextAttributesKey(info.attributesKey());
+        HighlightInfoType type = new HighlightInfoTypeImpl(severity, attributesKey);
+        return new HighlightInfoImpl(
+            null,
+            attributesKey,
+            type,
+            info.startOffset(),
+            info.endOffset(),
+            LocalizeValue.of(info.description()),
+            LocalizeValue.of(info.toolTip()),
+            severity,
+            info.afterEndOfLine(),
+            info.needsUpdateOnTyping(),
+            false,
+            0,
+            null,
+            info.inspectionToolId().isEmpty() ? null : info.inspectionToolId(),
+            null,
+            info.group()
+        );
+    }
+
+    private static HighlightSeverity findSeverity(String name, int value, SeverityRegistrar severityRegistrar) {
+        // layers and covering rules compare some severities by identity
+        for (HighlightSeverity severity : new HighlightSeverity[]{
+            HighlightInfoType.SYMBOL_TYPE_SEVERITY,
+            HighlightInfoType.INJECTED_FRAGMENT_SEVERITY,
+            HighlightInfoType.ELEMENT_UNDER_CARET_SEVERITY
+        }) {
+            if (severity.getName().equals(name)) {
+                return severity;
+            }
+        }
+        HighlightSeverity severity = severityRegistrar.getSeverity(name);
+        return severity != null ? severity : new HighlightSeverity(name, value);
+    }
+
+    private void write(String url, CharSequence text, List<SnapshotInfo> infos) {
+        File file = getSnapshotFile(url);
+        if (infos.isEmpty()) {
+            FileUtil.delete(file);
+            return;
+        }
+
+        try {
+            FileUtil.createParentDirs(file);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeInt(VERSION);
+                out.writeUTF(url);
+                out.writeInt(text.length());
+                out.writeLong(contentHash(text));
+                out.writeInt(infos.size());
+                for (SnapshotInfo info : infos) {
+                    out.writeInt(info.startOffset());
+                    out.writeInt(info.endOffset());
+                    out.writeInt(info.group());
+                    writeString(out, info.severityName());
+                    out.writeInt(info.severityValue());
+                    writeString(out, info.attributesKey());
+                    writeString(out, info.description());
+                    writeString(out, info.toolTip());
+                    out.writeBoolean(info.afterEndOfLine());
+                    out.writeBoolean(info.needsUpdateOnTyping());
+                    writeString(out, info.inspectionToolId());
+                }
+            }
+        }
+        catch (IOException e) {
+            LOG.warn("Cannot save highlighting snapshot of " + url, e);
+            FileUtil.delete(file);
+        }
+        trimDirectory();
+    }
+
+    private @Nullable List<SnapshotInfo> read(String url, CharSequence text) {
+        File file = getSnapshotFile(url);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION || !url.equals(in.readUTF()) || in.readInt() != text.length() || in.readLong() != contentHash(text)) {
+                // another file with the same name hash, or the content has changed since
+                return null;
+            }
+
+            int count = in.readInt();
+            List<SnapshotInfo> infos = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                infos.add(new SnapshotInfo(
+                    in.readInt(),
+                    in.readInt(),
+                    in.readInt(),
+                    in.readUTF(),
+                    in.readInt(),
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readBoolean(),
+                    in.readBoolean(),
+                    in.readUTF()
+                ));
+            }
+            return infos;
+        }
+        catch (IOException e) {
+            LOG.debug("Cannot read highlighting snapshot of " + url, e);
+            FileUtil.delete(file);
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        // writeUTF() is limited to 64k bytes, long tooltips are not worth keeping whole for a provisional result
+        out.writeUTF(value.length() > 8192 ? value.substring(0, 8192) : value);
+    }
+
+    private void trimDirectory() {
+        File[] files = myDirectory.listFiles();
+        if (files == null || files.length <= MAX_SNAPSHOT_FILES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_SNAPSHOT_FILES; i++) {
+            FileUtil.delete(files[i]);
+        }
+    }
+
+    private File getSnapshotFile(String url) {
+        return new File(myDirectory, Integer.toHexString(url.hashCode()) + ".snapshot");
+    }
+
+    // FNV-1a, offsets of the restored highlighting are only valid for exactly the same text
+    private static long contentHash(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
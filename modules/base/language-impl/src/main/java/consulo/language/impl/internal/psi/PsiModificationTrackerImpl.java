@@ -13,8 +13,11 @@ import consulo.language.ast.IElementType;
 import consulo.language.psi.*;
 import consulo.language.psi.event.PsiTreeChangeEvent;
 import consulo.logging.Logger;
+import consulo.module.Module;
+import consulo.module.content.ProjectFileIndex;
 import consulo.project.Project;
 import consulo.project.event.DumbModeListenerBackgroundable;
+import consulo.virtualFileSystem.VirtualFile;
 import org.jspecify.annotations.Nullable;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -36,10 +39,18 @@ public class PsiModificationTrackerImpl implements PsiModificationTracker {
     private final Map<Language, SimpleModificationTracker> myLanguageTrackers =
         ConcurrentFactoryMap.createWeakMap(language -> new SimpleModificationTracker());
 
+    private final SimpleModificationTracker myAllModulesTracker = new SimpleModificationTracker();
+    private final Map<Module, SimpleModificationTracker> myModuleTrackers =
+        ConcurrentFactoryMap.createWeakMap(module -> new SimpleModificationTracker());
+    private final Map<VirtualFile, SimpleModificationTracker> myContentRootTrackers =
+        ConcurrentFactoryMap.createWeakMap(root -> new SimpleModificationTracker());
+
+    private final Project myProject;
     private final PsiModificationTrackerListener myPublisher;
 
     @Inject
     public PsiModificationTrackerImpl(Application application, Project project) {
+        myProject = project;
         MessageBus bus = project.getMessageBus();
         myPublisher = bus.syncPublisher(PsiModificationTrackerListener.class);
         bus.connect().subscribe(
@@ -65,6 +76,7 @@ public class PsiModificationTrackerImpl implements PsiModificationTracker {
     @Override
     @RequiredWriteAction
     public void incCounter() {
+        myAllModulesTracker.incModificationCount();
         incCountersInner();
     }
 
@@ -88,6 +100,7 @@ public class PsiModificationTrackerImpl implements PsiModificationTracker {
         }
 
         incLanguageCounters(eventImpl);
+        incModuleCounters(eventImpl);
         incCountersInner();
     }
 
@@ -98,14 +111,7 @@ public class PsiModificationTrackerImpl implements PsiModificationTracker {
     }
 
     private void incLanguageCounters(PsiTreeChangeEventImpl event) {
-        PsiTreeChangeEventImpl.PsiEventType code = event.getCode();
-        String propertyName = event.getPropertyName();
-
-        if (code == PsiTreeChangeEventImpl.PsiEventType.PROPERTY_CHANGED
-            && (propertyName == PsiTreeChangeEvent.PROP_UNLOADED_PSI
-            || propertyName == PsiTreeChangeEvent.PROP_ROOTS
-            || propertyName == PsiTreeChangeEvent.PROP_FILE_TYPES)
-            || code == PsiTreeChangeEventImpl.PsiEventType.CHILD_REMOVED && event.getChild() instanceof PsiDirectory) {
+        if (isStructuralChange(event)) {
             myAllLanguagesTracker.incModificationCount();
             return;
         }
@@ -145,6 +151,79 @@ public class PsiModificationTrackerImpl implements PsiModificationTracker {
         }
     }
 
+    private static boolean isStructuralChange(PsiTreeChangeEventImpl event) {
+        PsiTreeChangeEventImpl.PsiEventType code = event.getCode();
+        String propertyName = event.getPropertyName();
+
+        return code == PsiTreeChangeEventImpl.PsiEventType.PROPERTY_CHANGED
+            && (propertyName == PsiTreeChangeEvent.PROP_UNLOADED_PSI
+            || propertyName == PsiTreeChangeEvent.PROP_ROOTS
+            || propertyName == PsiTreeChangeEvent.PROP_FILE_TYPES)
+            || code == PsiTreeChangeEventImpl.PsiEventType.CHILD_REMOVED && event.getChild() instanceof PsiDirectory;
+    }
+
+    private void incModuleCounters(PsiTreeChangeEventImpl event) {
+        if (isStructuralChange(event)) {
+            myAllModulesTracker.incModificationCount();
+            return;
+        }
+
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(myProject);
+        PsiFile file = event.getFile();
+        if (file != null) {
+            incModuleCounters(file, fileIndex);
+            return;
+        }
+
+        // files and directories are added, removed or moved
+        PsiElement[] elements = {
+            event.getParent(),
+            event.getOldParent(),
+            event.getNewParent(),
+            event.getElement(),
+            event.getChild(),
+            event.getOldChild(),
+            event.getNewChild()
+        };
+        boolean found = false;
+        for (PsiElement o : elements) {
+            if (o instanceof PsiFileSystemItem) {
+                if (!incModuleCounters(o, fileIndex)) {
+                    return;
+                }
+                found = true;
+            }
+        }
+
+        if (!found) {
+            myAllModulesTracker.incModificationCount();
+        }
+    }
+
+    /**
+     * @return false if the element can't be attributed to a module and the shared counter is incremented instead
+     */
+    private boolean incModuleCounters(PsiElement element, ProjectFileIndex fileIndex) {
+        VirtualFile file = null;
+        try {
+            file = PsiUtilCore.getVirtualFile(element);
+        }
+        catch (PsiInvalidElementAccessException e) {
+            LOG.warn(e);
+        }
+
+        Module module = file == null ? null : fileIndex.getModuleForFile(file, false);
+        VirtualFile contentRoot = module == null ? null : fileIndex.getContentRootForFile(file, false);
+        if (module == null || contentRoot == null) {
+            // library or non-project file, can't say which modules depend on it
+            myAllModulesTracker.incModificationCount();
+            return false;
+        }
+        myModuleTrackers.get(module).incModificationCount();
+        myContentRootTrackers.get(contentRoot).incModificationCount();
+        return true;
+    }
+
     @Override
     public long getModificationCount() {
         return myModificationCount.getModificationCount();
@@ -182,4 +261,16 @@ public class PsiModificationTrackerImpl implements PsiModificationTracker {
             return result;
         };
     }
+
+    @Override
+    public ModificationTracker forModule(Module module) {
+        SimpleModificationTracker moduleTracker = myModuleTrackers.get(module);
+        return () -> moduleTracker.getModificationCount() + myAllModulesTracker.getModificationCount();
+    }
+
+    @Override
+    public ModificationTracker forContentRoot(VirtualFile contentRoot) {
+        SimpleModificationTracker rootTracker = myContentRootTrackers.get(contentRoot);
+        return () -> rootTracker.getModificationCount() + myAllModulesTracker.getModificationCount();
+    }
 }
@@ -10,6 +10,7 @@ import consulo.application.internal.SensitiveProgressWrapper;
 import consulo.application.progress.ProgressIndicator;
 import consulo.application.util.registry.Registry;
 import consulo.component.ProcessCanceledException;
+import consulo.language.index.impl.internal.jfr.IndexFileEvent;
 import consulo.logging.Logger;
 import consulo.project.Project;
 import consulo.util.concurrent.ConcurrencyUtil;
@@ -174,6 +175,9 @@ public class CacheUpdateRunner {
                 return;
             }
 
+            IndexFileEvent event = new IndexFileEvent();
+            event.begin();
+
             Runnable action = () -> {
                 try {
                     myProcessor.accept(fileContent);
@@ -189,19 +193,25 @@ public class CacheUpdateRunner {
             if (myApplication.isWriteAccessAllowed() || myApplication.isDispatchThread()) {
                 action.run();
                 myProgressUpdater.processed(file);
+                commitEvent(event, fileContent, 1);
                 return;
             }
 
             long backoffNanos = MIN_CONTENTION_BACKOFF_NANOS;
+            int attempts = 0;
             while (true) {
                 myIndicator.checkCanceled();
                 if (myProject.isDisposedOrDisposeInProgress()) {
                     throw new ProcessCanceledException();
                 }
 
-                if (!isWriting() && ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(action, new AttemptIndicator(myIndicator))) {
-                    myProgressUpdater.processed(file);
-                    return;
+                if (!isWriting()) {
+                    attempts++;
+                    if (ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(action, new AttemptIndicator(myIndicator))) {
+                        myProgressUpdater.processed(file);
+                        commitEvent(event, fileContent, attempts);
+                        return;
+                    }
                 }
 
                 LockSupport.parkNanos(backoffNanos);
@@ -209,6 +219,17 @@ public class CacheUpdateRunner {
             }
         }
 
+        private static void commitEvent(IndexFileEvent event, IndexFileContent fileContent, int attempts) {
+            if (event.shouldCommit()) {
+                VirtualFile file = fileContent.getVirtualFile();
+                event.file = file.getPath();
+                event.fileType = file.getFileType().getName();
+                event.length = fileContent.getLength();
+                event.attempts = attempts;
+                event.commit();
+            }
+        }
+
         private boolean isWriting() {
             return myApplication.isWriteActionPending() || myApplication.isWriteActionInProgress();
         }
@@ -0,0 +1,28 @@
+package consulo.language.index.impl.internal.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Indexing of a single file, including the time spent waiting for write actions to finish between attempts.
+ *
+ * @since 2026-10-19
+ */
+@Name("consulo.IndexFile")
+@Label("Index File")
+@Category({"Consulo", "Indexing"})
+@Description("Indexing of a single file")
+@StackTrace(false)
+public final class IndexFileEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("File Type")
+    public String fileType;
+
+    @Label("Length")
+    @DataAmount
+    public long length;
+
+    @Label("Attempts")
+    public int attempts;
+}
@@ -11,6 +11,9 @@ module consulo.language.index.impl {
     requires consulo.local.history.api;
 
     requires gnu.trove;
+    requires jdk.jfr;
+
+    exports consulo.language.index.impl.internal.jfr to jdk.jfr;
 
     opens consulo.language.index.impl.internal.stub to consulo.util.xml.serializer;
     opens consulo.language.index.impl.internal.gist to consulo.application.impl;
@@ -23,10 +23,12 @@ import consulo.util.collection.primitive.ints.IntSet;
 import consulo.util.collection.primitive.ints.IntSets;
 import consulo.util.lang.Clock;
 import org.jetbrains.annotations.TestOnly;
+import org.jspecify.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class ChangeList {
   private final ChangeListStorage myStorage;
@@ -169,6 +171,70 @@ public class ChangeList {
     v.finished();
   }
 
+  /**
+   * Visits the change sets which may affect the path or are labels of the project, newest first.
+   * The path is requested again after every change set, so that the visitor can follow renames and moves of the path and its parents.
+   * If the storage doesn't index change sets by path, all of them are visited.
+   */
+  public void accept(Supplier<String> path, @Nullable String projectId, ChangeVisitor v) {
+    try {
+      doAccept(path, projectId, v);
+    }
+    catch (ChangeVisitor.StopVisitingException e) {
+    }
+    v.finished();
+  }
+
+  private void doAccept(Supplier<String> path, @Nullable String projectId, ChangeVisitor v) throws ChangeVisitor.StopVisitingException {
+    ChangeSet current;
+    synchronized (this) {
+      current = myCurrentChangeSet;
+    }
+
+    long before = current == null ? Long.MAX_VALUE : current.getId();
+    List<ChangeListPathIndex.Ref> refs = myStorage.findChangeSetsAffecting(path.get(), projectId, before);
+    if (refs == null) {
+      visitAllBefore(Long.MAX_VALUE, v);
+      return;
+    }
+
+    if (current != null) {
+      String currentPath = path.get();
+      current.accept(v);
+      if (!Paths.equals(currentPath, path.get())) {
+        refs = myStorage.findChangeSetsAffecting(path.get(), projectId, before);
+      }
+    }
+
+    int i = 0;
+    while (refs != null && i < refs.size()) {
+      ChangeSet changeSet = myStorage.readChangeSet(refs.get(i++));
+      if (changeSet == null) continue;
+
+      String currentPath = path.get();
+      changeSet.accept(v);
+      before = changeSet.getId();
+      if (!Paths.equals(currentPath, path.get())) {
+        // older changes are looked up by the path the file had before the change set
+        refs = myStorage.findChangeSetsAffecting(path.get(), projectId, before);
+        i = 0;
+      }
+    }
+
+    if (refs == null) {
+      // the index has become unavailable
+      visitAllBefore(before, v);
+    }
+  }
+
+  private void visitAllBefore(long changeSetId, ChangeVisitor v) throws ChangeVisitor.StopVisitingException {
+    for (ChangeSet each : iterChanges()) {
+      if (each.getId() < changeSetId) {
+        each.accept(v);
+      }
+    }
+  }
+
   public synchronized void purgeObsolete(long period) {
     myStorage.purge(period, myIntervalBetweenActivities, changeSet -> {
       for (Content each : changeSet.getContentsToPurge()) {
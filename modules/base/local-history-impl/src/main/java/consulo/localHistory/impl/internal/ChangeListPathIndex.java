@@ -0,0 +1,199 @@
+package consulo.localHistory.impl.internal;
+
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.PersistentHashMap;
+import consulo.index.io.data.DataExternalizer;
+import consulo.localHistory.impl.internal.change.Change;
+import consulo.localHistory.impl.internal.change.PutLabelChange;
+import consulo.localHistory.impl.internal.change.StructuralChange;
+import org.jspecify.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Persistent index from paths to the stored change sets which affect them,
+ * so that history of a file or a directory is collected without reading every change set of the storage.
+ * <p>
+ * A change set is stored under every path it affects ("exact" key) and under every ancestor of these paths ("tree" key).
+ * The change sets which may affect a path are those stored under the tree key of the path and under the exact keys of its ancestors.
+ * Labels are stored under the id of their project.
+ * <p>
+ * Records of the storage are reused after purge, so the id of the change set is kept along with the record to skip stale entries.
+ * The index is rebuilt from the storage if it is missing, broken or behind the storage.
+ *
+ * @since 2026-10-19
+ */
+public final class ChangeListPathIndex {
+    private static final int VERSION = 1;
+
+    private static final char EXACT = 'E';
+    private static final char TREE = 'T';
+    private static final char LABEL = 'L';
+    // the last added change set, to find out if the index is behind the storage
+    private static final String LAST_INDEXED_KEY = "#";
+
+    public record Ref(int record, long changeSetId) {
+    }
+
+    private final PersistentHashMap<String, List<Ref>> myMap;
+
+    ChangeListPathIndex(File file) throws IOException {
+        myMap = new PersistentHashMap<>(file, EnumeratorStringDescriptor.INSTANCE, new RefsExternalizer(), 1024, VERSION);
+    }
+
+    void add(int record, ChangeSet changeSet) throws IOException {
+        for (String key : getKeys(changeSet)) {
+            myMap.appendData(key, out -> {
+                out.writeInt(record);
+                out.writeLong(changeSet.getId());
+            });
+        }
+        myMap.put(LAST_INDEXED_KEY, List.of(new Ref(record, changeSet.getId())));
+    }
+
+    @Nullable Ref getLastIndexed() throws IOException {
+        List<Ref> refs = myMap.get(LAST_INDEXED_KEY);
+        return refs == null || refs.isEmpty() ? null : refs.get(0);
+    }
+
+    /**
+     * Collects the keys of the change set to remove it later by {@link #remove(Map)}.
+     */
+    static void collectRefs(int record, ChangeSet changeSet, Map<String, Set<Ref>> refsByKey) {
+        Ref ref = new Ref(record, changeSet.getId());
+        for (String key : getKeys(changeSet)) {
+            refsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(ref);
+        }
+    }
+
+    /**
+     * Removes the collected change sets, every key is rewritten once no matter how many of them it refers to.
+     */
+    void remove(Map<String, Set<Ref>> refsByKey) throws IOException {
+        for (Map.Entry<String, Set<Ref>> entry : refsByKey.entrySet()) {
+            String key = entry.getKey();
+            List<Ref> refs = myMap.get(key);
+            if (refs == null) {
+                continue;
+            }
+            List<Ref> rest = new ArrayList<>(refs);
+            if (!rest.removeAll(entry.getValue())) {
+                continue;
+            }
+            if (rest.isEmpty()) {
+                myMap.remove(key);
+            }
+            else {
+                myMap.put(key, rest);
+            }
+        }
+    }
+
+    /**
+     * @return stored change sets older than the given one which may affect the path or are labels of the project, newest first
+     */
+    List<Ref> find(String path, @Nullable String projectId, long beforeChangeSetId) throws IOException {
+        Set<Ref> result = new HashSet<>();
+        List<String> prefixes = getPrefixes(path);
+        for (int i = 0; i < prefixes.size() - 1; i++) {
+            addRefs(normalize(EXACT + prefixes.get(i)), beforeChangeSetId, result);
+        }
+        addRefs(normalize(TREE + path), beforeChangeSetId, result);
+        if (projectId != null) {
+            addRefs(LABEL + projectId, beforeChangeSetId, result);
+        }
+
+        List<Ref> sorted = new ArrayList<>(result);
+        sorted.sort(Comparator.comparingLong(Ref::changeSetId).reversed());
+        return sorted;
+    }
+
+    private void addRefs(String key, long beforeChangeSetId, Set<Ref> result) throws IOException {
+        List<Ref> refs = myMap.get(key);
+        if (refs == null) {
+            return;
+        }
+        for (Ref ref : refs) {
+            if (ref.changeSetId() < beforeChangeSetId) {
+                result.add(ref);
+            }
+        }
+    }
+
+    void force() {
+        myMap.force();
+    }
+
+    void close() throws IOException {
+        myMap.close();
+    }
+
+    private static Set<String> getKeys(ChangeSet changeSet) {
+        Set<String> keys = new HashSet<>();
+        for (Change change : changeSet.getChanges()) {
+            if (change instanceof StructuralChange structuralChange) {
+                addPathKeys(structuralChange.getPath(), keys);
+                addPathKeys(structuralChange.getOldPath(), keys);
+            }
+            else if (change instanceof PutLabelChange labelChange) {
+                keys.add(LABEL + labelChange.getProjectId());
+            }
+        }
+        return keys;
+    }
+
+    private static void addPathKeys(String path, Set<String> keys) {
+        keys.add(normalize(EXACT + path));
+        for (String prefix : getPrefixes(path)) {
+            keys.add(normalize(TREE + prefix));
+        }
+    }
+
+    /**
+     * @return the path and all its ancestors, the root first
+     */
+    private static List<String> getPrefixes(String path) {
+        List<String> result = new ArrayList<>();
+        for (int i = path.indexOf(Paths.DELIM); i != -1; i = path.indexOf(Paths.DELIM, i + 1)) {
+            if (i == 0) {
+                result.add(String.valueOf(Paths.DELIM));
+            }
+            else if (i < path.length() - 1) {
+                result.add(path.substring(0, i));
+            }
+        }
+        if (result.isEmpty() || !result.get(result.size() - 1).equals(path)) {
+            result.add(path);
+        }
+        return result;
+    }
+
+    private static String normalize(String key) {
+        return Paths.isCaseSensitive() ? key : key.toLowerCase(Locale.ROOT);
+    }
+
+    private static class RefsExternalizer implements DataExternalizer<List<Ref>> {
+        @Override
+        public void save(DataOutput out, List<Ref> refs) throws IOException {
+            for (Ref ref : refs) {
+                out.writeInt(ref.record());
+                out.writeLong(ref.changeSetId());
+            }
+        }
+
+        @Override
+        public List<Ref> read(DataInput in) throws IOException {
+            // values are appended chunk by chunk, so everything up to the end of the value is read
+            List<Ref> result = new ArrayList<>();
+            while (((InputStream)in).available() > 0) {
+                result.add(new Ref(in.readInt(), in.readLong()));
+            }
+            return result;
+        }
+    }
+}
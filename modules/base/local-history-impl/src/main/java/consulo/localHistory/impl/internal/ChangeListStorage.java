@@ -19,6 +19,7 @@ package consulo.localHistory.impl.internal;
 import consulo.util.collection.primitive.ints.IntSet;
 import org.jspecify.annotations.Nullable;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 public interface ChangeListStorage {
@@ -31,4 +32,15 @@ public interface ChangeListStorage {
   void purge(long period, int intervalBetweenActivities, Consumer<ChangeSet> processor);
 
   void writeNextSet(ChangeSet changeSet);
+
+  /**
+   * @return stored change sets older than the given one which may affect the path or are labels of the project, newest first,
+   * or {@code null} if the storage doesn't know it and all change sets have to be visited
+   */
+  @Nullable List<ChangeListPathIndex.Ref> findChangeSetsAffecting(String path, @Nullable String projectId, long beforeChangeSetId);
+
+  /**
+   * @return the change set, or {@code null} if it is not stored anymore
+   */
+  @Nullable ChangeSet readChangeSet(ChangeListPathIndex.Ref ref);
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
 package consulo.localHistory.impl.internal;
 
 import consulo.container.boot.ContainerPathManager;
+import consulo.index.io.PersistentHashMap;
 import consulo.index.io.storage.AbstractStorage;
 import consulo.localize.LocalizeValue;
 import consulo.platform.Platform;
@@ -35,14 +36,22 @@ import java.io.File;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 public class ChangeListStorageImpl implements ChangeListStorage {
     private static final int VERSION = 5;
     private static final String STORAGE_FILE = "changes";
+    private static final String PATH_INDEX_FILE = "paths";
+    private static final String CONTENT_FILE = "contents";
 
     private final File myStorageDir;
     private LocalHistoryStorage myStorage;
+    private @Nullable ChangeListPathIndex myPathIndex;
+    private @Nullable LocalHistoryContentStorage myContentStorage;
     private long myLastId;
 
     private boolean isCompletelyBroken = false;
@@ -84,6 +93,99 @@ public class ChangeListStorageImpl implements ChangeListStorage {
 
         myLastId = result.getLastId();
         myStorage = result;
+        myPathIndex = openPathIndex(new File(storageDir, PATH_INDEX_FILE), result);
+        myContentStorage = openContentStorage(storageDir);
+        StoredContent.setContentStorage(myContentStorage);
+    }
+
+    private static @Nullable LocalHistoryContentStorage openContentStorage(File storageDir) {
+        try {
+            return new LocalHistoryContentStorage(storageDir.getPath() + "/" + CONTENT_FILE);
+        }
+        catch (IOException e) {
+            // contents of documents are put to the VFS content storage then
+            LocalHistoryLog.LOG.warn("cannot open local history content storage", e);
+            return null;
+        }
+    }
+
+    private void closeContentStorage() {
+        StoredContent.setContentStorage(null);
+        if (myContentStorage != null) {
+            myContentStorage.close();
+            myContentStorage = null;
+        }
+    }
+
+    private static @Nullable ChangeListPathIndex openPathIndex(File file, LocalHistoryStorage storage) {
+        ChangeListPathIndex index = null;
+        try {
+            index = new ChangeListPathIndex(file);
+            if (isUpToDate(index, storage)) {
+                return index;
+            }
+        }
+        catch (IOException e) {
+            LocalHistoryLog.LOG.info("local history path index is broken, rebuilding...", e);
+        }
+
+        closePathIndex(index);
+        PersistentHashMap.deleteFilesStartingWith(file);
+        index = null;
+        try {
+            index = new ChangeListPathIndex(file);
+            IntSet recursionGuard = IntSets.newHashSet(1000);
+            for (int record = storage.getFirstRecord(); record != 0; record = storage.getNextRecord(record)) {
+                if (!recursionGuard.add(record)) {
+                    throw new IOException("Recursive records found");
+                }
+                try (DataInputStream in = storage.readStream(record)) {
+                    index.add(record, new ChangeSet(in));
+                }
+            }
+            index.force();
+            return index;
+        }
+        catch (IOException e) {
+            LocalHistoryLog.LOG.warn("cannot build local history path index, all changes will be read to show history", e);
+            closePathIndex(index);
+            PersistentHashMap.deleteFilesStartingWith(file);
+            return null;
+        }
+    }
+
+    private static boolean isUpToDate(ChangeListPathIndex index, LocalHistoryStorage storage) throws IOException {
+        int lastRecord = storage.getLastRecord();
+        ChangeListPathIndex.Ref lastIndexed = index.getLastIndexed();
+        if (lastRecord == 0 || lastIndexed == null) {
+            return lastRecord == 0 && lastIndexed == null;
+        }
+        if (lastIndexed.record() != lastRecord) {
+            return false;
+        }
+        try (DataInputStream in = storage.readStream(lastRecord)) {
+            return in.readLong() == lastIndexed.changeSetId();
+        }
+    }
+
+    private static void closePathIndex(@Nullable ChangeListPathIndex index) {
+        if (index == null) {
+            return;
+        }
+        try {
+            index.close();
+        }
+        catch (IOException e) {
+            LocalHistoryLog.LOG.warn("cannot close local history path index", e);
+        }
+    }
+
+    private void disablePathIndex(Throwable e) {
+        // history is still shown by reading all changes, the index is rebuilt on the next start
+        LocalHistoryLog.LOG.warn("local history path index is broken", e);
+        closePathIndex(myPathIndex);
+        myPathIndex = null;
+        PersistentHashMap.deleteFilesStartingWith(new File(myStorageDir, PATH_INDEX_FILE));
     }
 
     private static long getVFSTimestamp() {
@@ -114,6 +216,9 @@ public class ChangeListStorageImpl implements ChangeListStorage {
         );
 
         myStorage.close();
+        closePathIndex(myPathIndex);
+        myPathIndex = null;
+        closeContentStorage();
         try {
             FileUtil.delete(myStorageDir);
             initStorage(myStorageDir);
@@ -151,6 +256,8 @@ public class ChangeListStorageImpl implements ChangeListStorage {
     @Override
     public synchronized void close() {
         myStorage.close();
+        closePathIndex(myPathIndex);
+        closeContentStorage();
     }
 
     @Override
@@ -225,15 +332,65 @@ public class ChangeListStorageImpl implements ChangeListStorage {
             return;
         }
 
+        int record;
         try {
-            try (AbstractStorage.StorageDataOutput out = myStorage.writeStream(myStorage.createNextRecord(), true)) {
+            record = myStorage.createNextRecord();
+            try (AbstractStorage.StorageDataOutput out = myStorage.writeStream(record, true)) {
                 changeSet.write(out);
             }
             myStorage.setLastId(myLastId);
+            if (myContentStorage != null) {
+                // contents the change set refers to
+                myContentStorage.force();
+            }
             myStorage.force();
         }
         catch (IOException e) {
             handleError(e, null);
+            return;
+        }
+
+        if (myPathIndex != null) {
+            try {
+                myPathIndex.add(record, changeSet);
+            }
+            catch (IOException e) {
+                disablePathIndex(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized @Nullable List<ChangeListPathIndex.Ref> findChangeSetsAffecting(
+        String path,
+        @Nullable String projectId,
+        long beforeChangeSetId
+    ) {
+        if (isCompletelyBroken || myPathIndex == null) {
+            return null;
+        }
+        try {
+            return myPathIndex.find(path, projectId, beforeChangeSetId);
+        }
+        catch (IOException e) {
+            disablePathIndex(e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized @Nullable ChangeSet readChangeSet(ChangeListPathIndex.Ref ref) {
+        if (isCompletelyBroken) {
+            return null;
+        }
+        try {
+            ChangeSet changeSet = doReadBlock(ref.record()).changeSet;
+            // the record may have been purged and reused by a newer change set
+            return changeSet.getId() == ref.changeSetId() ? changeSet : null;
+        }
+        catch (Throwable e) {
+            handleError(e, "invalid indexed record is: " + ref.record());
+            return null;
         }
     }
 
@@ -252,11 +409,17 @@ public class ChangeListStorageImpl implements ChangeListStorage {
             }
 
             int eachBlockId = firstObsoleteId;
+            Map<String, Set<ChangeListPathIndex.Ref>> purgedRefs = new HashMap<>();
 
             while (eachBlockId != 0) {
-                processor.accept(doReadBlock(eachBlockId).changeSet);
+                ChangeSet changeSet = doReadBlock(eachBlockId).changeSet;
+                processor.accept(changeSet);
+                if (myPathIndex != null) {
+                    ChangeListPathIndex.collectRefs(eachBlockId, changeSet, purgedRefs);
+                }
                 eachBlockId = doReadPrevSafely(eachBlockId, recursionGuard);
             }
+            removeFromPathIndex(purgedRefs);
             myStorage.deleteRecordsUpTo(firstObsoleteId);
             myStorage.force();
         }
@@ -265,6 +428,18 @@ public class ChangeListStorageImpl implements ChangeListStorage {
         }
     }
 
+    private void removeFromPathIndex(Map<String, Set<ChangeListPathIndex.Ref>> refsByKey) {
+        if (myPathIndex == null || refsByKey.isEmpty()) {
+            return;
+        }
+        try {
+            myPathIndex.remove(refsByKey);
+        }
+        catch (IOException e) {
+            disablePathIndex(e);
+        }
+    }
+
     private int findFirstObsoleteBlock(long period, int intervalBetweenActivities, IntSet recursionGuard) throws IOException {
         long prevTimestamp = 0;
         long length = 0;
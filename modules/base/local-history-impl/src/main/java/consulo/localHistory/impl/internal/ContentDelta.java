@@ -0,0 +1,172 @@
+package consulo.localHistory.impl.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary delta between two revisions of a content: the new revision is described as a sequence of
+ * ranges copied from the base revision and of inserted bytes.
+ * <p>
+ * Matches are looked up by hashes of aligned blocks of the base, so encoding takes linear time and memory
+ * proportional to the number of blocks.
+ *
+ * @since 2026-10-19
+ */
+public final class ContentDelta {
+    private static final int BLOCK = 16;
+    private static final int MULTIPLIER = 31;
+
+    private static final byte COPY = 1;
+    private static final byte INSERT = 2;
+
+    private ContentDelta() {
+    }
+
+    public static byte[] encode(byte[] base, byte[] target) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(target.length);
+            if (base.length < BLOCK || target.length < BLOCK) {
+                writeInsert(out, target, 0, target.length);
+                return bytes.toByteArray();
+            }
+
+            int[] table = buildTable(base);
+            int mask = table.length - 1;
+            int power = power();
+
+            int insertStart = 0;
+            int position = 0;
+            int hash = hash(target, 0);
+            while (position + BLOCK <= target.length) {
+                int candidate = table[mix(hash) & mask] - 1;
+                if (candidate >= 0 && equal(base, candidate, target, position)) {
+                    int start = position;
+                    int baseStart = candidate;
+                    // extend the match back over the bytes which were going to be inserted
+                    while (start > insertStart && baseStart > 0 && base[baseStart - 1] == target[start - 1]) {
+                        start--;
+                        baseStart--;
+                    }
+                    int end = position + BLOCK;
+                    int baseEnd = candidate + BLOCK;
+                    while (end < target.length && baseEnd < base.length && base[baseEnd] == target[end]) {
+                        end++;
+                        baseEnd++;
+                    }
+
+                    writeInsert(out, target, insertStart, start - insertStart);
+                    out.writeByte(COPY);
+                    out.writeInt(baseStart);
+                    out.writeInt(end - start);
+
+                    insertStart = end;
+                    position = end;
+                    if (position + BLOCK <= target.length) {
+                        hash = hash(target, position);
+                    }
+                }
+                else {
+                    if (position + BLOCK < target.length) {
+                        hash = (hash - target[position] * power) * MULTIPLIER + target[position + BLOCK];
+                    }
+                    position++;
+                }
+            }
+            writeInsert(out, target, insertStart, target.length - insertStart);
+        }
+        catch (IOException e) {
+            // writing to memory
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte[] apply(byte[] base, byte[] delta) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta))) {
+            byte[] result = new byte[in.readInt()];
+            int position = 0;
+            while (in.available() > 0) {
+                byte op = in.readByte();
+                if (op == COPY) {
+                    int offset = in.readInt();
+                    int length = in.readInt();
+                    System.arraycopy(base, offset, result, position, length);
+                    position += length;
+                }
+                else if (op == INSERT) {
+                    int length = in.readInt();
+                    in.readFully(result, position, length);
+                    position += length;
+                }
+                else {
+                    throw new IOException("Unknown delta operation " + op);
+                }
+            }
+            if (position != result.length) {
+                throw new IOException("Delta produced " + position + " bytes instead of " + result.length);
+            }
+            return result;
+        }
+        catch (IndexOutOfBoundsException e) {
+            throw new IOException("Delta doesn't match the base", e);
+        }
+    }
+
+    private static void writeInsert(DataOutputStream out, byte[] target, int start, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        out.writeByte(INSERT);
+        out.writeInt(length);
+        out.write(target, start, length);
+    }
+
+    /**
+     * Table from a block hash to the position of the block in the base plus one, of colliding blocks only the first one is kept.
+     */
+    private static int[] buildTable(byte[] base) {
+        int blocks = base.length / BLOCK;
+        int[] table = new int[Integer.highestOneBit(Math.max(blocks, 1) * 2 - 1) << 1];
+        int mask = table.length - 1;
+        for (int block = 0; block < blocks; block++) {
+            int slot = mix(hash(base, block * BLOCK)) & mask;
+            if (table[slot] == 0) {
+                table[slot] = block * BLOCK + 1;
+            }
+        }
+        return table;
+    }
+
+    private static int hash(byte[] bytes, int start) {
+        int hash = 0;
+        for (int i = start; i < start + BLOCK; i++) {
+            hash = hash * MULTIPLIER + bytes[i];
+        }
+        return hash;
+    }
+
+    private static int power() {
+        int power = 1;
+        for (int i = 1; i < BLOCK; i++) {
+            power *= MULTIPLIER;
+        }
+        return power;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equal(byte[] base, int baseStart, byte[] target, int targetStart) {
+        for (int i = 0; i < BLOCK; i++) {
+            if (base[baseStart + i] != target[targetStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -378,9 +378,11 @@ public class IdeaGateway {
   }
 
   private static void saveDocumentContent(VirtualFile f, Document d) {
+    // the previously saved content becomes the previous revision, so the new one is stored as a delta against it
+    ContentAndTimestamps previous = f.getUserData(SAVED_DOCUMENT_CONTENT_AND_STAMP_KEY);
     f.putUserData(SAVED_DOCUMENT_CONTENT_AND_STAMP_KEY,
                   new ContentAndTimestamps(Clock.getTime(),
-                                           StoredContent.acquireContent(bytesFromDocument(d)),
+                                           StoredContent.acquireContent(bytesFromDocument(d), previous == null ? null : previous.content),
                                            d.getModificationStamp()));
   }
 
@@ -396,17 +398,19 @@ public class IdeaGateway {
       }
     }
 
+    // take document's content if any, before the previously stored one is released to let it be the base of the new one
+    Pair<StoredContent, Long> result = d != null
+                                       ? Pair.create(StoredContent.acquireContent(bytesFromDocument(d),
+                                                                                  contentAndStamp == null ? null : contentAndStamp.content),
+                                                     Clock.getTime())
+                                       : Pair.create(StoredContent.acquireContent(f), f.getTimeStamp());
+
     // release previously stored
     if (contentAndStamp != null) {
       contentAndStamp.content.release();
     }
 
-    // take document's content if any
-    if (d != null) {
-      return Pair.create(StoredContent.acquireContent(bytesFromDocument(d)), Clock.getTime());
-    }
-
-    return Pair.create(StoredContent.acquireContent(f), f.getTimeStamp());
+    return result;
   }
 
   
@@ -50,4 +50,14 @@ public class InMemoryChangeListStorage implements ChangeListStorage {
   @Override
   public void purge(long period, int intervalBetweenActivities, Consumer<ChangeSet> processor) {
   }
+
+  @Override
+  public @Nullable List<ChangeListPathIndex.Ref> findChangeSetsAffecting(String path, @Nullable String projectId, long beforeChangeSetId) {
+    return null;
+  }
+
+  @Override
+  public @Nullable ChangeSet readChangeSet(ChangeListPathIndex.Ref ref) {
+    return null;
+  }
 }
@@ -0,0 +1,131 @@
+package consulo.localHistory.impl.internal;
+
+import consulo.index.io.storage.AbstractStorage;
+import consulo.index.io.storage.RefCountingStorage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage of the contents Local History takes from unsaved documents.
+ * <p>
+ * Successive revisions of a document differ a little, so a revision is stored as a {@link ContentDelta delta}
+ * against the previous revision of the same document. At most {@link #MAX_DELTA_CHAIN} deltas follow each other,
+ * then a full snapshot is stored, so reading a revision applies a bounded number of deltas.
+ * A delta keeps a reference to its base, so the base is deleted only when it is not used by the history nor by other deltas.
+ * <p>
+ * Records are compressed by the underlying storage, the space of deleted records is reclaimed when the storage is opened.
+ *
+ * @since 2026-10-19
+ */
+public class LocalHistoryContentStorage {
+    private static final byte FULL = 0;
+    private static final byte DELTA = 1;
+    private static final int MAX_DELTA_CHAIN = 10;
+
+    private final RefCountingStorage myStorage;
+
+    public LocalHistoryContentStorage(String path) throws IOException {
+        myStorage = new RefCountingStorage(path);
+    }
+
+    /**
+     * @param base record of the previous revision of the content, or 0
+     * @return record of the stored content
+     */
+    public synchronized int store(byte[] bytes, int base) throws IOException {
+        byte[] delta = null;
+        int depth = 0;
+        if (base > 0) {
+            int baseDepth = getDepth(base);
+            if (baseDepth < MAX_DELTA_CHAIN) {
+                byte[] encoded = ContentDelta.encode(read(base), bytes);
+                // a delta of an almost rewritten content is not worth the base it keeps alive
+                if (encoded.length < bytes.length / 2) {
+                    delta = encoded;
+                    depth = baseDepth + 1;
+                }
+            }
+        }
+
+        int record = myStorage.acquireNewRecord();
+        try (AbstractStorage.StorageDataOutput out = myStorage.writeStream(record)) {
+            if (delta == null) {
+                out.writeByte(FULL);
+                out.write(bytes);
+            }
+            else {
+                out.writeByte(DELTA);
+                out.writeInt(base);
+                out.writeByte(depth);
+                out.write(delta);
+            }
+        }
+        if (delta != null) {
+            myStorage.acquireRecord(base);
+        }
+        return record;
+    }
+
+    public synchronized byte[] read(int record) throws IOException {
+        List<byte[]> deltas = new ArrayList<>();
+        byte[] result;
+        int current = record;
+        while (true) {
+            try (DataInputStream in = myStorage.readStream(current)) {
+                if (in.readByte() == FULL) {
+                    result = in.readAllBytes();
+                    break;
+                }
+                current = in.readInt();
+                in.readByte();
+                deltas.add(in.readAllBytes());
+            }
+            if (deltas.size() > MAX_DELTA_CHAIN) {
+                throw new IOException("Delta chain of content " + record + " is too long");
+            }
+        }
+
+        for (int i = deltas.size() - 1; i >= 0; i--) {
+            result = ContentDelta.apply(result, deltas.get(i));
+        }
+        return result;
+    }
+
+    public synchronized void release(int record) throws IOException {
+        int current = record;
+        while (current > 0) {
+            int base = 0;
+            if (myStorage.getRefCount(current) == 1) {
+                // the record is going to be deleted, so it doesn't need its base anymore
+                try (DataInputStream in = myStorage.readStream(current)) {
+                    if (in.readByte() == DELTA) {
+                        base = in.readInt();
+                    }
+                }
+            }
+            myStorage.releaseRecord(current);
+            current = base;
+        }
+    }
+
+    public synchronized void force() {
+        myStorage.force();
+    }
+
+    public synchronized void close() {
+        myStorage.close();
+    }
+
+    private int getDepth(int record) throws IOException {
+        try (DataInputStream in = myStorage.readStream(record)) {
+            if (in.readByte() == FULL) {
+                return 0;
+            }
+            in.readInt();
+            return in.readByte();
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.jetbrains.annotations.TestOnly;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import org.jspecify.annotations.Nullable;
 
 public class LocalHistoryFacade {
@@ -159,6 +160,13 @@ public class LocalHistoryFacade {
     myChangeList.accept(v);
   }
 
+  /**
+   * @see ChangeList#accept(Supplier, String, ChangeVisitor)
+   */
+  public void accept(Supplier<String> path, @Nullable String projectId, ChangeVisitor v) {
+    myChangeList.accept(path, projectId, v);
+  }
+
   public String revertUpTo(final RootEntry root,
                            String path,
                            final ChangeSet targetChangeSet,
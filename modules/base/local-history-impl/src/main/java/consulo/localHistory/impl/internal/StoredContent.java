@@ -20,17 +20,44 @@ import consulo.util.collection.ArrayUtil;
 import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.internal.PersistentFS;
 import org.jetbrains.annotations.TestOnly;
+import org.jspecify.annotations.Nullable;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+/**
+ * Content kept in the VFS content storage, or, if the id is negative, in the {@link LocalHistoryContentStorage}.
+ */
 public class StoredContent extends Content {
   private static final int UNAVAILABLE = 0;
 
+  private static volatile @Nullable LocalHistoryContentStorage ourContentStorage;
+
   private int myContentId;
 
+  static void setContentStorage(@Nullable LocalHistoryContentStorage storage) {
+    ourContentStorage = storage;
+  }
+
   public static StoredContent acquireContent(byte[] bytes) {
+    return acquireContent(bytes, null);
+  }
+
+  /**
+   * @param previous previous revision of the same content, the new one may be stored as a delta against it
+   */
+  public static StoredContent acquireContent(byte[] bytes, @Nullable StoredContent previous) {
+    LocalHistoryContentStorage storage = ourContentStorage;
+    if (storage != null) {
+      try {
+        int base = previous != null && previous.myContentId < 0 ? -previous.myContentId : 0;
+        return new StoredContent(-storage.store(bytes, base));
+      }
+      catch (IOException e) {
+        LocalHistoryLog.LOG.warn("cannot store content in local history storage", e);
+      }
+    }
     return new StoredContent(getFS().storeUnlinkedContent(bytes));
   }
 
@@ -72,6 +99,7 @@ public class StoredContent extends Content {
     //if (!isAvailable()) throw new RuntimeException("content is not available");
     try {
       if (myContentId == UNAVAILABLE) return ArrayUtil.EMPTY_BYTE_ARRAY;
+      if (myContentId < 0) return getContentStorage().read(-myContentId);
       return getFS().contentsToByteArray(myContentId);
     }
     catch (IOException e) {
@@ -85,6 +113,12 @@ public class StoredContent extends Content {
     return true;
   }
 
+  private static LocalHistoryContentStorage getContentStorage() throws IOException {
+    LocalHistoryContentStorage storage = ourContentStorage;
+    if (storage == null) throw new IOException("local history storage is closed");
+    return storage;
+  }
+
   private static PersistentFS getFS() {
     return ((PersistentFS)PersistentFS.getInstance());
   }
@@ -96,7 +130,17 @@ public class StoredContent extends Content {
   @Override
   public void release() {
     if (myContentId == UNAVAILABLE) return;
-    getFS().releaseContent(myContentId);
+    if (myContentId < 0) {
+      try {
+        getContentStorage().release(-myContentId);
+      }
+      catch (IOException e) {
+        LocalHistoryLog.LOG.warn("cannot release content " + myContentId, e);
+      }
+    }
+    else {
+      getFS().releaseContent(myContentId);
+    }
     myContentId = UNAVAILABLE;
   }
 
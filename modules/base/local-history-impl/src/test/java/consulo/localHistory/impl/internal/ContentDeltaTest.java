@@ -0,0 +1,83 @@
+package consulo.localHistory.impl.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @since 2026-10-19
+ */
+public class ContentDeltaTest {
+    @Test
+    void identicalContents() throws IOException {
+        byte[] content = randomBytes(new Random(1), 10000);
+        byte[] delta = assertRoundTrip(content, content.clone());
+        // a single copy of the whole content
+        assertTrue(delta.length < 20, "delta length: " + delta.length);
+    }
+
+    @Test
+    void fullyDifferentContents() throws IOException {
+        Random random = new Random(2);
+        assertRoundTrip(randomBytes(random, 5000), randomBytes(random, 7000));
+    }
+
+    @Test
+    void emptyContents() throws IOException {
+        byte[] content = randomBytes(new Random(3), 100);
+        assertRoundTrip(new byte[0], new byte[0]);
+        assertRoundTrip(new byte[0], content);
+        assertRoundTrip(content, new byte[0]);
+        // shorter than a block
+        assertRoundTrip(Arrays.copyOf(content, 5), content);
+        assertRoundTrip(content, Arrays.copyOf(content, 5));
+    }
+
+    @Test
+    void nonAlignedChanges() throws IOException {
+        Random random = new Random(4);
+        byte[] base = randomBytes(random, 10007);
+
+        // bytes inserted and removed at offsets which are not multiples of the block size
+        byte[] target = new byte[base.length + 3 - 5];
+        System.arraycopy(base, 0, target, 0, 1001);
+        target[1001] = 1;
+        target[1002] = 2;
+        target[1003] = 3;
+        System.arraycopy(base, 1001, target, 1004, 6000 - 1001);
+        System.arraycopy(base, 6005, target, 1004 + 6000 - 1001, base.length - 6005);
+
+        byte[] delta = assertRoundTrip(base, target);
+        assertTrue(delta.length < 100, "delta length: " + delta.length);
+
+        // a content which doesn't end on a block boundary, changed in its tail
+        byte[] tail = base.clone();
+        tail[tail.length - 1]++;
+        assertRoundTrip(base, tail);
+        assertRoundTrip(base, Arrays.copyOf(base, base.length - 7));
+    }
+
+    @Test
+    void corruptedDeltaIsRejected() {
+        byte[] base = randomBytes(new Random(5), 1000);
+        byte[] delta = ContentDelta.encode(base, base);
+        assertThrows(IOException.class, () -> ContentDelta.apply(Arrays.copyOf(base, 100), delta));
+        assertThrows(IOException.class, () -> ContentDelta.apply(base, Arrays.copyOf(delta, delta.length - 1)));
+    }
+
+    private static byte[] assertRoundTrip(byte[] base, byte[] target) throws IOException {
+        byte[] delta = ContentDelta.encode(base, target);
+        assertArrayEquals(target, ContentDelta.apply(base, delta));
+        return delta;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
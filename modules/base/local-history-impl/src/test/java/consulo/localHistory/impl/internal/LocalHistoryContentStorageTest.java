@@ -0,0 +1,134 @@
+package consulo.localHistory.impl.internal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stores revisions of an edited content, so that they become chains of deltas, and reads them back.
+ *
+ * @since 2026-10-19
+ */
+public class LocalHistoryContentStorageTest {
+    private static final int REVISIONS = 35;
+
+    @TempDir
+    File myDir;
+
+    private String myPath;
+    private LocalHistoryContentStorage myStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        myPath = new File(myDir, "contents").getPath();
+        myStorage = new LocalHistoryContentStorage(myPath);
+    }
+
+    @AfterEach
+    void tearDown() {
+        myStorage.close();
+    }
+
+    @Test
+    void deltaChainsAreReadBack() throws IOException {
+        List<byte[]> revisions = createRevisions(new Random(1));
+        List<Integer> records = storeAll(revisions);
+        assertRevisions(revisions, records);
+
+        myStorage.close();
+        myStorage = new LocalHistoryContentStorage(myPath);
+        assertRevisions(revisions, records);
+    }
+
+    @Test
+    void releasedRevisionsKeepTheirDependentsReadable() throws IOException {
+        List<byte[]> revisions = createRevisions(new Random(2));
+        List<Integer> records = storeAll(revisions);
+
+        // older revisions are purged from the history first, their deltas are still the bases of the newer ones
+        int purged = REVISIONS / 2;
+        for (int i = 0; i < purged; i++) {
+            myStorage.release(records.get(i));
+        }
+        assertRevisions(revisions.subList(purged, REVISIONS), records.subList(purged, REVISIONS));
+
+        // the newest revision isn't the base of anything
+        myStorage.release(records.get(REVISIONS - 1));
+        assertRevisions(revisions.subList(purged, REVISIONS - 1), records.subList(purged, REVISIONS - 1));
+
+        // a new revision still can be stored against a surviving one
+        byte[] next = edit(new Random(3), revisions.get(REVISIONS - 2));
+        int record = myStorage.store(next, records.get(REVISIONS - 2));
+        assertArrayEquals(next, myStorage.read(record));
+    }
+
+    @Test
+    void rewrittenContentIsStoredInFull() throws IOException {
+        Random random = new Random(4);
+        byte[] first = randomText(random, 3000);
+        byte[] second = randomText(random, 3000);
+        int firstRecord = myStorage.store(first, 0);
+        int secondRecord = myStorage.store(second, firstRecord);
+
+        // the second revision doesn't depend on the first one, so the first one goes away completely
+        myStorage.release(firstRecord);
+        assertArrayEquals(second, myStorage.read(secondRecord));
+    }
+
+    private List<Integer> storeAll(List<byte[]> revisions) throws IOException {
+        List<Integer> records = new ArrayList<>();
+        int previous = 0;
+        for (byte[] revision : revisions) {
+            previous = myStorage.store(revision, previous);
+            records.add(previous);
+        }
+        return records;
+    }
+
+    private void assertRevisions(List<byte[]> revisions, List<Integer> records) throws IOException {
+        for (int i = 0; i < revisions.size(); i++) {
+            assertArrayEquals(revisions.get(i), myStorage.read(records.get(i)), "revision " + i);
+        }
+    }
+
+    /**
+     * Revisions of a text, each one a small edit of the previous one, enough to exceed the length of a delta chain several times.
+     */
+    private static List<byte[]> createRevisions(Random random) {
+        List<byte[]> revisions = new ArrayList<>();
+        byte[] content = randomText(random, 20000);
+        for (int i = 0; i < REVISIONS; i++) {
+            revisions.add(content);
+            content = edit(random, content);
+        }
+        return revisions;
+    }
+
+    private static byte[] edit(Random random, byte[] content) {
+        int start = random.nextInt(content.length);
+        int end = Math.min(content.length, start + random.nextInt(50));
+        byte[] inserted = randomText(random, random.nextInt(50));
+        byte[] result = new byte[content.length - (end - start) + inserted.length];
+        System.arraycopy(content, 0, result, 0, start);
+        System.arraycopy(inserted, 0, result, start, inserted.length);
+        System.arraycopy(content, end, result, start + inserted.length, content.length - end);
+        return result;
+    }
+
+    private static byte[] randomText(Random random, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte)(random.nextInt(10) == 0 ? '\n' : 'a' + random.nextInt(26));
+        }
+        return bytes;
+    }
+}
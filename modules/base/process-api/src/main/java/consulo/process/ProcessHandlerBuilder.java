@@ -55,6 +55,11 @@ public interface ProcessHandlerBuilder {
    */
   ProcessHandlerBuilder blockingReader();
 
+  /**
+   * {@link BaseOutputReader.Options#VIRTUAL_THREAD}
+   */
+  ProcessHandlerBuilder virtualThreadReader();
+
   
   ProcessHandlerBuilder consoleType(ProcessConsoleType type);
 
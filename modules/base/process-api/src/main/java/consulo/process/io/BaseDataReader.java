@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -36,6 +37,10 @@ public abstract class BaseDataReader {
 
   protected void startWithoutChangingThreadName() {
     if (myFinishedFuture == null) {
+      if (useVirtualThread()) {
+        myFinishedFuture = executeOnVirtualThread(this::doRun, "BaseDataReader");
+        return;
+      }
       myFinishedFuture = executeOnPooledThread(() -> {
         doRun();
       });
@@ -47,6 +52,10 @@ public abstract class BaseDataReader {
       LOG.warn(new Throwable("Must provide not-empty presentable name"));
     }
     if (myFinishedFuture == null) {
+      if (useVirtualThread()) {
+        myFinishedFuture = executeOnVirtualThread(this::doRun, StringUtil.isEmptyOrSpaces(presentableName) ? "BaseDataReader" : "BaseDataReader: " + presentableName);
+        return;
+      }
       myFinishedFuture = executeOnPooledThread(() -> {
         if (StringUtil.isEmptyOrSpaces(presentableName)) {
           doRun();
@@ -58,6 +67,24 @@ public abstract class BaseDataReader {
     }
   }
 
+  /**
+   * If {@code true}, the reader runs by {@link #executeOnVirtualThread} instead of {@link #executeOnPooledThread}.
+   * Blocked reads of a virtual thread don't occupy a platform thread, so it's meant to be used with {@link SleepingPolicy#BLOCKING}.
+   */
+  protected boolean useVirtualThread() {
+    return false;
+  }
+
+  /**
+   * Starts the reader on a dedicated virtual thread. Override it together with {@link #executeOnPooledThread}
+   * if the reader must run on a specific executor.
+   */
+  protected Future<?> executeOnVirtualThread(Runnable runnable, String name) {
+    FutureTask<?> task = new FutureTask<>(runnable, null);
+    Thread.ofVirtual().name(name).start(task);
+    return task;
+  }
+
   /**
    * Please don't override this method as the BaseOSProcessProcessHandler assumes that it can be two reading modes: blocking and non-blocking.
    * Implement {@link #readAvailableBlocking} and {@link #readAvailableNonBlocking} instead.
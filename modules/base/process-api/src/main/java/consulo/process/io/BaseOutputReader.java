@@ -26,6 +26,23 @@ public abstract class BaseOutputReader extends BaseDataReader {
      * @see BaseDataReader.SleepingPolicy#NON_BLOCKING
      */
     public static final Options NON_BLOCKING = withPolicy(SleepingPolicy.NON_BLOCKING);
+    /**
+     * Blocking reads on a dedicated virtual thread: output is delivered as soon as it's read, without sleeping between polls,
+     * and the reader doesn't occupy a pooled thread while the process is silent.
+     *
+     * @see BaseDataReader.SleepingPolicy#BLOCKING
+     */
+    public static final Options VIRTUAL_THREAD = new Options() {
+      @Override
+      public SleepingPolicy policy() {
+        return SleepingPolicy.BLOCKING;
+      }
+
+      @Override
+      public boolean useVirtualThread() {
+        return true;
+      }
+    };
 
     public SleepingPolicy policy() {
       return null;
@@ -43,6 +60,10 @@ public abstract class BaseOutputReader extends BaseDataReader {
       return true;
     }
 
+    public boolean useVirtualThread() {
+      return false;
+    }
+
     public static Options withPolicy(final SleepingPolicy policy) {
       return new Options() {
         @Override
@@ -54,7 +75,7 @@ public abstract class BaseOutputReader extends BaseDataReader {
 
     public static Options forMostlySilentProcess() {
       if (SystemProperties.getBooleanProperty("output.reader.blocking.mode.for.mostly.silent.processes", true) || Boolean.getBoolean("output.reader.blocking.mode")) {
-        return BLOCKING;
+        return Boolean.getBoolean("output.reader.virtual.threads") ? VIRTUAL_THREAD : BLOCKING;
       }
       return NON_BLOCKING;
     }
@@ -85,6 +106,9 @@ public abstract class BaseOutputReader extends BaseDataReader {
     if (options.policy() == SleepingPolicy.BLOCKING && !(reader instanceof BaseInputStreamReader)) {
       throw new IllegalArgumentException("Blocking policy can be used only with BaseInputStreamReader, that doesn't lock on close");
     }
+    if (options.useVirtualThread() && options.policy() != SleepingPolicy.BLOCKING) {
+      throw new IllegalArgumentException("Virtual thread can be used only with blocking policy");
+    }
 
     myReader = reader;
     myOptions = options;
@@ -218,6 +242,11 @@ public abstract class BaseOutputReader extends BaseDataReader {
     onTextAvailable(text);
   }
 
+  @Override
+  protected boolean useVirtualThread() {
+    return myOptions.useVirtualThread();
+  }
+
   @Override
   protected void close() throws IOException {
     myReader.close();
@@ -82,6 +82,13 @@ public class ProcessHandlerBuilderImpl implements ProcessHandlerBuilder {
   }
 
   
+  @Override
+  public ProcessHandlerBuilder virtualThreadReader() {
+    myReaderOptions = BaseOutputReader.Options.VIRTUAL_THREAD;
+    return this;
+  }
+
+  
   @Override
   public ProcessHandlerBuilder consoleType(ProcessConsoleType type) {
     myConsoleType = type;
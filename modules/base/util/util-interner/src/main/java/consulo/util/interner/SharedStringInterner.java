@@ -0,0 +1,34 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.util.interner;
+
+/**
+ * Process-wide interner for names which are read from persistent storages (stubs, index enumerators) and then
+ * retained by several caches at once. Strings are held on weak references, so an entry is evicted as soon as
+ * no cache refers to it anymore.
+ *
+ * @since 2026-10-19
+ */
+public final class SharedStringInterner {
+  private static final Interner<String> ourInterner = Interner.createWeakInterner();
+
+  private SharedStringInterner() {
+  }
+
+  public static String intern(String string) {
+    return ourInterner.intern(string);
+  }
+}
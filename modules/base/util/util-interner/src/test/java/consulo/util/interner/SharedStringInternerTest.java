@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.util.interner;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @since 2026-10-19
+ */
+public class SharedStringInternerTest {
+  @Test
+  public void equalStringsAreTheSameInstance() {
+    String first = new String("consulo.util.interner.SharedStringInternerTest.name");
+    String second = new String(first);
+    assertNotSame(first, second);
+
+    String interned = SharedStringInterner.intern(first);
+    assertSame(first, interned);
+    assertSame(interned, SharedStringInterner.intern(second));
+    assertSame(interned, SharedStringInterner.intern(new StringBuilder(first).toString()));
+  }
+
+  @Test
+  public void unusedStringsAreCollected() throws InterruptedException {
+    String name = "consulo.util.interner.SharedStringInternerTest.unused";
+    WeakReference<String> reference = new WeakReference<>(SharedStringInterner.intern(new String(name)));
+
+    // the interner holds its strings weakly, so nothing keeps the interned instance alive
+    List<byte[]> garbage = new ArrayList<>();
+    for (int i = 0; i < 100 && reference.get() != null; i++) {
+      System.gc();
+      garbage.add(new byte[1 << 20]);
+      if (garbage.size() > 16) {
+        garbage.clear();
+      }
+      Thread.sleep(10);
+    }
+    assertNull(reference.get());
+
+    // an equal string interned later becomes the shared instance
+    String other = new String(name);
+    assertSame(other, SharedStringInterner.intern(other));
+  }
+}
@@ -57,11 +57,20 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
   private final VcsCommitCache<Integer, T> myCache;
   
   private final SequentialLimitedLifoExecutor<TaskDescriptor> myLoader;
+  /**
+   * Loads commits around the visible ones, separately from {@link #myLoader},
+   * so that prefetching doesn't push the tasks for the visible rows out of its queue.
+   */
+  private final SequentialLimitedLifoExecutor<TaskDescriptor> myPrefetcher;
 
   /**
    * The sequence number of the current "loading" task.
    */
   private long myCurrentTaskIndex = 0;
+  /**
+   * The sequence number of the current prefetching task, counted separately from {@link #myCurrentTaskIndex}.
+   */
+  private long myCurrentPrefetchIndex = 0;
 
   
   private final Collection<Runnable> myLoadingFinishedListeners = new ArrayList<>();
@@ -82,6 +91,10 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
       preLoadCommitData(task.myCommits);
       notifyLoaded();
     });
+    myPrefetcher = new SequentialLimitedLifoExecutor<>(this, MAX_LOADING_TASKS, task -> {
+      preLoadCommitData(task.myCommits);
+      notifyLoaded();
+    });
   }
 
   private void notifyLoaded() {
@@ -94,6 +107,7 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
 
   @Override
   public void dispose() {
+    LOG.debug("Disposing " + getClass().getSimpleName() + ", cache hit ratio " + myCache.getHitRatio() + ": " + myCache);
     myLoadingFinishedListeners.clear();
   }
 
@@ -111,6 +125,25 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
     return result;
   }
 
+  @Override
+  public void prefetchCommitData(Iterable<Integer> hashes) {
+    TIntHashSet toLoad = new TIntHashSet();
+    for (Integer id : hashes) {
+      // doesn't go through getFromCache to keep the hit ratio about the rows which are actually shown
+      if (!myCache.isKeyCached(id) && getFromAdditionalCache(id) == null) {
+        toLoad.add(id);
+      }
+    }
+    if (toLoad.isEmpty()) return;
+
+    long taskNumber = myCurrentPrefetchIndex++;
+    toLoad.forEach(id -> {
+      myCache.putIfAbsent(id, (T)new PrefetchingDetails(myIndex, myHashMap, id, taskNumber));
+      return true;
+    });
+    myPrefetcher.queue(new TaskDescriptor(toLoad));
+  }
+
   @Override
   public void loadCommitsData(List<Integer> hashes, Consumer<List<T>> consumer, @Nullable ProgressIndicator indicator) {
     loadCommitsData(getCommitsMap(hashes), consumer, indicator);
@@ -188,9 +221,10 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
     T details = myCache.get(commitId);
     if (details != null) {
       if (details instanceof LoadingDetails) {
-        if (((LoadingDetails)details).getLoadingTaskIndex() <= myCurrentTaskIndex - MAX_LOADING_TASKS) {
+        long currentTaskIndex = details instanceof PrefetchingDetails ? myCurrentPrefetchIndex : myCurrentTaskIndex;
+        if (((LoadingDetails)details).getLoadingTaskIndex() <= currentTaskIndex - MAX_LOADING_TASKS) {
           // don't let old "loading" requests stay in the cache forever
-          myCache.remove(commitId);
+          myCache.remove(commitId, details);
           return null;
         }
       }
@@ -220,9 +254,7 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
   private void cacheCommit(int commitId, long taskNumber) {
     // fill the cache with temporary "Loading" values to avoid producing queries for each commit that has not been cached yet,
     // even if it will be loaded within a previous query
-    if (!myCache.isKeyCached(commitId)) {
-      myCache.put(commitId, (T)new IndexedDetails(myIndex, myHashMap, commitId, taskNumber));
-    }
+    myCache.putIfAbsent(commitId, (T)new IndexedDetails(myIndex, myHashMap, commitId, taskNumber));
   }
 
   
@@ -267,10 +299,11 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
   }
 
   public void saveInCache(TIntObjectHashMap<T> details) {
-    UIUtil.invokeAndWaitIfNeeded((Runnable)() -> details.forEachEntry((key, value) -> {
+    // the cache is thread-safe, so the loading thread doesn't wait for the EDT here
+    details.forEachEntry((key, value) -> {
       myCache.put(key, value);
       return true;
-    }));
+    });
   }
 
   
@@ -289,6 +322,15 @@ abstract class AbstractDataGetter<T extends VcsShortCommitDetails> implements Di
     myLoadingFinishedListeners.remove(runnable);
   }
 
+  /**
+   * A "loading" value put by {@link #prefetchCommitData}, whose task number comes from {@link #myCurrentPrefetchIndex}.
+   */
+  private static class PrefetchingDetails extends IndexedDetails {
+    private PrefetchingDetails(VcsLogIndex index, VcsLogStorage storage, int commitIndex, long loadingTaskIndex) {
+      super(index, storage, commitIndex, loadingTaskIndex);
+    }
+  }
+
   private static class TaskDescriptor {
     
     private final TIntHashSet myCommits;
@@ -17,12 +17,14 @@ import java.util.Map;
  * The CommitDetailsGetter is responsible for getting {@link VcsFullCommitDetails complete commit details} from the cache or from the VCS.
  */
 public class CommitDetailsGetter extends AbstractDataGetter<VcsFullCommitDetails> {
+  private static final long FULL_DETAILS_CACHE_SIZE = 32 * 1024 * 1024;
+
 
   CommitDetailsGetter(VcsLogStorage hashMap,
                       Map<VirtualFile, VcsLogProvider> logProviders,
                       VcsLogIndex index,
                       Disposable parentDisposable) {
-    super(hashMap, logProviders, new VcsCommitCache<>(), index, parentDisposable);
+    super(hashMap, logProviders, new VcsCommitCache<>(FULL_DETAILS_CACHE_SIZE), index, parentDisposable);
   }
 
   @Override
@@ -26,6 +26,12 @@ public interface DataGetter<T extends VcsShortCommitDetails> {
   
   T getCommitData(Integer hash, Iterable<Integer> neighbourHashes);
 
+  /**
+   * Starts loading details of the given commits in background if they are not cached yet,
+   * so that they are available by the time they are requested.
+   */
+  void prefetchCommitData(Iterable<Integer> hashes);
+
   void loadCommitsData(List<Integer> hashes,
                        Consumer<List<T>> consumer,
                        @Nullable ProgressIndicator indicator);
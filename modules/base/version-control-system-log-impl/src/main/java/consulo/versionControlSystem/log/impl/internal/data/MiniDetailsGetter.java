@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 public class MiniDetailsGetter extends AbstractDataGetter<VcsShortCommitDetails> {
+  private static final long MINI_DETAILS_CACHE_SIZE = 16 * 1024 * 1024;
 
   
   private final TopCommitsCache myTopCommitsDetailsCache;
@@ -22,7 +23,7 @@ public class MiniDetailsGetter extends AbstractDataGetter<VcsShortCommitDetails>
                     TopCommitsCache topCommitsDetailsCache,
                     VcsLogIndex index,
                     Disposable parentDisposable) {
-    super(hashMap, logProviders, new VcsCommitCache<>(), index, parentDisposable);
+    super(hashMap, logProviders, new VcsCommitCache<>(MINI_DETAILS_CACHE_SIZE), index, parentDisposable);
     myTopCommitsDetailsCache = topCommitsDetailsCache;
   }
 
@@ -15,40 +15,165 @@
  */
 package consulo.versionControlSystem.log.impl.internal.data;
 
-import consulo.util.collection.SLRUMap;
+import consulo.versionControlSystem.log.VcsCommitMetadata;
+import consulo.versionControlSystem.log.VcsFullCommitDetails;
 import consulo.versionControlSystem.log.VcsShortCommitDetails;
 import org.jspecify.annotations.Nullable;
 
-import java.awt.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * <p>The cache of commit details.</p>
  * <p>It is not actually a cache, but rather a limited map, because there is intentionally no way to get the non-cached value if it was not
  * found in the cache: such functionality is implemented by the {@link DataGetter} which is able to receive
  * non-cached details more efficiently, in a batch.</p>
- * <p>Any access to the Cache MUST be performed from the EDT thread.</p>
+ * <p>The cache is thread-safe, so loaded details are put into it directly from the loading thread.
+ * It is limited by the estimated size of the details rather than by their number: when the limit is exceeded,
+ * least recently accessed details are evicted until the cache shrinks by a tenth.</p>
  */
 class VcsCommitCache<CommitId, T extends VcsShortCommitDetails> {
+  private static final long ENTRY_OVERHEAD = 200;
+  private static final long FULL_DETAILS_OVERHEAD = 2048;
 
-  private final SLRUMap<CommitId, T> myCache = new SLRUMap<>(5000, 5000);
+  private final long myMaxSize;
+  private final Map<CommitId, Entry<T>> myCache = new ConcurrentHashMap<>();
+  private final AtomicLong mySize = new AtomicLong();
+  private final AtomicLong myAccessCounter = new AtomicLong();
+  private final ReentrantLock myEvictionLock = new ReentrantLock();
+
+  private final LongAdder myHits = new LongAdder();
+  private final LongAdder myMisses = new LongAdder();
+
+  VcsCommitCache(long maxSize) {
+    myMaxSize = maxSize;
+  }
 
   public void put(CommitId hash, T commit) {
-    assert EventQueue.isDispatchThread();
-    myCache.put(hash, commit);
+    Entry<T> entry = new Entry<>(commit, estimateSize(commit), myAccessCounter.incrementAndGet());
+    Entry<T> previous = myCache.put(hash, entry);
+    mySize.addAndGet(previous == null ? entry.mySize : entry.mySize - previous.mySize);
+    evictIfNeeded();
+  }
+
+  /**
+   * Puts the value unless there is some value for the hash already.
+   *
+   * @return true if the value was put
+   */
+  public boolean putIfAbsent(CommitId hash, T commit) {
+    Entry<T> entry = new Entry<>(commit, estimateSize(commit), myAccessCounter.incrementAndGet());
+    if (myCache.putIfAbsent(hash, entry) != null) {
+      return false;
+    }
+    mySize.addAndGet(entry.mySize);
+    evictIfNeeded();
+    return true;
   }
 
   public boolean isKeyCached(CommitId hash) {
-    assert EventQueue.isDispatchThread();
-    return myCache.get(hash) != null;
+    return myCache.containsKey(hash);
   }
 
   public @Nullable T get(CommitId hash) {
-    assert EventQueue.isDispatchThread();
-    return myCache.get(hash);
+    Entry<T> entry = myCache.get(hash);
+    if (entry == null) {
+      myMisses.increment();
+      return null;
+    }
+    if (entry.myValue instanceof LoadingDetails) {
+      // only a placeholder of details which are being loaded
+      myMisses.increment();
+    }
+    else {
+      myHits.increment();
+    }
+    entry.myLastAccess = myAccessCounter.incrementAndGet();
+    return entry.myValue;
   }
 
   public void remove(CommitId hash) {
-    assert EventQueue.isDispatchThread();
-    myCache.remove(hash);
+    Entry<T> entry = myCache.remove(hash);
+    if (entry != null) {
+      mySize.addAndGet(-entry.mySize);
+    }
+  }
+
+  /**
+   * Removes the value only if it is still the given one, so that details loaded concurrently are not lost.
+   */
+  public void remove(CommitId hash, T commit) {
+    Entry<T> entry = myCache.get(hash);
+    if (entry != null && entry.myValue == commit && myCache.remove(hash, entry)) {
+      mySize.addAndGet(-entry.mySize);
+    }
+  }
+
+  /**
+   * @return the fraction of {@link #get} calls which found loaded details rather than nothing or a {@link LoadingDetails} placeholder,
+   * or 0 if there were none
+   */
+  public double getHitRatio() {
+    long hits = myHits.sum();
+    long total = hits + myMisses.sum();
+    return total == 0 ? 0 : (double)hits / total;
+  }
+
+  @Override
+  public String toString() {
+    return "VcsCommitCache{entries=" + myCache.size() + ", size=" + mySize.get() + "/" + myMaxSize +
+           ", hits=" + myHits.sum() + ", misses=" + myMisses.sum() + "}";
+  }
+
+  private void evictIfNeeded() {
+    if (mySize.get() <= myMaxSize || !myEvictionLock.tryLock()) {
+      // another thread is already evicting
+      return;
+    }
+    try {
+      List<Map.Entry<CommitId, Entry<T>>> entries = new ArrayList<>(myCache.entrySet());
+      entries.sort(Comparator.comparingLong(e -> e.getValue().myLastAccess));
+      long targetSize = myMaxSize - myMaxSize / 10;
+      for (Map.Entry<CommitId, Entry<T>> e : entries) {
+        if (mySize.get() <= targetSize) break;
+        if (myCache.remove(e.getKey(), e.getValue())) {
+          mySize.addAndGet(-e.getValue().mySize);
+        }
+      }
+    }
+    finally {
+      myEvictionLock.unlock();
+    }
+  }
+
+  private static long estimateSize(VcsShortCommitDetails details) {
+    if (details instanceof LoadingDetails) return ENTRY_OVERHEAD;
+    long size = ENTRY_OVERHEAD + 2L * details.getSubject().length();
+    if (details instanceof VcsFullCommitDetails) {
+      // changes are parsed lazily, so they are not measured
+      size += FULL_DETAILS_OVERHEAD;
+    }
+    if (details instanceof VcsCommitMetadata) {
+      size += 2L * ((VcsCommitMetadata)details).getFullMessage().length();
+    }
+    return size;
+  }
+
+  private static class Entry<T> {
+    private final T myValue;
+    private final long mySize;
+    private volatile long myLastAccess;
+
+    private Entry(T value, long size, long lastAccess) {
+      myValue = value;
+      mySize = size;
+      myLastAccess = lastAccess;
+    }
   }
 }
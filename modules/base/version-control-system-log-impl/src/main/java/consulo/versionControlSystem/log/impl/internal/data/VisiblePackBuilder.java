@@ -34,6 +34,7 @@ import consulo.virtualFileSystem.VirtualFile;
 import org.jspecify.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 class VisiblePackBuilder {
@@ -249,13 +250,14 @@ class VisiblePackBuilder {
         @Nullable Set<Integer> matchingHeads
     ) {
         Collection<CommitId> result = new ArrayList<>();
+        Predicate<Integer> matchesAnyHead = matchingHeads == null ? null : permanentGraph.getContainedInBranchCondition(matchingHeads);
         for (GraphCommit<Integer> commit : permanentGraph.getAllCommits()) {
             VcsCommitMetadata data = getDetailsFromCache(commit.getId());
             if (data == null) {
                 // no more continuous details in the cache
                 break;
             }
-            if (matchesAllFilters(data, permanentGraph, detailsFilters, matchingHeads)) {
+            if (matchesAllFilters(data, detailsFilters, matchesAnyHead)) {
                 result.add(new CommitId(data.getId(), data.getRoot()));
             }
         }
@@ -264,25 +266,11 @@ class VisiblePackBuilder {
 
     private boolean matchesAllFilters(
         VcsCommitMetadata commit,
-        PermanentGraph<Integer> permanentGraph,
         List<VcsLogDetailsFilter> detailsFilters,
-        @Nullable Set<Integer> matchingHeads
+        @Nullable Predicate<Integer> matchesAnyHead
     ) {
         boolean matchesAllDetails = ContainerUtil.and(detailsFilters, filter -> filter.matches(commit));
-        return matchesAllDetails && matchesAnyHead(permanentGraph, commit, matchingHeads);
-    }
-
-    private boolean matchesAnyHead(
-        PermanentGraph<Integer> permanentGraph,
-        VcsCommitMetadata commit,
-        @Nullable Set<Integer> matchingHeads
-    ) {
-        if (matchingHeads == null) {
-            return true;
-        }
-        // TODO O(n^2)
-        int commitIndex = myHashMap.getCommitIndex(commit.getId(), commit.getRoot());
-        return ContainerUtil.intersects(permanentGraph.getContainingBranches(commitIndex), matchingHeads);
+        return matchesAllDetails && (matchesAnyHead == null || matchesAnyHead.test(myHashMap.getCommitIndex(commit.getId(), commit.getRoot())));
     }
 
     private @Nullable VcsCommitMetadata getDetailsFromCache(int commitIndex) {
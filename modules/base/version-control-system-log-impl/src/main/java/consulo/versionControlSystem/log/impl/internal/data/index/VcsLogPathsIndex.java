@@ -21,6 +21,7 @@ import consulo.index.io.data.DataExternalizer;
 import consulo.index.io.data.IOUtil;
 import consulo.logging.Logger;
 import consulo.platform.Platform;
+import consulo.util.collection.SLRUMap;
 import consulo.util.collection.Sets;
 import consulo.util.collection.primitive.ints.IntSet;
 import consulo.util.collection.primitive.ints.IntSets;
@@ -32,6 +33,7 @@ import consulo.versionControlSystem.change.Change;
 import consulo.versionControlSystem.log.VcsFullCommitDetails;
 import consulo.versionControlSystem.log.base.VcsChangesLazilyParsedDetails;
 import consulo.versionControlSystem.log.impl.internal.FatalErrorHandler;
+import consulo.versionControlSystem.log.impl.internal.util.IntBitmap;
 import consulo.versionControlSystem.log.impl.internal.util.PersistentUtil;
 import consulo.virtualFileSystem.VirtualFile;
 
@@ -46,10 +48,22 @@ public class VcsLogPathsIndex extends VcsLogFullDetailsIndex<Integer> {
   private static final Logger LOG = Logger.getInstance(VcsLogPathsIndex.class);
   public static final String PATHS = "paths";
   public static final String INDEX_PATHS_IDS = "paths-ids";
+  private static final int PATH_COMMITS_CACHE_SIZE = 64;
 
   
   private final PathsIndexer myPathsIndexer;
 
+  // commits of recently queried paths, cleared on every update, guarded by itself
+  private final SLRUMap<Integer, PathCommits> myPathCommitsCache = new SLRUMap<>(PATH_COMMITS_CACHE_SIZE, PATH_COMMITS_CACHE_SIZE);
+  // incremented on every update, so commits read from the index before the update are not cached after it; guarded by myPathCommitsCache
+  private long myPathCommitsModCount;
+
+  /**
+   * Commits which changed a path, and the ids of the paths it was renamed from or to.
+   */
+  private record PathCommits(IntBitmap commits, int[] renames) {
+  }
+
   public VcsLogPathsIndex(String logId,
                           Set<VirtualFile> roots,
                           FatalErrorHandler fatalErrorHandler,
@@ -79,14 +93,23 @@ public class VcsLogPathsIndex extends VcsLogFullDetailsIndex<Integer> {
     myPathsIndexer.getPathsEnumerator().force();
   }
 
-  public IntSet getCommitsForPaths(Collection<FilePath> paths) throws IOException, StorageException {
-    Set<Integer> allPathIds = new HashSet<>();
+  @Override
+  public void update(int commitId, VcsFullCommitDetails details) throws IOException {
+    super.update(commitId, details);
+    synchronized (myPathCommitsCache) {
+      myPathCommitsCache.clear();
+      myPathCommitsModCount++;
+    }
+  }
+
+  public IntBitmap getCommitsForPaths(Collection<FilePath> paths) throws IOException, StorageException {
+    IntSet allPathIds = IntSets.newHashSet();
     for (FilePath path : paths) {
       allPathIds.add(myPathsIndexer.myPathsEnumerator.enumerate(path.getPath()));
     }
 
-    IntSet result = IntSets.newHashSet();
-    Set<Integer> renames = allPathIds;
+    IntBitmap result = new IntBitmap();
+    IntSet renames = allPathIds;
     while (!renames.isEmpty()) {
       renames = addCommitsAndGetRenames(renames, allPathIds, result);
       allPathIds.addAll(renames);
@@ -95,24 +118,49 @@ public class VcsLogPathsIndex extends VcsLogFullDetailsIndex<Integer> {
     return result;
   }
 
-  
-  public Set<Integer> addCommitsAndGetRenames(
-    Set<Integer> newPathIds,
-    Set<Integer> allPathIds,
-    IntSet commits
-  ) throws StorageException {
-    Set<Integer> renames = new HashSet<>();
-    for (Integer key : newPathIds) {
-      iterateCommitIdsAndValues(key, (value, commit) -> {
-        commits.add(commit);
-        if (value != null && !allPathIds.contains(value)) {
-          renames.add(value);
+  private IntSet addCommitsAndGetRenames(IntSet newPathIds, IntSet allPathIds, IntBitmap commits) throws StorageException {
+    IntSet renames = IntSets.newHashSet();
+    PrimitiveIterator.OfInt iterator = newPathIds.iterator();
+    while (iterator.hasNext()) {
+      PathCommits pathCommits = getPathCommits(iterator.nextInt());
+      commits.or(pathCommits.commits);
+      for (int rename : pathCommits.renames) {
+        if (!allPathIds.contains(rename)) {
+          renames.add(rename);
         }
-      });
+      }
     }
     return renames;
   }
 
+  private PathCommits getPathCommits(int pathId) throws StorageException {
+    long modCount;
+    synchronized (myPathCommitsCache) {
+      PathCommits pathCommits = myPathCommitsCache.get(pathId);
+      if (pathCommits != null) {
+        return pathCommits;
+      }
+      modCount = myPathCommitsModCount;
+    }
+
+    IntBitmap commits = new IntBitmap();
+    IntSet renames = IntSets.newHashSet();
+    iterateCommitIdsAndValues(pathId, (value, commit) -> {
+      commits.add(commit);
+      if (value != null) {
+        renames.add(value);
+      }
+    });
+    PathCommits pathCommits = new PathCommits(commits, renames.toArray());
+
+    synchronized (myPathCommitsCache) {
+      if (modCount == myPathCommitsModCount) {
+        myPathCommitsCache.put(pathId, pathCommits);
+      }
+    }
+    return pathCommits;
+  }
+
   @Override
   public void dispose() {
     super.dispose();
@@ -15,6 +15,7 @@
  */
 package consulo.versionControlSystem.log.impl.internal.data.index;
 
+import consulo.application.concurrent.ApplicationConcurrency;
 import consulo.application.progress.PerformInBackgroundOption;
 import consulo.application.progress.ProgressIndicator;
 import consulo.application.progress.ProgressManager;
@@ -39,6 +40,7 @@ import consulo.versionControlSystem.log.impl.internal.data.VcsLogProgress;
 import consulo.versionControlSystem.log.impl.internal.data.VcsLogStorageImpl;
 import consulo.versionControlSystem.log.impl.internal.data.VcsUserRegistryImpl;
 import consulo.versionControlSystem.log.impl.internal.ui.filter.VcsLogTextFilterImpl;
+import consulo.versionControlSystem.log.impl.internal.util.IntBitmap;
 import consulo.versionControlSystem.log.impl.internal.util.PersistentSet;
 import consulo.versionControlSystem.log.impl.internal.util.PersistentSetImpl;
 import consulo.versionControlSystem.log.impl.internal.util.TroveUtil;
@@ -50,7 +52,9 @@ import org.jspecify.annotations.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
@@ -86,6 +90,9 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
     
     private Map<VirtualFile, TIntHashSet> myCommitsToIndex = new HashMap<>();
 
+    private final ExecutorService myReadExecutor;
+    private final ExecutorService myWriteExecutor;
+
     public VcsLogPersistentIndex(
         Project project,
         VcsLogStorage hashMap,
@@ -115,6 +122,12 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
             myNumberOfTasks.put(root, new AtomicInteger());
         }
 
+        ApplicationConcurrency concurrency = project.getApplication().getInstance(ApplicationConcurrency.class);
+        int readers = Math.max(1, Math.min(myRoots.size(), Runtime.getRuntime().availableProcessors() / 2));
+        myReadExecutor = concurrency.createBoundedApplicationPoolExecutor("VcsLogPersistentIndex Reader", concurrency.executor(), readers);
+        // one thread per index stage: messages, users and paths
+        myWriteExecutor = concurrency.createBoundedApplicationPoolExecutor("VcsLogPersistentIndex Writer", concurrency.executor(), 3);
+
         Disposer.register(disposableParent, this);
     }
 
@@ -150,25 +163,6 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
         mySingleTaskController.request(new IndexingRequest(commitsToIndex, full));
     }
 
-    private void storeDetail(VcsFullCommitDetails detail) {
-        if (myIndexStorage == null) {
-            return;
-        }
-        try {
-            int index = myHashMap.getCommitIndex(detail.getId(), detail.getRoot());
-
-            myIndexStorage.messages.put(index, detail.getFullMessage());
-            myIndexStorage.trigrams.update(index, detail);
-            myIndexStorage.users.update(index, detail);
-            myIndexStorage.paths.update(index, detail);
-
-            myIndexStorage.commits.put(index);
-        }
-        catch (IOException e) {
-            myFatalErrorsConsumer.consume(this, e);
-        }
-    }
-
     private void flush() {
         try {
             if (myIndexStorage != null) {
@@ -208,16 +202,19 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
     }
 
     @Override
-    public synchronized void markForIndexing(int index, VirtualFile root) {
-        if (isIndexed(index) || !myRoots.contains(root)) {
+    public void markForIndexing(int index, VirtualFile root) {
+        // storage lookup is done outside of the lock, so that readers of the other roots are not blocked on it
+        if (!myRoots.contains(root) || isIndexed(index)) {
             return;
         }
-        TIntHashSet set = myCommitsToIndex.get(root);
-        if (set == null) {
-            set = new TIntHashSet();
-            myCommitsToIndex.put(root, set);
+        synchronized (this) {
+            TIntHashSet set = myCommitsToIndex.get(root);
+            if (set == null) {
+                set = new TIntHashSet();
+                myCommitsToIndex.put(root, set);
+            }
+            set.add(index);
         }
-        set.add(index);
     }
 
     
@@ -271,7 +268,7 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
     }
 
     
-    private IntSet filterPaths(Collection<FilePath> paths) {
+    private IntBitmap filterPaths(Collection<FilePath> paths) {
         if (myIndexStorage != null) {
             try {
                 return myIndexStorage.paths.getCommitsForPaths(paths);
@@ -283,7 +280,7 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
                 processRuntimeException(e);
             }
         }
-        return IntSets.newHashSet();
+        return new IntBitmap();
     }
 
     
@@ -379,12 +376,12 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
             filteredByUser = filterUsers(users);
         }
 
-        IntSet filteredByPath = null;
+        IntBitmap filteredByPath = null;
         if (pathFilter != null) {
             filteredByPath = filterPaths(pathFilter.getFiles());
         }
 
-        return TroveUtil.intersect(filteredByMessage, filteredByPath, filteredByUser);
+        return TroveUtil.intersect(filteredByPath, filteredByMessage, filteredByUser);
     }
 
     @Override
@@ -530,9 +527,17 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
         }
     }
 
+    /**
+     * Indexing pipeline: details are read from all roots concurrently by {@link #myReadExecutor} and passed in batches
+     * through a bounded queue to the indexing thread, which writes every batch to the messages, users and paths indices
+     * in parallel stages. At most {@link #QUEUED_BATCHES} batches wait in the queue, so memory usage doesn't depend
+     * on the number of commits.
+     */
     private class IndexingRequest {
         private static final int MAGIC_NUMBER = 150000;
         private static final int BATCH_SIZE = 1000;
+        private static final int QUEUED_BATCHES = 4;
+        private static final long POLL_TIMEOUT_MS = 100;
         private final Map<VirtualFile, TIntHashSet> myCommits;
         private final boolean myFull;
 
@@ -548,75 +553,194 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
             long time = System.currentTimeMillis();
 
             CommitsCounter counter = new CommitsCounter(indicator, myCommits.values().stream().mapToInt(TIntHashSet::size).sum());
-            LOG.debug("Indexing " + counter.allCommits + " commits");
+            LOG.debug("Indexing " + counter.allCommits + " commits from " + myCommits.size() + " roots");
 
-            for (VirtualFile root : myCommits.keySet()) {
-                try {
-                    if (myFull) {
-                        indexAll(root, myCommits.get(root), counter);
-                    }
-                    else {
-                        indexOneByOne(root, myCommits.get(root), counter);
-                    }
+            BlockingQueue<List<VcsFullCommitDetails>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+            CountDownLatch readersDone = new CountDownLatch(myCommits.size());
+            try {
+                for (VirtualFile root : myCommits.keySet()) {
+                    myReadExecutor.execute(() -> {
+                        try {
+                            ProgressManager.getInstance().executeProcessUnderProgress(() -> {
+                                BatchCollector collector = new BatchCollector(queue, indicator);
+                                if (myFull) {
+                                    indexAll(root, myCommits.get(root), counter, collector);
+                                }
+                                else {
+                                    indexOneByOne(root, myCommits.get(root), counter, collector);
+                                }
+                                collector.flush();
+                            }, indicator);
+                        }
+                        catch (ProcessCanceledException ignored) {
+                        }
+                        catch (Throwable t) {
+                            LOG.error("Error while reading commit details for " + root, t);
+                        }
+                        finally {
+                            readersDone.countDown();
+                        }
+                    });
                 }
-                finally {
+
+                writeBatches(queue, readersDone, counter);
+                flush();
+            }
+            finally {
+                for (VirtualFile root : myCommits.keySet()) {
                     myNumberOfTasks.get(root).decrementAndGet();
                 }
             }
 
-            LOG.debug(StopWatch.formatTime(System.currentTimeMillis() - time) +
+            long totalTime = System.currentTimeMillis() - time;
+            LOG.debug(StopWatch.formatTime(totalTime) +
                 " for indexing " +
-                counter.newIndexedCommits +
+                counter.newIndexedCommits.get() +
                 " new commits out of " +
-                counter.allCommits);
-            int leftCommits = counter.allCommits - counter.newIndexedCommits - counter.oldCommits;
+                counter.allCommits +
+                " (" + counter.newIndexedCommits.get() * 1000L / Math.max(totalTime, 1) + " commits/s; " +
+                "messages " + StopWatch.formatTime(TimeUnit.NANOSECONDS.toMillis(counter.messagesTime.get())) + ", " +
+                "users " + StopWatch.formatTime(TimeUnit.NANOSECONDS.toMillis(counter.usersTime.get())) + ", " +
+                "paths " + StopWatch.formatTime(TimeUnit.NANOSECONDS.toMillis(counter.pathsTime.get())) + ")");
+            int leftCommits = counter.allCommits - counter.newIndexedCommits.get() - counter.oldCommits.get();
             if (leftCommits > 0) {
                 LOG.warn("Did not index " + leftCommits + " commits");
             }
         }
 
+        private void writeBatches(
+            BlockingQueue<List<VcsFullCommitDetails>> queue,
+            CountDownLatch readersDone,
+            CommitsCounter counter
+        ) {
+            try {
+                while (true) {
+                    counter.indicator.checkCanceled();
+                    List<VcsFullCommitDetails> batch = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (batch != null) {
+                        writeBatch(batch, counter);
+                        counter.newIndexedCommits.addAndGet(batch.size());
+                        counter.displayProgress();
+                    }
+                    else if (readersDone.getCount() == 0 && queue.isEmpty()) {
+                        return;
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                throw new ProcessCanceledException(e);
+            }
+        }
+
+        private void writeBatch(List<VcsFullCommitDetails> batch, CommitsCounter counter) throws InterruptedException {
+            if (myIndexStorage == null) {
+                return;
+            }
+            try {
+                int[] indices = new int[batch.size()];
+                for (int i = 0; i < indices.length; i++) {
+                    VcsFullCommitDetails detail = batch.get(i);
+                    indices[i] = myHashMap.getCommitIndex(detail.getId(), detail.getRoot());
+                }
+
+                // every index is written by a single stage at a time, the stages of a batch run in parallel
+                Future<?> messages = myWriteExecutor.submit(timed(counter.messagesTime, () -> {
+                    for (int i = 0; i < indices.length; i++) {
+                        myIndexStorage.messages.put(indices[i], batch.get(i).getFullMessage());
+                        myIndexStorage.trigrams.update(indices[i], batch.get(i));
+                    }
+                }));
+                Future<?> users = myWriteExecutor.submit(timed(counter.usersTime, () -> {
+                    for (int i = 0; i < indices.length; i++) {
+                        myIndexStorage.users.update(indices[i], batch.get(i));
+                    }
+                }));
+                Future<?> paths = myWriteExecutor.submit(timed(counter.pathsTime, () -> {
+                    for (int i = 0; i < indices.length; i++) {
+                        myIndexStorage.paths.update(indices[i], batch.get(i));
+                    }
+                }));
+                boolean written = waitForStage(messages) & waitForStage(users) & waitForStage(paths);
+                if (!written) {
+                    return;
+                }
+
+                // mark commits as indexed only when all indices have them
+                for (int index : indices) {
+                    myIndexStorage.commits.put(index);
+                }
+            }
+            catch (IOException e) {
+                myFatalErrorsConsumer.consume(VcsLogPersistentIndex.this, e);
+            }
+        }
+
+        private boolean waitForStage(Future<?> stage) throws InterruptedException {
+            try {
+                stage.get();
+                return true;
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    myFatalErrorsConsumer.consume(VcsLogPersistentIndex.this, ioException);
+                }
+                else {
+                    LOG.error("Error while indexing", e.getCause());
+                }
+                return false;
+            }
+        }
+
+        private Callable<Void> timed(AtomicLong time, ThrowableRunnable<IOException> stage) {
+            return () -> {
+                long start = System.nanoTime();
+                try {
+                    stage.run();
+                }
+                finally {
+                    time.addAndGet(System.nanoTime() - start);
+                }
+                return null;
+            };
+        }
+
         private void indexOneByOne(
             VirtualFile root,
             TIntHashSet commitsSet,
-            CommitsCounter counter
+            CommitsCounter counter,
+            BatchCollector collector
         ) {
             IntStream commits = TroveUtil.stream(commitsSet).filter(c -> {
                 if (isIndexed(c)) {
-                    counter.oldCommits++;
+                    counter.oldCommits.incrementAndGet();
                     return false;
                 }
                 return true;
             });
 
-            indexOneByOne(root, counter, commits);
+            indexOneByOne(root, counter, commits, collector);
         }
 
         private void indexOneByOne(
             VirtualFile root,
             CommitsCounter counter,
-            IntStream commits
+            IntStream commits,
+            BatchCollector collector
         ) {
             // We pass hashes to VcsLogProvider#readFullDetails in batches
             // in order to avoid allocating too much memory for these hashes
             // (we have up to 150K commits here that will occupy up to 18Mb as Strings).
             TroveUtil.processBatches(commits, BATCH_SIZE, batch -> {
                 counter.indicator.checkCanceled();
-
-                if (indexOneByOne(root, batch)) {
-                    counter.newIndexedCommits += batch.size();
-                }
-
-                counter.displayProgress();
+                indexOneByOne(root, batch, collector);
             });
-
-            flush();
         }
 
-        private boolean indexOneByOne(VirtualFile root, TIntHashSet commits) {
+        private void indexOneByOne(VirtualFile root, TIntHashSet commits, BatchCollector collector) {
             VcsLogProvider provider = myProviders.get(root);
             try {
                 List<String> hashes = TroveUtil.map(commits, value -> myHashMap.getCommitId(value).getHash().asString());
-                provider.readFullDetails(root, hashes, VcsLogPersistentIndex.this::storeDetail);
+                provider.readFullDetails(root, hashes, collector::add);
             }
             catch (VcsException e) {
                 LOG.error(e);
@@ -624,20 +748,19 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
                     markForIndexing(value, root);
                     return true;
                 });
-                return false;
             }
-            return true;
         }
 
         public void indexAll(
             VirtualFile root,
             TIntHashSet commitsSet,
-            CommitsCounter counter
+            CommitsCounter counter,
+            BatchCollector collector
         ) {
             TIntHashSet notIndexed = new TIntHashSet();
             TroveUtil.stream(commitsSet).forEach(c -> {
                 if (isIndexed(c)) {
-                    counter.oldCommits++;
+                    counter.oldCommits.incrementAndGet();
                 }
                 else {
                     notIndexed.add(c);
@@ -646,19 +769,17 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
             counter.displayProgress();
 
             if (notIndexed.size() <= MAGIC_NUMBER) {
-                indexOneByOne(root, counter, TroveUtil.stream(notIndexed));
+                indexOneByOne(root, counter, TroveUtil.stream(notIndexed), collector);
             }
             else {
                 try {
                     myProviders.get(root).readAllFullDetails(root, details -> {
                         int index = myHashMap.getCommitIndex(details.getId(), details.getRoot());
                         if (notIndexed.contains(index)) {
-                            storeDetail(details);
-                            counter.newIndexedCommits++;
+                            collector.add(details);
                         }
 
                         counter.indicator.checkCanceled();
-                        counter.displayProgress();
                     });
                 }
                 catch (VcsException e) {
@@ -669,8 +790,43 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
                     });
                 }
             }
+        }
+    }
+
+    /**
+     * Collects details read from a single root into batches and hands them over to the indexing thread,
+     * blocking the reader while the queue is full.
+     */
+    private static class BatchCollector {
+        private final BlockingQueue<List<VcsFullCommitDetails>> myQueue;
+        private final ProgressIndicator myIndicator;
+        private List<VcsFullCommitDetails> myBatch = new ArrayList<>(IndexingRequest.BATCH_SIZE);
+
+        private BatchCollector(BlockingQueue<List<VcsFullCommitDetails>> queue, ProgressIndicator indicator) {
+            myQueue = queue;
+            myIndicator = indicator;
+        }
+
+        public void add(VcsFullCommitDetails details) {
+            myBatch.add(details);
+            if (myBatch.size() >= IndexingRequest.BATCH_SIZE) {
+                flush();
+            }
+        }
 
-            flush();
+        public void flush() {
+            if (myBatch.isEmpty()) {
+                return;
+            }
+            try {
+                while (!myQueue.offer(myBatch, IndexingRequest.POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    myIndicator.checkCanceled();
+                }
+            }
+            catch (InterruptedException e) {
+                throw new ProcessCanceledException(e);
+            }
+            myBatch = new ArrayList<>(IndexingRequest.BATCH_SIZE);
         }
     }
 
@@ -678,8 +834,11 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
         
         public final ProgressIndicator indicator;
         public final int allCommits;
-        public volatile int newIndexedCommits;
-        public volatile int oldCommits;
+        public final AtomicInteger newIndexedCommits = new AtomicInteger();
+        public final AtomicInteger oldCommits = new AtomicInteger();
+        public final AtomicLong messagesTime = new AtomicLong();
+        public final AtomicLong usersTime = new AtomicLong();
+        public final AtomicLong pathsTime = new AtomicLong();
 
         private CommitsCounter(ProgressIndicator indicator, int commits) {
             this.indicator = indicator;
@@ -687,7 +846,7 @@ public class VcsLogPersistentIndex implements VcsLogIndex, Disposable {
         }
 
         public void displayProgress() {
-            indicator.setFraction(((double)newIndexedCommits + oldCommits) / allCommits);
+            indicator.setFraction(((double)newIndexedCommits.get() + oldCommits.get()) / allCommits);
         }
     }
 }
@@ -0,0 +1,154 @@
+package consulo.versionControlSystem.log.impl.internal.graph;
+
+import consulo.versionControlSystem.log.graph.LiteLinearGraph;
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * For every node of the permanent graph keeps the set of branch heads it is reachable from,
+ * so "contained in branches" queries don't walk the graph.
+ * <p>
+ * Node indices of the permanent graph are topologically sorted (children are above their parents), so the index is built
+ * in a single pass: the branches of a node are the union of the branches of its children.
+ * Most nodes share their set with a neighbour, so every distinct set is stored once and nodes keep only its id.
+ * The graph is immutable and is recreated on every refresh together with its branches, so the index is built once per graph.
+ *
+ * @since 2026-10-19
+ */
+class BranchReachabilityIndex {
+    private static final int EMPTY_SET = 0;
+
+    // bit number -> branch node id
+    private final int[] myBranchNodes;
+    private final Map<Integer, Integer> myBranchBits = new HashMap<>();
+    // node -> id of its set in mySets
+    private final int[] myNodeSets;
+    private final List<long[]> mySets = new ArrayList<>();
+
+    BranchReachabilityIndex(LiteLinearGraph graph, Collection<Integer> branchNodeIds) {
+        myBranchNodes = branchNodeIds.stream().filter(node -> node >= 0 && node < graph.nodesCount()).mapToInt(Integer::intValue).sorted().toArray();
+        for (int bit = 0; bit < myBranchNodes.length; bit++) {
+            myBranchBits.put(myBranchNodes[bit], bit);
+        }
+
+        int words = (myBranchNodes.length + Long.SIZE - 1) / Long.SIZE;
+        Map<SetKey, Integer> setIds = new HashMap<>();
+        Map<Long, Integer> unions = new HashMap<>();
+        intern(new long[words], setIds);
+
+        myNodeSets = new int[graph.nodesCount()];
+        for (int node = 0; node < myNodeSets.length; node++) {
+            int setId = EMPTY_SET;
+            for (int child : graph.getNodes(node, LiteLinearGraph.NodeFilter.UP)) {
+                setId = union(setId, myNodeSets[child], setIds, unions);
+            }
+
+            Integer bit = myBranchBits.get(node);
+            if (bit != null && !contains(mySets.get(setId), bit)) {
+                long[] set = mySets.get(setId).clone();
+                set[bit / Long.SIZE] |= 1L << bit;
+                setId = intern(set, setIds);
+            }
+            myNodeSets[node] = setId;
+        }
+    }
+
+    /**
+     * @return node ids of the branch heads the node is reachable from
+     */
+    Set<Integer> getContainingBranches(int node) {
+        Set<Integer> result = new HashSet<>();
+        if (node < 0 || node >= myNodeSets.length) {
+            return result;
+        }
+        long[] set = mySets.get(myNodeSets[node]);
+        for (int word = 0; word < set.length; word++) {
+            long bits = set[word];
+            while (bits != 0) {
+                result.add(myBranchNodes[word * Long.SIZE + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return mask to test nodes with {@link #isReachable}, or {@code null} if one of the heads is not a branch head known to the index
+     */
+    long @Nullable [] createMask(Collection<Integer> heads) {
+        long[] mask = new long[(myBranchNodes.length + Long.SIZE - 1) / Long.SIZE];
+        for (Integer head : heads) {
+            Integer bit = myBranchBits.get(head);
+            if (bit == null) {
+                return null;
+            }
+            mask[bit / Long.SIZE] |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /**
+     * @return true if the node is reachable from one of the heads of the mask
+     */
+    boolean isReachable(int node, long[] mask) {
+        if (node < 0 || node >= myNodeSets.length) {
+            return false;
+        }
+        long[] set = mySets.get(myNodeSets[node]);
+        for (int word = 0; word < set.length; word++) {
+            if ((set[word] & mask[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int union(int setId1, int setId2, Map<SetKey, Integer> setIds, Map<Long, Integer> unions) {
+        if (setId1 == setId2 || setId2 == EMPTY_SET) {
+            return setId1;
+        }
+        if (setId1 == EMPTY_SET) {
+            return setId2;
+        }
+
+        long key = (long)Math.min(setId1, setId2) << 32 | Math.max(setId1, setId2);
+        Integer cached = unions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long[] set1 = mySets.get(setId1);
+        long[] set2 = mySets.get(setId2);
+        long[] union = new long[set1.length];
+        for (int word = 0; word < union.length; word++) {
+            union[word] = set1[word] | set2[word];
+        }
+        int result = intern(union, setIds);
+        unions.put(key, result);
+        return result;
+    }
+
+    private int intern(long[] set, Map<SetKey, Integer> setIds) {
+        return setIds.computeIfAbsent(new SetKey(set), key -> {
+            mySets.add(set);
+            return mySets.size() - 1;
+        });
+    }
+
+    private static boolean contains(long[] set, int bit) {
+        return (set[bit / Long.SIZE] & 1L << bit) != 0;
+    }
+
+    private record SetKey(long[] words) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SetKey key && Arrays.equals(words, key.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(words);
+        }
+    }
+}
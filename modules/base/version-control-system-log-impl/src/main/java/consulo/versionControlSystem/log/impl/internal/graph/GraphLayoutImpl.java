@@ -31,7 +31,11 @@ public class GraphLayoutImpl implements GraphLayout {
   private final int[] myStartLayoutIndexForHead;
 
   public GraphLayoutImpl(int[] layoutIndex, List<Integer> headNodeIndex, int[] startLayoutIndexForHead) {
-    myLayoutIndex = CompressedIntList.newInstance(layoutIndex);
+    this(CompressedIntList.newInstance(layoutIndex), headNodeIndex, startLayoutIndexForHead);
+  }
+
+  public GraphLayoutImpl(IntList layoutIndex, List<Integer> headNodeIndex, int[] startLayoutIndexForHead) {
+    myLayoutIndex = layoutIndex;
     myHeadNodeIndex = headNodeIndex;
     myStartLayoutIndexForHead = startLayoutIndexForHead;
   }
@@ -55,6 +59,10 @@ public class GraphLayoutImpl implements GraphLayout {
     return myHeadNodeIndex;
   }
 
+  public int getStartLayoutIndex(int headOrder) {
+    return myStartLayoutIndexForHead[headOrder];
+  }
+
   private int getHeadOrder(int layoutIndex) {
     int a = 0;
     int b = myStartLayoutIndexForHead.length - 1;
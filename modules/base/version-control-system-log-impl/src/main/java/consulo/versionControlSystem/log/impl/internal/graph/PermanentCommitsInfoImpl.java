@@ -23,6 +23,7 @@ import consulo.versionControlSystem.log.graph.PermanentCommitsInfo;
 import consulo.versionControlSystem.log.graph.TimestampGetter;
 import consulo.versionControlSystem.log.impl.internal.util.CompressedIntList;
 import consulo.versionControlSystem.log.impl.internal.util.IntList;
+import org.jspecify.annotations.Nullable;
 
 import java.util.*;
 
@@ -99,6 +100,9 @@ public class PermanentCommitsInfoImpl<CommitId> implements PermanentCommitsInfo<
   
   private final Map<Integer, CommitId> myNotLoadCommits;
 
+  // (commit id << 32 | node id) sorted, built on the first lookup of an integer commit id
+  private volatile long @Nullable [] mySortedIntCommitIds;
+
   public PermanentCommitsInfoImpl(TimestampGetter timestampGetter,
                                   List<CommitId> commitIdIndex,
                                   Map<Integer, CommitId> notLoadCommits) {
@@ -125,15 +129,49 @@ public class PermanentCommitsInfoImpl<CommitId> implements PermanentCommitsInfo<
     return myTimestampGetter;
   }
 
-  // todo optimize with special map
   @Override
   public int getNodeId(CommitId commitId) {
-    int indexOf = myCommitIdIndexes.indexOf(commitId);
+    int indexOf;
+    if (commitId instanceof Integer intId && !myCommitIdIndexes.isEmpty() && myCommitIdIndexes.get(0) instanceof Integer) {
+      indexOf = getIntNodeId(intId);
+    }
+    else {
+      indexOf = myCommitIdIndexes.indexOf(commitId);
+    }
     if (indexOf != -1) return indexOf;
 
     return getNotLoadNodeId(commitId);
   }
 
+  private int getIntNodeId(int commitId) {
+    long[] sorted = mySortedIntCommitIds;
+    if (sorted == null) {
+      sorted = new long[myCommitIdIndexes.size()];
+      for (int i = 0; i < sorted.length; i++) {
+        sorted[i] = (long)(Integer)myCommitIdIndexes.get(i) << 32 | i;
+      }
+      Arrays.sort(sorted);
+      mySortedIntCommitIds = sorted;
+    }
+
+    int low = 0;
+    int high = sorted.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int middleId = (int)(sorted[middle] >> 32);
+      if (middleId < commitId) {
+        low = middle + 1;
+      }
+      else if (middleId > commitId) {
+        high = middle - 1;
+      }
+      else {
+        return (int)sorted[middle];
+      }
+    }
+    return -1;
+  }
+
   private int getNotLoadNodeId(CommitId commitId) {
     for (Map.Entry<Integer, CommitId> entry : myNotLoadCommits.entrySet()) {
       if (entry.getValue().equals(commitId)) return entry.getKey();
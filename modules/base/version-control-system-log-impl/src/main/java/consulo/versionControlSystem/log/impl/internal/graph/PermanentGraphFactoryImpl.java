@@ -22,6 +22,7 @@ import consulo.versionControlSystem.log.graph.PermanentGraph;
 import consulo.versionControlSystem.log.graph.PermanentGraphFactory;
 import jakarta.inject.Singleton;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +59,24 @@ public class PermanentGraphFactoryImpl implements PermanentGraphFactory {
     public <CommitId> PermanentGraph<CommitId> newInstance(List<? extends GraphCommit<CommitId>> graphCommits,
                                                            GraphColorManager<CommitId> graphColorManager,
                                                            Set<CommitId> branchesCommitId) {
+        boolean persistent = PermanentGraphStorage.isApplicable(graphCommits);
+        PermanentGraphStorage.Fingerprint fingerprint = persistent ? PermanentGraphStorage.fingerprint(graphCommits) : null;
+        if (persistent) {
+            PermanentGraphStorage.Loaded loaded = PermanentGraphStorage.load(fingerprint, graphCommits.size());
+            if (loaded != null) {
+                @SuppressWarnings("unchecked")
+                Map<Integer, CommitId> notLoadedCommits = (Map<Integer, CommitId>)(Map<Integer, ?>)loaded.getNotLoadedCommits();
+                PermanentCommitsInfoImpl<CommitId> commitsInfo = PermanentCommitsInfoImpl.newInstance(graphCommits, notLoadedCommits);
+
+                Comparator<Integer> headComparator = createHeadComparator(commitsInfo, graphColorManager);
+                GraphLayoutImpl layout = loaded.getLayout(headComparator);
+                if (layout == null) {
+                    layout = GraphLayoutBuilder.build(loaded.getGraph(), headComparator);
+                }
+                return new PermanentGraphImpl<>(loaded.getGraph(), layout, commitsInfo, graphColorManager, branchesCommitId);
+            }
+        }
+
         PermanentLinearGraphBuilder<CommitId> permanentLinearGraphBuilder = PermanentLinearGraphBuilder.newInstance(graphCommits);
         NotLoadedCommitsIdsGenerator<CommitId> idsGenerator = new NotLoadedCommitsIdsGenerator<>();
         PermanentLinearGraphImpl linearGraph = permanentLinearGraphBuilder.build(idsGenerator);
@@ -65,11 +84,12 @@ public class PermanentGraphFactoryImpl implements PermanentGraphFactory {
         PermanentCommitsInfoImpl<CommitId> commitIdPermanentCommitsInfo =
             PermanentCommitsInfoImpl.newInstance(graphCommits, idsGenerator.getNotLoadedCommits());
 
-        GraphLayoutImpl permanentGraphLayout = GraphLayoutBuilder.build(linearGraph, (nodeIndex1, nodeIndex2) -> {
-            CommitId commitId1 = commitIdPermanentCommitsInfo.getCommitId(nodeIndex1);
-            CommitId commitId2 = commitIdPermanentCommitsInfo.getCommitId(nodeIndex2);
-            return graphColorManager.compareHeads(commitId2, commitId1);
-        });
+        GraphLayoutImpl permanentGraphLayout =
+            GraphLayoutBuilder.build(linearGraph, createHeadComparator(commitIdPermanentCommitsInfo, graphColorManager));
+
+        if (persistent) {
+            PermanentGraphStorage.save(fingerprint, permanentLinearGraphBuilder, idsGenerator.getNotLoadedCommits(), permanentGraphLayout);
+        }
 
         return new PermanentGraphImpl<>(
             linearGraph,
@@ -79,4 +99,15 @@ public class PermanentGraphFactoryImpl implements PermanentGraphFactory {
             branchesCommitId
         );
     }
+
+    private static <CommitId> Comparator<Integer> createHeadComparator(
+        PermanentCommitsInfoImpl<CommitId> commitsInfo,
+        GraphColorManager<CommitId> graphColorManager
+    ) {
+        return (nodeIndex1, nodeIndex2) -> {
+            CommitId commitId1 = commitsInfo.getCommitId(nodeIndex1);
+            CommitId commitId2 = commitsInfo.getCommitId(nodeIndex2);
+            return graphColorManager.compareHeads(commitId2, commitId1);
+        };
+    }
 }
@@ -17,25 +17,25 @@
 package consulo.versionControlSystem.log.impl.internal.graph;
 
 import consulo.util.collection.ContainerUtil;
-import consulo.util.collection.primitive.ints.IntSet;
-import consulo.util.collection.primitive.ints.IntSets;
 import consulo.util.lang.lazy.LazyValue;
 import consulo.versionControlSystem.log.graph.*;
 import consulo.versionControlSystem.log.impl.internal.graph.bek.BekBaseController;
 import consulo.versionControlSystem.log.impl.internal.graph.bek.BekIntMap;
 import consulo.versionControlSystem.log.impl.internal.graph.bek.BekSorter;
 import consulo.versionControlSystem.log.impl.internal.graph.bek.LinearBekController;
+import consulo.versionControlSystem.log.impl.internal.util.IntBitmap;
 import org.jspecify.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class PermanentGraphImpl<CommitId> implements PermanentGraph<CommitId>, PermanentGraphInfo<CommitId> {
     private static class IntContainedInBranchCondition<CommitId> implements Predicate<CommitId> {
-        private final IntSet myBranchNodes;
+        private final IntBitmap myBranchNodes;
 
-        public IntContainedInBranchCondition(IntSet branchNodes) {
+        public IntContainedInBranchCondition(IntBitmap branchNodes) {
             myBranchNodes = branchNodes;
         }
 
@@ -72,6 +72,8 @@ public class PermanentGraphImpl<CommitId> implements PermanentGraph<CommitId>, P
     private final ReachableNodes myReachableNodes;
     
     private final Supplier<BekIntMap> myBekIntMap;
+    
+    private final Supplier<BranchReachabilityIndex> myReachabilityIndex;
 
     public PermanentGraphImpl(
         PermanentLinearGraphImpl permanentLinearGraph,
@@ -91,6 +93,10 @@ public class PermanentGraphImpl<CommitId> implements PermanentGraph<CommitId>, P
             myPermanentGraphLayout,
             myPermanentCommitsInfo.getTimestampGetter()
         ));
+        myReachabilityIndex = LazyValue.notNull(() -> new BranchReachabilityIndex(
+            LinearGraphUtils.asLiteLinearGraph(myPermanentLinearGraph),
+            myBranchNodeIds
+        ));
     }
 
     
@@ -156,25 +162,44 @@ public class PermanentGraphImpl<CommitId> implements PermanentGraph<CommitId>, P
     @Override
     public Set<CommitId> getContainingBranches(CommitId commit) {
         int commitIndex = myPermanentCommitsInfo.getNodeId(commit);
-        return myPermanentCommitsInfo.convertToCommitIdSet(myReachableNodes.getContainingBranches(commitIndex, myBranchNodeIds));
+        return myPermanentCommitsInfo.convertToCommitIdSet(myReachabilityIndex.get().getContainingBranches(commitIndex));
     }
 
     
     @Override
     public Predicate<CommitId> getContainedInBranchCondition(Collection<CommitId> heads) {
         List<Integer> headIds = ContainerUtil.map(heads, myPermanentCommitsInfo::getNodeId);
+        Consumer<Consumer<Integer>> reachableNodes = walkReachableNodes(headIds);
         if (!heads.isEmpty() && ContainerUtil.getFirstItem(heads) instanceof Integer) {
-            IntSet branchNodes = IntSets.newHashSet();
-            myReachableNodes.walk(headIds, node -> branchNodes.add((Integer)myPermanentCommitsInfo.getCommitId(node)));
+            IntBitmap branchNodes = new IntBitmap();
+            reachableNodes.accept(node -> branchNodes.add((Integer)myPermanentCommitsInfo.getCommitId(node)));
             return new IntContainedInBranchCondition<>(branchNodes);
         }
         else {
             Set<CommitId> branchNodes = new HashSet<>();
-            myReachableNodes.walk(headIds, node -> branchNodes.add(myPermanentCommitsInfo.getCommitId(node)));
+            reachableNodes.accept(node -> branchNodes.add(myPermanentCommitsInfo.getCommitId(node)));
             return new ContainedInBranchCondition<>(branchNodes);
         }
     }
 
+    /**
+     * Heads which are all branch heads are looked up in the reachability index without walking the graph.
+     */
+    private Consumer<Consumer<Integer>> walkReachableNodes(List<Integer> headIds) {
+        BranchReachabilityIndex index = myReachabilityIndex.get();
+        long[] mask = index.createMask(headIds);
+        if (mask == null) {
+            return consumer -> myReachableNodes.walk(headIds, consumer);
+        }
+        return consumer -> {
+            for (int node = 0; node < myPermanentLinearGraph.nodesCount(); node++) {
+                if (index.isReachable(node, mask)) {
+                    consumer.accept(node);
+                }
+            }
+        };
+    }
+
     @Override
     
     public PermanentCommitsInfoImpl<CommitId> getPermanentCommitsInfo() {
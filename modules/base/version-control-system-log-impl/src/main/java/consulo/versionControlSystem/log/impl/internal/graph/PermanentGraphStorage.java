@@ -0,0 +1,355 @@
+package consulo.versionControlSystem.log.impl.internal.graph;
+
+import consulo.application.Application;
+import consulo.application.concurrent.ApplicationConcurrency;
+import consulo.component.ProcessCanceledException;
+import consulo.logging.Logger;
+import consulo.util.io.FileUtil;
+import consulo.versionControlSystem.log.graph.GraphCommit;
+import consulo.versionControlSystem.log.impl.internal.util.BitSetFlags;
+import consulo.versionControlSystem.log.impl.internal.util.Flags;
+import consulo.versionControlSystem.log.impl.internal.util.IntList;
+import consulo.versionControlSystem.log.impl.internal.util.MappedIntList;
+import consulo.versionControlSystem.log.impl.internal.util.PersistentUtil;
+import org.jspecify.annotations.Nullable;
+
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Memory mapped copy of the permanent linear graph and its layout, keyed by a fingerprint of the commit list.
+ * <p>
+ * When the log is opened with the same commits as before (e.g. after restart) the edges and the layout are mapped
+ * from disk instead of being rebuilt, and are read from the mapped file afterwards instead of occupying the heap.
+ * New commits change the index of every node below them, so in that case the graph is built as usual
+ * and written to a new file in background. Only a few most recently used files are kept.
+ * <p>
+ * The stored graph depends only on the commit ids and their parents, so the directory is shared by all logs.
+ * Files are keyed by two independent 64-bit hashes of the commits, which are checked together with the commit count on load.
+ * Every writer uses its own temporary file, so logs with the same commits may save the graph concurrently.
+ *
+ * @since 2026-10-19
+ */
+final class PermanentGraphStorage {
+    private static final Logger LOG = Logger.getInstance(PermanentGraphStorage.class);
+
+    private static final String EXTENSION = ".graph";
+    private static final int MAGIC = 0x4C4F4747;
+    private static final int VERSION = 2;
+    // magic, version, fingerprint (four ints), commits, edges, not loaded commits, heads
+    private static final int HEADER_INTS = 10;
+    private static final int MIN_COMMITS = 10_000;
+    private static final int MAX_FILES = 3;
+
+    record Fingerprint(long hash1, long hash2) {
+    }
+
+    static final class Loaded {
+        private final PermanentLinearGraphImpl myGraph;
+        private final Map<Integer, Integer> myNotLoadedCommits;
+        private final IntList myLayoutIndex;
+        private final List<Integer> myHeads;
+        private final int[] myStartLayoutIndexForHead;
+
+        private Loaded(
+            PermanentLinearGraphImpl graph,
+            Map<Integer, Integer> notLoadedCommits,
+            IntList layoutIndex,
+            List<Integer> heads,
+            int[] startLayoutIndexForHead
+        ) {
+            myGraph = graph;
+            myNotLoadedCommits = notLoadedCommits;
+            myLayoutIndex = layoutIndex;
+            myHeads = heads;
+            myStartLayoutIndexForHead = startLayoutIndexForHead;
+        }
+
+        PermanentLinearGraphImpl getGraph() {
+            return myGraph;
+        }
+
+        /**
+         * @return node id of a not loaded commit to the commit id
+         */
+        Map<Integer, Integer> getNotLoadedCommits() {
+            return myNotLoadedCommits;
+        }
+
+        /**
+         * @return stored layout if the heads are still ordered the same way, otherwise {@code null}
+         */
+        @Nullable
+        GraphLayoutImpl getLayout(Comparator<Integer> headNodeIndexComparator) {
+            try {
+                if (!myHeads.equals(myHeads.stream().sorted(headNodeIndexComparator).toList())) {
+                    return null;
+                }
+            }
+            catch (ProcessCanceledException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                // the layout will be built again, and the builder will report the comparator problem
+                return null;
+            }
+            return new GraphLayoutImpl(myLayoutIndex, myHeads, myStartLayoutIndexForHead);
+        }
+    }
+
+    private PermanentGraphStorage() {
+    }
+
+    static boolean isApplicable(List<? extends GraphCommit<?>> commits) {
+        return commits.size() >= MIN_COMMITS && commits.get(0).getId().getClass() == Integer.class;
+    }
+
+    /**
+     * 64-bit FNV-1a hash and an independent multiplicative hash of the commit ids and their parents.
+     */
+    static Fingerprint fingerprint(List<? extends GraphCommit<?>> commits) {
+        long hash1 = 0xcbf29ce484222325L;
+        long hash2 = 0x2545F4914F6CDD1DL;
+        int size = commits.size();
+        hash1 = fnv(hash1, size);
+        hash2 = multiply(hash2, size);
+        for (GraphCommit<?> commit : commits) {
+            int id = commit.getId().hashCode();
+            hash1 = fnv(hash1, id);
+            hash2 = multiply(hash2, id);
+            List<?> parents = commit.getParents();
+            hash1 = fnv(hash1, parents.size());
+            hash2 = multiply(hash2, parents.size());
+            for (Object parent : parents) {
+                int parentId = parent.hashCode();
+                hash1 = fnv(hash1, parentId);
+                hash2 = multiply(hash2, parentId);
+            }
+        }
+        return new Fingerprint(hash1, hash2);
+    }
+
+    private static long fnv(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long multiply(long hash, int value) {
+        hash = (hash + (value & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    static @Nullable Loaded load(Fingerprint fingerprint, int commitCount) {
+        return load(getFile(fingerprint), fingerprint, commitCount);
+    }
+
+    /**
+     * @return {@code null} if the file is missing or was written for other commits; broken files are deleted
+     */
+    static @Nullable Loaded load(File file, Fingerprint fingerprint, int commitCount) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < HEADER_INTS * Integer.BYTES) {
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            IntBuffer ints = buffer.asIntBuffer();
+
+            if (ints.get(0) != MAGIC
+                || ints.get(1) != VERSION
+                || getLong(ints, 2) != fingerprint.hash1()
+                || getLong(ints, 4) != fingerprint.hash2()
+                || ints.get(6) != commitCount) {
+                return null;
+            }
+            int edgesCount = ints.get(7);
+            int notLoadedCount = ints.get(8);
+            int headsCount = ints.get(9);
+            int flagsCount = (commitCount + 31) / 32;
+            long expectedSize = (long)HEADER_INTS + (commitCount + 1) + edgesCount + flagsCount + 2L * notLoadedCount + 2L * headsCount +
+                commitCount;
+            if (edgesCount < 0 || notLoadedCount < 0 || headsCount < 0 || expectedSize * Integer.BYTES != size) {
+                LOG.warn("Corrupted graph storage " + file);
+                FileUtil.delete(file);
+                return null;
+            }
+
+            int offset = HEADER_INTS;
+            IntList nodeToEdgeIndex = new MappedIntList(ints, offset, commitCount + 1);
+            offset += commitCount + 1;
+            IntList longEdges = new MappedIntList(ints, offset, edgesCount);
+            offset += edgesCount;
+
+            Flags simpleNodes = new BitSetFlags(commitCount);
+            for (int i = 0; i < flagsCount; i++) {
+                int word = ints.get(offset + i);
+                while (word != 0) {
+                    simpleNodes.set(i * 32 + Integer.numberOfTrailingZeros(word), true);
+                    word &= word - 1;
+                }
+            }
+            offset += flagsCount;
+
+            Map<Integer, Integer> notLoadedCommits = new HashMap<>();
+            for (int i = 0; i < notLoadedCount; i++) {
+                notLoadedCommits.put(ints.get(offset + 2 * i), ints.get(offset + 2 * i + 1));
+            }
+            offset += 2 * notLoadedCount;
+
+            List<Integer> heads = new ArrayList<>(headsCount);
+            int[] startLayoutIndexForHead = new int[headsCount];
+            for (int i = 0; i < headsCount; i++) {
+                heads.add(ints.get(offset + i));
+                startLayoutIndexForHead[i] = ints.get(offset + headsCount + i);
+            }
+            offset += 2 * headsCount;
+
+            IntList layoutIndex = new MappedIntList(ints, offset, commitCount);
+
+            // most recently used files survive the cleanup
+            file.setLastModified(System.currentTimeMillis());
+
+            PermanentLinearGraphImpl graph = new PermanentLinearGraphImpl(simpleNodes, nodeToEdgeIndex, longEdges);
+            return new Loaded(graph, notLoadedCommits, layoutIndex, heads, startLayoutIndexForHead);
+        }
+        catch (IOException e) {
+            LOG.warn("Could not read graph storage " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the graph in background.
+     */
+    static void save(
+        Fingerprint fingerprint,
+        PermanentLinearGraphBuilder<?> builder,
+        Map<Integer, ?> notLoadedCommits,
+        GraphLayoutImpl layout
+    ) {
+        int[] nodeToEdgeIndex = builder.getNodeToEdgeIndex();
+        int[] longEdges = builder.getLongEdges();
+        Flags simpleNodes = builder.getSimpleNodes();
+        Map<Integer, Integer> notLoaded = new HashMap<>();
+        for (Map.Entry<Integer, ?> entry : notLoadedCommits.entrySet()) {
+            notLoaded.put(entry.getKey(), (Integer)entry.getValue());
+        }
+
+        ApplicationConcurrency concurrency = Application.get().getInstance(ApplicationConcurrency.class);
+        concurrency.getExecutorService().execute(() -> {
+            File file = getFile(fingerprint);
+            if (file.exists()) {
+                return;
+            }
+            try {
+                write(file, fingerprint, nodeToEdgeIndex, longEdges, simpleNodes, notLoaded, layout);
+                cleanup(file);
+            }
+            catch (IOException e) {
+                LOG.warn("Could not write graph storage " + file, e);
+            }
+        });
+    }
+
+    static void write(
+        File file,
+        Fingerprint fingerprint,
+        int[] nodeToEdgeIndex,
+        int[] longEdges,
+        Flags simpleNodes,
+        Map<Integer, Integer> notLoadedCommits,
+        GraphLayoutImpl layout
+    ) throws IOException {
+        FileUtil.createParentDirs(file);
+        // unique, logs with the same commits may write the same file concurrently
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        int commitCount = simpleNodes.size();
+        List<Integer> heads = layout.getHeadNodeIndex();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint.hash1());
+            out.writeLong(fingerprint.hash2());
+            out.writeInt(commitCount);
+            out.writeInt(longEdges.length);
+            out.writeInt(notLoadedCommits.size());
+            out.writeInt(heads.size());
+
+            for (int value : nodeToEdgeIndex) {
+                out.writeInt(value);
+            }
+            for (int value : longEdges) {
+                out.writeInt(value);
+            }
+            for (int word = 0; word < (commitCount + 31) / 32; word++) {
+                int bits = 0;
+                for (int bit = 0; bit < 32 && word * 32 + bit < commitCount; bit++) {
+                    if (simpleNodes.get(word * 32 + bit)) {
+                        bits |= 1 << bit;
+                    }
+                }
+                out.writeInt(bits);
+            }
+            for (Map.Entry<Integer, Integer> entry : notLoadedCommits.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            for (int head : heads) {
+                out.writeInt(head);
+            }
+            for (int i = 0; i < heads.size(); i++) {
+                out.writeInt(layout.getStartLayoutIndex(i));
+            }
+            for (int node = 0; node < commitCount; node++) {
+                out.writeInt(layout.getLayoutIndex(node));
+            }
+        }
+        catch (IOException e) {
+            FileUtil.delete(tempFile);
+            throw e;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            FileUtil.delete(tempFile);
+            if (!file.exists()) {
+                throw new IOException("Could not rename " + tempFile + " to " + file);
+            }
+            // another log has saved the same graph meanwhile
+        }
+    }
+
+    private static void cleanup(File current) {
+        File[] files = current.getParentFile().listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null || files.length <= MAX_FILES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = MAX_FILES; i < files.length; i++) {
+            if (!FileUtil.filesEqual(files[i], current)) {
+                // may fail while the file is still mapped by an open log, it will be deleted next time
+                FileUtil.delete(files[i]);
+            }
+        }
+    }
+
+    private static File getFile(Fingerprint fingerprint) {
+        String name = String.format("%016x%016x", fingerprint.hash1(), fingerprint.hash2());
+        return new File(new File(PersistentUtil.LOG_CACHE, "graph"), name + "." + VERSION + EXTENSION);
+    }
+
+    private static long getLong(IntBuffer ints, int index) {
+        return (long)ints.get(index) << 32 | ints.get(index + 1) & 0xFFFFFFFFL;
+    }
+}
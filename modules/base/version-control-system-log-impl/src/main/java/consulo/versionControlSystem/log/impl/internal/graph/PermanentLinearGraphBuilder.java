@@ -174,6 +174,18 @@ public class PermanentLinearGraphBuilder<CommitId> {
     return new PermanentLinearGraphImpl(mySimpleNodes, myNodeToEdgeIndex, myLongEdges);
   }
 
+  /*package*/ Flags getSimpleNodes() {
+    return mySimpleNodes;
+  }
+
+  /*package*/ int[] getNodeToEdgeIndex() {
+    return myNodeToEdgeIndex;
+  }
+
+  /*package*/ int[] getLongEdges() {
+    return myLongEdges;
+  }
+
   
   public PermanentLinearGraphImpl build() {
     return build(dom -> Integer.MIN_VALUE);
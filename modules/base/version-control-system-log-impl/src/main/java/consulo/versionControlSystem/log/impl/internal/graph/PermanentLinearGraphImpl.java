@@ -34,9 +34,13 @@ public class PermanentLinearGraphImpl implements LinearGraph {
   private final IntList myLongEdges;
 
   /*package*/ PermanentLinearGraphImpl(Flags simpleNodes, int[] nodeToEdgeIndex, int[] longEdges) {
+    this(simpleNodes, CompressedIntList.newInstance(nodeToEdgeIndex), CompressedIntList.newInstance(longEdges));
+  }
+
+  /*package*/ PermanentLinearGraphImpl(Flags simpleNodes, IntList nodeToEdgeIndex, IntList longEdges) {
     mySimpleNodes = simpleNodes;
-    myNodeToEdgeIndex = CompressedIntList.newInstance(nodeToEdgeIndex);
-    myLongEdges = CompressedIntList.newInstance(longEdges);
+    myNodeToEdgeIndex = nodeToEdgeIndex;
+    myLongEdges = longEdges;
   }
 
   @TestOnly
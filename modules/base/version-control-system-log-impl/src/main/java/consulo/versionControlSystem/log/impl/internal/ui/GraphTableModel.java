@@ -27,6 +27,8 @@ public class GraphTableModel extends AbstractTableModel {
 
     private static final int UP_PRELOAD_COUNT = 20;
     private static final int DOWN_PRELOAD_COUNT = 40;
+    // rows loaded ahead of the visible ones in the scroll direction
+    private static final int PREFETCH_COUNT = 200;
 
     
     private final VcsLogDataImpl myLogData;
@@ -38,6 +40,9 @@ public class GraphTableModel extends AbstractTableModel {
 
     private boolean myMoreRequested;
 
+    private int myFirstVisibleRow = -1;
+    private boolean myScrollingUp;
+
     public GraphTableModel(VisiblePack dataPack, VcsLogDataImpl logData, VcsLogUiImpl ui) {
         myLogData = logData;
         myUi = ui;
@@ -154,6 +159,7 @@ public class GraphTableModel extends AbstractTableModel {
     public void setVisiblePack(VisiblePack visiblePack) {
         myDataPack = visiblePack;
         myMoreRequested = false;
+        myFirstVisibleRow = -1;
         fireTableDataChanged();
     }
 
@@ -174,10 +180,32 @@ public class GraphTableModel extends AbstractTableModel {
 
     
     private <T extends VcsShortCommitDetails> T getDetails(int row, DataGetter<T> dataGetter) {
-        Iterable<Integer> iterable = createRowsIterable(row, UP_PRELOAD_COUNT, DOWN_PRELOAD_COUNT, getRowCount());
+        // load more commits in the direction the table is scrolled
+        int above = myScrollingUp ? DOWN_PRELOAD_COUNT : UP_PRELOAD_COUNT;
+        int below = myScrollingUp ? UP_PRELOAD_COUNT : DOWN_PRELOAD_COUNT;
+        Iterable<Integer> iterable = createRowsIterable(row, above, below, getRowCount());
         return dataGetter.getCommitData(getIdAtRow(row), iterable);
     }
 
+    /**
+     * Called when the table is scrolled: remembers the scroll direction
+     * and starts loading details of the rows which are going to be shown next, before they are painted.
+     */
+    public void visibleRowsChanged(int firstRow, int lastRow) {
+        int rowCount = getRowCount();
+        if (firstRow < 0 || lastRow < firstRow || rowCount == 0) return;
+        if (myFirstVisibleRow >= 0 && firstRow != myFirstVisibleRow) {
+            myScrollingUp = firstRow < myFirstVisibleRow;
+        }
+        myFirstVisibleRow = firstRow;
+
+        int start = myScrollingUp ? Math.max(0, firstRow - PREFETCH_COUNT) : Math.min(rowCount, lastRow + 1);
+        int end = myScrollingUp ? firstRow : Math.min(rowCount, lastRow + 1 + PREFETCH_COUNT);
+        if (start < end) {
+            myLogData.getMiniDetailsGetter().prefetchCommitData(createRowsIterable(start, 0, end - start, rowCount));
+        }
+    }
+
     
     public Collection<VcsRef> getRefsAtRow(int row) {
         return ((RefsModel)myDataPack.getRefs()).refsToCommit(getIdAtRow(row));
@@ -379,6 +379,7 @@ public class VcsLogGraphTable extends TableWithProgress implements UiDataProvide
       AbstractTableModel model = getModel();
       Couple<Integer> visibleRows = ScrollingUtil.getVisibleRows(this);
       model.fireTableChanged(new TableModelEvent(model, visibleRows.first - 1, visibleRows.second, GraphTableModel.ROOT_COLUMN));
+      getModel().visibleRowsChanged(visibleRows.first, visibleRows.second);
     });
   }
 
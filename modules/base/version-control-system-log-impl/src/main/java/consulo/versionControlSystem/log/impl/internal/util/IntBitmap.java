@@ -0,0 +1,515 @@
+package consulo.versionControlSystem.log.impl.internal.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed int set in the spirit of Roaring bitmaps: values are split into chunks by their upper 16 bits,
+ * sparse chunks keep the lower 16 bits in a sorted array and dense chunks keep them in a bitset.
+ * <p>
+ * Union and intersection of two bitmaps work chunk by chunk, dense chunks are combined word by word.
+ * The class is not a collection: it has only the operations of the log which are backed by the chunk structure.
+ * The class is not thread-safe.
+ *
+ * @since 2026-10-19
+ */
+public final class IntBitmap {
+  private static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+  private static final int BITMAP_WORDS = (1 << 16) / Long.SIZE;
+
+  // sorted upper 16 bits of the values
+  private char[] myKeys;
+  private Container[] myContainers;
+  private int myChunkCount;
+
+  public IntBitmap() {
+    myKeys = new char[4];
+    myContainers = new Container[4];
+  }
+
+  private IntBitmap(char[] keys, Container[] containers, int chunkCount) {
+    myKeys = keys;
+    myContainers = containers;
+    myChunkCount = chunkCount;
+  }
+
+  public static IntBitmap and(IntBitmap bitmap1, IntBitmap bitmap2) {
+    int capacity = Math.max(4, Math.min(bitmap1.myChunkCount, bitmap2.myChunkCount));
+    char[] keys = new char[capacity];
+    Container[] containers = new Container[capacity];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < bitmap1.myChunkCount && j < bitmap2.myChunkCount) {
+      char key1 = bitmap1.myKeys[i];
+      char key2 = bitmap2.myKeys[j];
+      if (key1 < key2) {
+        i++;
+      }
+      else if (key2 < key1) {
+        j++;
+      }
+      else {
+        Container container = bitmap1.myContainers[i++].and(bitmap2.myContainers[j++]);
+        if (container.size() > 0) {
+          keys[count] = key1;
+          containers[count++] = container;
+        }
+      }
+    }
+    return new IntBitmap(keys, containers, count);
+  }
+
+  /**
+   * Adds all values of the other bitmap to this one, the other bitmap is not modified.
+   */
+  public void or(IntBitmap other) {
+    if (other.myChunkCount == 0) {
+      return;
+    }
+
+    char[] keys = new char[myChunkCount + other.myChunkCount];
+    Container[] containers = new Container[keys.length];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < myChunkCount || j < other.myChunkCount) {
+      if (j == other.myChunkCount || i < myChunkCount && myKeys[i] < other.myKeys[j]) {
+        keys[count] = myKeys[i];
+        containers[count++] = myContainers[i++];
+      }
+      else if (i == myChunkCount || other.myKeys[j] < myKeys[i]) {
+        keys[count] = other.myKeys[j];
+        containers[count++] = other.myContainers[j++].copy();
+      }
+      else {
+        keys[count] = myKeys[i];
+        containers[count++] = myContainers[i++].or(other.myContainers[j++]);
+      }
+    }
+    myKeys = keys;
+    myContainers = containers;
+    myChunkCount = count;
+  }
+
+  public boolean add(int value) {
+    char high = (char)(value >>> 16);
+    int index = indexOf(high);
+    if (index < 0) {
+      index = -index - 1;
+      insertChunk(index, high, new ArrayContainer(new char[4], 0));
+    }
+    Container container = myContainers[index];
+    int size = container.size();
+    myContainers[index] = container.add((char)value);
+    return myContainers[index].size() != size;
+  }
+
+  public boolean remove(int value) {
+    int index = indexOf((char)(value >>> 16));
+    if (index < 0) {
+      return false;
+    }
+    Container container = myContainers[index];
+    int size = container.size();
+    Container result = container.remove((char)value);
+    if (result.size() == 0) {
+      removeChunk(index);
+    }
+    else {
+      myContainers[index] = result;
+    }
+    return result.size() != size;
+  }
+
+  public boolean contains(int value) {
+    int index = indexOf((char)(value >>> 16));
+    return index >= 0 && myContainers[index].contains((char)value);
+  }
+
+  /**
+   * Keeps only the values which are also in the other bitmap, the other bitmap is not modified.
+   *
+   * @return {@code true} if this bitmap changed
+   */
+  public boolean retainAll(IntBitmap other) {
+    int size = size();
+    IntBitmap result = and(this, other);
+    myKeys = result.myKeys;
+    myContainers = result.myContainers;
+    myChunkCount = result.myChunkCount;
+    return size() != size;
+  }
+
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < myChunkCount; i++) {
+      size += myContainers[i].size();
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return myChunkCount == 0;
+  }
+
+  public void clear() {
+    myKeys = new char[4];
+    myContainers = new Container[4];
+    myChunkCount = 0;
+  }
+
+  public int[] toArray() {
+    int[] result = new int[size()];
+    int[] index = {0};
+    forEach(value -> result[index[0]++] = value);
+    return result;
+  }
+
+  public void forEach(IntConsumer action) {
+    for (int i = 0; i < myChunkCount; i++) {
+      myContainers[i].forEach(myKeys[i] << 16, action);
+    }
+  }
+
+  public PrimitiveIterator.OfInt iterator() {
+    return new PrimitiveIterator.OfInt() {
+      private int myChunk = -1;
+      private PrimitiveIterator.OfInt myChunkIterator;
+
+      @Override
+      public boolean hasNext() {
+        while (myChunkIterator == null || !myChunkIterator.hasNext()) {
+          if (myChunk + 1 >= myChunkCount) {
+            return false;
+          }
+          myChunkIterator = myContainers[++myChunk].iterator();
+        }
+        return true;
+      }
+
+      @Override
+      public int nextInt() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return myKeys[myChunk] << 16 | myChunkIterator.nextInt();
+      }
+    };
+  }
+
+  private int indexOf(char high) {
+    return Arrays.binarySearch(myKeys, 0, myChunkCount, high);
+  }
+
+  private void insertChunk(int index, char high, Container container) {
+    if (myChunkCount == myKeys.length) {
+      int capacity = Math.max(4, myKeys.length * 2);
+      myKeys = Arrays.copyOf(myKeys, capacity);
+      myContainers = Arrays.copyOf(myContainers, capacity);
+    }
+    System.arraycopy(myKeys, index, myKeys, index + 1, myChunkCount - index);
+    System.arraycopy(myContainers, index, myContainers, index + 1, myChunkCount - index);
+    myKeys[index] = high;
+    myContainers[index] = container;
+    myChunkCount++;
+  }
+
+  private void removeChunk(int index) {
+    System.arraycopy(myKeys, index + 1, myKeys, index, myChunkCount - index - 1);
+    System.arraycopy(myContainers, index + 1, myContainers, index, myChunkCount - index - 1);
+    myContainers[--myChunkCount] = null;
+  }
+
+  /**
+   * Lower 16 bits of the values of a single chunk. Mutating operations return the container which should replace this one,
+   * {@link #or} and {@link #and} don't modify their operands.
+   */
+  private abstract static class Container {
+    abstract int size();
+
+    abstract boolean contains(char value);
+
+    abstract Container add(char value);
+
+    abstract Container remove(char value);
+
+    abstract Container or(Container other);
+
+    abstract Container and(Container other);
+
+    abstract Container copy();
+
+    abstract void forEach(int high, IntConsumer action);
+
+    abstract PrimitiveIterator.OfInt iterator();
+  }
+
+  private static final class ArrayContainer extends Container {
+    private char[] myValues;
+    private int mySize;
+
+    private ArrayContainer(char[] values, int size) {
+      myValues = values;
+      mySize = size;
+    }
+
+    @Override
+    int size() {
+      return mySize;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return Arrays.binarySearch(myValues, 0, mySize, value) >= 0;
+    }
+
+    @Override
+    Container add(char value) {
+      int index = Arrays.binarySearch(myValues, 0, mySize, value);
+      if (index >= 0) {
+        return this;
+      }
+      if (mySize == ARRAY_CONTAINER_MAX_SIZE) {
+        return toBitmap().add(value);
+      }
+      index = -index - 1;
+      if (mySize == myValues.length) {
+        myValues = Arrays.copyOf(myValues, Math.min(ARRAY_CONTAINER_MAX_SIZE, Math.max(4, mySize * 2)));
+      }
+      System.arraycopy(myValues, index, myValues, index + 1, mySize - index);
+      myValues[index] = value;
+      mySize++;
+      return this;
+    }
+
+    @Override
+    Container remove(char value) {
+      int index = Arrays.binarySearch(myValues, 0, mySize, value);
+      if (index >= 0) {
+        System.arraycopy(myValues, index + 1, myValues, index, mySize - index - 1);
+        mySize--;
+      }
+      return this;
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof BitmapContainer) {
+        return other.or(this);
+      }
+      ArrayContainer otherArray = (ArrayContainer)other;
+      char[] result = new char[mySize + otherArray.mySize];
+      int count = 0;
+      int i = 0;
+      int j = 0;
+      while (i < mySize && j < otherArray.mySize) {
+        char value1 = myValues[i];
+        char value2 = otherArray.myValues[j];
+        if (value1 <= value2) {
+          i++;
+          if (value1 == value2) {
+            j++;
+          }
+          result[count++] = value1;
+        }
+        else {
+          j++;
+          result[count++] = value2;
+        }
+      }
+      while (i < mySize) {
+        result[count++] = myValues[i++];
+      }
+      while (j < otherArray.mySize) {
+        result[count++] = otherArray.myValues[j++];
+      }
+      return count > ARRAY_CONTAINER_MAX_SIZE ? BitmapContainer.of(result, count) : new ArrayContainer(result, count);
+    }
+
+    @Override
+    Container and(Container other) {
+      char[] result = new char[mySize];
+      int count = 0;
+      for (int i = 0; i < mySize; i++) {
+        if (other.contains(myValues[i])) {
+          result[count++] = myValues[i];
+        }
+      }
+      return new ArrayContainer(result, count);
+    }
+
+    @Override
+    Container copy() {
+      return new ArrayContainer(Arrays.copyOf(myValues, mySize), mySize);
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+      for (int i = 0; i < mySize; i++) {
+        action.accept(high | myValues[i]);
+      }
+    }
+
+    @Override
+    PrimitiveIterator.OfInt iterator() {
+      return new PrimitiveIterator.OfInt() {
+        private int myIndex;
+
+        @Override
+        public boolean hasNext() {
+          return myIndex < mySize;
+        }
+
+        @Override
+        public int nextInt() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return myValues[myIndex++];
+        }
+      };
+    }
+
+    private BitmapContainer toBitmap() {
+      return BitmapContainer.of(myValues, mySize);
+    }
+  }
+
+  private static final class BitmapContainer extends Container {
+    private final long[] myWords;
+    private int mySize;
+
+    private BitmapContainer(long[] words, int size) {
+      myWords = words;
+      mySize = size;
+    }
+
+    private static BitmapContainer of(char[] values, int size) {
+      long[] words = new long[BITMAP_WORDS];
+      for (int i = 0; i < size; i++) {
+        words[values[i] >>> 6] |= 1L << values[i];
+      }
+      return new BitmapContainer(words, size);
+    }
+
+    @Override
+    int size() {
+      return mySize;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return (myWords[value >>> 6] & 1L << value) != 0;
+    }
+
+    @Override
+    Container add(char value) {
+      if (!contains(value)) {
+        myWords[value >>> 6] |= 1L << value;
+        mySize++;
+      }
+      return this;
+    }
+
+    @Override
+    Container remove(char value) {
+      if (!contains(value)) {
+        return this;
+      }
+      myWords[value >>> 6] &= ~(1L << value);
+      mySize--;
+      return mySize <= ARRAY_CONTAINER_MAX_SIZE ? toArray() : this;
+    }
+
+    @Override
+    Container or(Container other) {
+      long[] words = myWords.clone();
+      if (other instanceof BitmapContainer otherBitmap) {
+        int size = 0;
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+          words[i] |= otherBitmap.myWords[i];
+          size += Long.bitCount(words[i]);
+        }
+        return new BitmapContainer(words, size);
+      }
+
+      BitmapContainer result = new BitmapContainer(words, mySize);
+      ArrayContainer otherArray = (ArrayContainer)other;
+      for (int i = 0; i < otherArray.mySize; i++) {
+        result.add(otherArray.myValues[i]);
+      }
+      return result;
+    }
+
+    @Override
+    Container and(Container other) {
+      if (other instanceof ArrayContainer) {
+        return other.and(this);
+      }
+      BitmapContainer otherBitmap = (BitmapContainer)other;
+      long[] words = new long[BITMAP_WORDS];
+      int size = 0;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        words[i] = myWords[i] & otherBitmap.myWords[i];
+        size += Long.bitCount(words[i]);
+      }
+      BitmapContainer result = new BitmapContainer(words, size);
+      return size <= ARRAY_CONTAINER_MAX_SIZE ? result.toArray() : result;
+    }
+
+    @Override
+    Container copy() {
+      return new BitmapContainer(myWords.clone(), mySize);
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        long word = myWords[i];
+        while (word != 0) {
+          action.accept(high | i << 6 | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+    }
+
+    @Override
+    PrimitiveIterator.OfInt iterator() {
+      return new PrimitiveIterator.OfInt() {
+        private int myWordIndex;
+        private long myWord = myWords[0];
+
+        @Override
+        public boolean hasNext() {
+          while (myWord == 0) {
+            if (myWordIndex + 1 >= BITMAP_WORDS) {
+              return false;
+            }
+            myWord = myWords[++myWordIndex];
+          }
+          return true;
+        }
+
+        @Override
+        public int nextInt() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          int value = myWordIndex << 6 | Long.numberOfTrailingZeros(myWord);
+          myWord &= myWord - 1;
+          return value;
+        }
+      };
+    }
+
+    private ArrayContainer toArray() {
+      char[] values = new char[mySize];
+      int[] count = {0};
+      forEach(0, value -> values[count[0]++] = (char)value);
+      return new ArrayContainer(values, mySize);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package consulo.versionControlSystem.log.impl.internal.util;
+
+import java.nio.IntBuffer;
+
+/**
+ * Read-only int list backed by a region of a (memory mapped) buffer, values are not copied to the heap.
+ *
+ * @since 2026-10-19
+ */
+public class MappedIntList implements IntList {
+  private final IntBuffer myBuffer;
+  private final int myOffset;
+  private final int mySize;
+
+  public MappedIntList(IntBuffer buffer, int offset, int size) {
+    if (offset < 0 || size < 0 || size > buffer.limit() - offset) {
+      throw new IllegalArgumentException("Region [" + offset + ", " + (offset + size) + ") is out of buffer of size " + buffer.limit());
+    }
+    myBuffer = buffer;
+    myOffset = offset;
+    mySize = size;
+  }
+
+  @Override
+  public int size() {
+    return mySize;
+  }
+
+  @Override
+  public int get(int index) {
+    if (index < 0 || index >= mySize) throw new IndexOutOfBoundsException("index: " + index + ", size: " + mySize);
+    // absolute get doesn't touch the buffer position, so the list can be read concurrently
+    return myBuffer.get(myOffset + index);
+  }
+}
@@ -76,6 +76,27 @@ public class TroveUtil {
     return createJavaSet(result);
   }
 
+  /**
+   * Intersects the sets and the bitmap, {@code null} arguments don't restrict the result.
+   */
+  public static Set<Integer> intersect(@Nullable IntBitmap bitmap, IntSet... sets) {
+    if (bitmap == null) return intersect(sets);
+
+    boolean noSets = true;
+    for (IntSet set : sets) {
+      if (set != null) noSets = false;
+    }
+    if (noSets) {
+      Set<Integer> result = new HashSet<>(bitmap.size());
+      bitmap.forEach(result::add);
+      return result;
+    }
+
+    Set<Integer> result = intersect(sets);
+    result.removeIf(value -> !bitmap.contains(value));
+    return result;
+  }
+
   private static @Nullable IntSet intersect(@Nullable IntSet set1, @Nullable IntSet set2) {
     if (set1 == null) return set2;
     if (set2 == null) return set1;
@@ -0,0 +1,49 @@
+package consulo.versionControlSystem.log.impl.internal.data;
+
+import consulo.versionControlSystem.log.VcsShortCommitDetails;
+import consulo.versionControlSystem.log.base.HashImpl;
+import consulo.versionControlSystem.log.base.VcsShortCommitDetailsImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @since 2026-10-19
+ */
+public class VcsCommitCacheTest {
+  @Test
+  void placeholdersAreNotHits() {
+    VcsCommitCache<Integer, VcsShortCommitDetails> cache = new VcsCommitCache<>(1 << 20);
+    LoadingDetails placeholder = new LoadingDetails(() -> null, 0);
+    assertTrue(cache.putIfAbsent(1, placeholder));
+    assertSame(placeholder, cache.get(1));
+    assertNull(cache.get(2));
+    assertEquals(0, cache.getHitRatio());
+
+    VcsShortCommitDetails details = createDetails("subject");
+    cache.put(1, details);
+    assertSame(details, cache.get(1));
+    assertSame(details, cache.get(1));
+    assertEquals(0.5, cache.getHitRatio());
+  }
+
+  @Test
+  void leastRecentlyAccessedDetailsAreEvicted() {
+    VcsCommitCache<Integer, VcsShortCommitDetails> cache = new VcsCommitCache<>(1000);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, createDetails("subject " + i));
+      // keeps the first commit recently accessed
+      assertNotNull(cache.get(0));
+    }
+    assertTrue(cache.isKeyCached(0));
+    assertTrue(cache.isKeyCached(9));
+    assertFalse(cache.isKeyCached(1));
+  }
+
+  private static VcsShortCommitDetails createDetails(String subject) {
+    VcsUserImpl user = new VcsUserImpl("user", "user@example.com");
+    return new VcsShortCommitDetailsImpl(HashImpl.build("0123456789abcdef"), List.of(), 0, null, subject, user, user, 0);
+  }
+}
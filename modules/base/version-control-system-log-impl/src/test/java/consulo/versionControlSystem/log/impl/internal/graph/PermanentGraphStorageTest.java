@@ -0,0 +1,163 @@
+package consulo.versionControlSystem.log.impl.internal.graph;
+
+import consulo.versionControlSystem.log.graph.EdgeFilter;
+import consulo.versionControlSystem.log.graph.GraphCommit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes a graph with merges, several heads and not loaded parents, and checks that it is read back unchanged,
+ * and that files of other commits, of another format version or cut short are not used.
+ *
+ * @since 2026-10-19
+ */
+public class PermanentGraphStorageTest {
+    private static final int COMMIT_COUNT = 2000;
+    // position of the version in the header
+    private static final int VERSION_OFFSET = Integer.BYTES;
+
+    @TempDir
+    File myDir;
+
+    private PermanentLinearGraphBuilder<Integer> myBuilder;
+    private PermanentLinearGraphImpl myGraph;
+    private Map<Integer, Integer> myNotLoadedCommits;
+    private GraphLayoutImpl myLayout;
+    private PermanentGraphStorage.Fingerprint myFingerprint;
+    private File myFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<GraphCommit<Integer>> commits = createCommits(new Random(1));
+        myBuilder = PermanentLinearGraphBuilder.newInstance(commits);
+        myNotLoadedCommits = new HashMap<>();
+        myGraph = myBuilder.build(commit -> {
+            int nodeId = -(myNotLoadedCommits.size() + 2);
+            myNotLoadedCommits.put(nodeId, commit);
+            return nodeId;
+        });
+        myLayout = GraphLayoutBuilder.build(myGraph, Comparator.naturalOrder());
+        myFingerprint = PermanentGraphStorage.fingerprint(commits);
+
+        myFile = new File(myDir, "graph.graph");
+        write();
+    }
+
+    @Test
+    void roundTrip() {
+        assertFalse(myNotLoadedCommits.isEmpty());
+        assertTrue(myLayout.getHeadNodeIndex().size() > 1);
+
+        PermanentGraphStorage.Loaded loaded = PermanentGraphStorage.load(myFile, myFingerprint, COMMIT_COUNT);
+        assertNotNull(loaded);
+
+        PermanentLinearGraphImpl graph = loaded.getGraph();
+        assertEquals(myGraph.nodesCount(), graph.nodesCount());
+        for (int node = 0; node < COMMIT_COUNT; node++) {
+            assertEquals(myGraph.getNodeId(node), graph.getNodeId(node));
+            assertEquals(myGraph.getAdjacentEdges(node, EdgeFilter.ALL), graph.getAdjacentEdges(node, EdgeFilter.ALL), "node " + node);
+        }
+        assertEquals(myNotLoadedCommits, loaded.getNotLoadedCommits());
+
+        GraphLayoutImpl layout = loaded.getLayout(Comparator.naturalOrder());
+        assertNotNull(layout);
+        assertEquals(myLayout.getHeadNodeIndex(), layout.getHeadNodeIndex());
+        for (int i = 0; i < myLayout.getHeadNodeIndex().size(); i++) {
+            assertEquals(myLayout.getStartLayoutIndex(i), layout.getStartLayoutIndex(i));
+        }
+        for (int node = 0; node < COMMIT_COUNT; node++) {
+            assertEquals(myLayout.getLayoutIndex(node), layout.getLayoutIndex(node));
+        }
+
+        // heads are ordered differently now, the layout has to be built again
+        assertNull(loaded.getLayout(Comparator.reverseOrder()));
+    }
+
+    @Test
+    void otherCommitsAreRejected() {
+        PermanentGraphStorage.Fingerprint other = new PermanentGraphStorage.Fingerprint(myFingerprint.hash1(), myFingerprint.hash2() + 1);
+        assertNull(PermanentGraphStorage.load(myFile, other, COMMIT_COUNT));
+        assertNull(PermanentGraphStorage.load(myFile, myFingerprint, COMMIT_COUNT + 1));
+        assertNull(PermanentGraphStorage.load(new File(myDir, "missing.graph"), myFingerprint, COMMIT_COUNT));
+        // still valid for its own commits
+        assertNotNull(PermanentGraphStorage.load(myFile, myFingerprint, COMMIT_COUNT));
+    }
+
+    @Test
+    void otherVersionIsRejected() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(myFile, "rw")) {
+            file.seek(VERSION_OFFSET);
+            int version = file.readInt();
+            file.seek(VERSION_OFFSET);
+            file.writeInt(version - 1);
+        }
+        assertNull(PermanentGraphStorage.load(myFile, myFingerprint, COMMIT_COUNT));
+    }
+
+    @Test
+    void truncatedFileIsRejectedAndDeleted() throws IOException {
+        long length = myFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(myFile, "rw")) {
+            file.setLength(length - Integer.BYTES);
+        }
+        assertNull(PermanentGraphStorage.load(myFile, myFingerprint, COMMIT_COUNT));
+        assertFalse(myFile.exists());
+    }
+
+    @Test
+    void fileShorterThanHeaderIsRejected() throws IOException {
+        Files.write(myFile.toPath(), Arrays.copyOf(Files.readAllBytes(myFile.toPath()), 3 * Integer.BYTES));
+        assertNull(PermanentGraphStorage.load(myFile, myFingerprint, COMMIT_COUNT));
+    }
+
+    @Test
+    void secondWriteLeavesNoTemporaryFiles() throws IOException {
+        byte[] content = Files.readAllBytes(myFile.toPath());
+        // as if another log saved the same graph meanwhile
+        write();
+
+        assertArrayEquals(content, Files.readAllBytes(myFile.toPath()));
+        assertEquals(List.of(myFile.getName()), Arrays.asList(Objects.requireNonNull(myDir.list())));
+        assertNotNull(PermanentGraphStorage.load(myFile, myFingerprint, COMMIT_COUNT));
+    }
+
+    private void write() throws IOException {
+        PermanentGraphStorage.write(myFile, myFingerprint, myBuilder.getNodeToEdgeIndex(), myBuilder.getLongEdges(),
+            myBuilder.getSimpleNodes(), myNotLoadedCommits, myLayout);
+    }
+
+    /**
+     * Commits newest first: mostly a chain, with merges, parents which are not loaded and commits which are skipped by
+     * their child and so become heads.
+     */
+    private static List<GraphCommit<Integer>> createCommits(Random random) {
+        List<GraphCommit<Integer>> commits = new ArrayList<>();
+        for (int id = 0; id < COMMIT_COUNT; id++) {
+            List<Integer> parents = new ArrayList<>();
+            if (id == COMMIT_COUNT - 1) {
+                // the root has no parents
+            }
+            else if (random.nextInt(50) == 0) {
+                parents.add(COMMIT_COUNT + id);
+            }
+            else {
+                parents.add(random.nextInt(30) == 0 ? Math.min(COMMIT_COUNT - 1, id + 2) : id + 1);
+                int mergedParent = id + 3 + random.nextInt(300);
+                if (random.nextInt(10) == 0 && mergedParent < COMMIT_COUNT) {
+                    parents.add(mergedParent);
+                }
+            }
+            commits.add(new GraphCommitImpl<>(id, parents, COMMIT_COUNT - id));
+        }
+        return commits;
+    }
+}
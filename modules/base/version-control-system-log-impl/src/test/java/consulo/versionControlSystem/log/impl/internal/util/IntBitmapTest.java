@@ -0,0 +1,242 @@
+package consulo.versionControlSystem.log.impl.internal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link IntBitmap} against a {@link HashSet} on random operations, values are generated around chunk boundaries,
+ * in dense chunks which switch between the array and the bitmap containers, and in the negative range.
+ *
+ * @since 2026-10-19
+ */
+public class IntBitmapTest {
+  private static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+
+  @Test
+  void randomAddAndRemove() {
+    Random random = new Random(1);
+    for (int round = 0; round < 20; round++) {
+      IntBitmap bitmap = new IntBitmap();
+      Set<Integer> expected = new HashSet<>();
+      for (int i = 0; i < 20_000; i++) {
+        int value = randomValue(random);
+        if (random.nextInt(3) == 0) {
+          assertEquals(expected.remove(value), bitmap.remove(value));
+        }
+        else {
+          assertEquals(expected.add(value), bitmap.add(value));
+        }
+        if (i % 2000 == 0) {
+          assertContent(expected, bitmap);
+        }
+      }
+      assertContent(expected, bitmap);
+    }
+  }
+
+  @Test
+  void conversionsAtArrayContainerLimit() {
+    IntBitmap bitmap = new IntBitmap();
+    Set<Integer> expected = new HashSet<>();
+    int base = 5 << 16;
+    for (int i = 0; i < ARRAY_CONTAINER_MAX_SIZE; i++) {
+      bitmap.add(base + i * 3);
+      expected.add(base + i * 3);
+    }
+    assertContent(expected, bitmap);
+
+    // to a bitmap container and back
+    assertTrue(bitmap.add(base + 1));
+    expected.add(base + 1);
+    assertContent(expected, bitmap);
+    assertFalse(bitmap.add(base + 1));
+    assertTrue(bitmap.remove(base + 1));
+    expected.remove(base + 1);
+    assertContent(expected, bitmap);
+    assertTrue(bitmap.add(base + 2));
+    expected.add(base + 2);
+    assertContent(expected, bitmap);
+
+    // down to an empty chunk
+    for (int value : bitmap.toArray()) {
+      assertTrue(bitmap.remove(value));
+    }
+    assertContent(Set.of(), bitmap);
+    assertTrue(bitmap.add(base));
+    assertContent(Set.of(base), bitmap);
+  }
+
+  @Test
+  void orAndAndOfRandomBitmaps() {
+    Random random = new Random(2);
+    for (int round = 0; round < 100; round++) {
+      Set<Integer> expected1 = new HashSet<>();
+      Set<Integer> expected2 = new HashSet<>();
+      IntBitmap bitmap1 = randomBitmap(random, expected1);
+      IntBitmap bitmap2 = randomBitmap(random, expected2);
+
+      Set<Integer> intersection = new HashSet<>(expected1);
+      intersection.retainAll(expected2);
+      IntBitmap and = IntBitmap.and(bitmap1, bitmap2);
+      assertContent(intersection, and);
+
+      Set<Integer> union = new HashSet<>(expected1);
+      union.addAll(expected2);
+      IntBitmap or = new IntBitmap();
+      or.or(bitmap1);
+      or.or(bitmap2);
+      assertContent(union, or);
+
+      // operands are not modified
+      assertContent(expected1, bitmap1);
+      assertContent(expected2, bitmap2);
+
+      // results stay usable
+      int value = randomValue(random);
+      and.add(value);
+      intersection.add(value);
+      assertContent(intersection, and);
+      or.remove(value);
+      union.remove(value);
+      assertContent(union, or);
+    }
+  }
+
+  @Test
+  void retainAll() {
+    Random random = new Random(3);
+    for (int round = 0; round < 100; round++) {
+      Set<Integer> expected1 = new HashSet<>();
+      Set<Integer> expected2 = new HashSet<>();
+      IntBitmap bitmap1 = randomBitmap(random, expected1);
+      IntBitmap bitmap2 = randomBitmap(random, expected2);
+
+      assertEquals(expected1.retainAll(expected2), bitmap1.retainAll(bitmap2));
+      assertContent(expected1, bitmap1);
+
+      int value = randomValue(random);
+      assertEquals(expected1.add(value), bitmap1.add(value));
+      assertContent(expected1, bitmap1);
+    }
+  }
+
+  @Test
+  void addAfterEmptyIntersection() {
+    IntBitmap bitmap = new IntBitmap();
+    bitmap.add(1);
+    IntBitmap disjoint = new IntBitmap();
+    disjoint.add(1 << 16);
+
+    for (IntBitmap other : new IntBitmap[]{new IntBitmap(), disjoint}) {
+      IntBitmap and = IntBitmap.and(bitmap, other);
+      assertContent(Set.of(), and);
+      for (int i = 0; i < 10; i++) {
+        assertTrue(and.add(i << 16));
+      }
+      assertEquals(10, and.size());
+    }
+
+    assertTrue(bitmap.retainAll(new IntBitmap()));
+    assertContent(Set.of(), bitmap);
+    assertTrue(bitmap.add(-1));
+    assertContent(Set.of(-1), bitmap);
+  }
+
+  @Test
+  void negativeAndExtremeValues() {
+    int[] values = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -65537, -65536, -65535, -1, 0, 1, 65535, 65536, Integer.MAX_VALUE};
+    IntBitmap bitmap = new IntBitmap();
+    Set<Integer> expected = new HashSet<>();
+    for (int value : values) {
+      assertTrue(bitmap.add(value));
+      expected.add(value);
+    }
+    assertContent(expected, bitmap);
+
+    IntBitmap other = new IntBitmap();
+    other.add(-1);
+    other.add(Integer.MAX_VALUE);
+    other.add(42);
+    assertContent(Set.of(-1, Integer.MAX_VALUE), IntBitmap.and(bitmap, other));
+    bitmap.or(other);
+    expected.add(42);
+    assertContent(expected, bitmap);
+
+    for (int value : values) {
+      assertTrue(bitmap.remove(value));
+      expected.remove(value);
+      assertContent(expected, bitmap);
+    }
+  }
+
+  @Test
+  void iteratorPastEnd() {
+    IntBitmap bitmap = new IntBitmap();
+    assertFalse(bitmap.iterator().hasNext());
+    bitmap.add(7);
+    PrimitiveIterator.OfInt iterator = bitmap.iterator();
+    assertEquals(7, iterator.nextInt());
+    assertFalse(iterator.hasNext());
+    assertThrows(NoSuchElementException.class, iterator::nextInt);
+  }
+
+  private static IntBitmap randomBitmap(Random random, Set<Integer> expected) {
+    IntBitmap bitmap = new IntBitmap();
+    int count = random.nextInt(4) == 0 ? 0 : random.nextInt(random.nextBoolean() ? 100 : 20_000);
+    for (int i = 0; i < count; i++) {
+      int value = randomValue(random);
+      bitmap.add(value);
+      expected.add(value);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Values from a few chunks, including negative ones, so both sparse and dense chunks appear.
+   */
+  private static int randomValue(Random random) {
+    int high = random.nextInt(4) - 2;
+    return switch (random.nextInt(3)) {
+      // dense: 8192 possible values, so the chunk goes over the array container limit
+      case 0 -> (high << 16) + random.nextInt(8192);
+      // sparse, close to the chunk boundary
+      case 1 -> (high << 16) + (random.nextBoolean() ? random.nextInt(16) : 65535 - random.nextInt(16));
+      default -> random.nextInt();
+    };
+  }
+
+  private static void assertContent(Set<Integer> expected, IntBitmap actual) {
+    assertEquals(expected.size(), actual.size());
+    assertEquals(expected.isEmpty(), actual.isEmpty());
+
+    Set<Integer> iterated = new HashSet<>();
+    PrimitiveIterator.OfInt iterator = actual.iterator();
+    while (iterator.hasNext()) {
+      assertTrue(iterated.add(iterator.nextInt()));
+    }
+    assertEquals(expected, iterated);
+
+    Set<Integer> visited = new HashSet<>();
+    actual.forEach(value -> assertTrue(visited.add(value)));
+    assertEquals(expected, visited);
+
+    int[] array = actual.toArray();
+    assertEquals(expected.size(), array.length);
+    for (int value : array) {
+      assertTrue(expected.contains(value));
+    }
+
+    for (int value : expected) {
+      assertTrue(actual.contains(value));
+      assertEquals(expected.contains(value + 1), actual.contains(value + 1));
+      assertEquals(expected.contains(value - 1), actual.contains(value - 1));
+    }
+  }
+}
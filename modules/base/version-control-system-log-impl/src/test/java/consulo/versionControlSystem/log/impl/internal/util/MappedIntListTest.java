@@ -0,0 +1,42 @@
+package consulo.versionControlSystem.log.impl.internal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @since 2026-10-19
+ */
+public class MappedIntListTest {
+  @Test
+  void readsItsRegionOnly() {
+    IntBuffer buffer = IntBuffer.allocate(10);
+    for (int i = 0; i < 10; i++) {
+      buffer.put(i, i * 10);
+    }
+    // the position of the buffer doesn't matter
+    buffer.position(7);
+
+    MappedIntList list = new MappedIntList(buffer, 3, 4);
+    assertEquals(4, list.size());
+    for (int i = 0; i < 4; i++) {
+      assertEquals((3 + i) * 10, list.get(i));
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(4));
+
+    assertEquals(0, new MappedIntList(buffer, 10, 0).size());
+  }
+
+  @Test
+  void regionOutOfBufferIsRejected() {
+    IntBuffer buffer = ByteBuffer.allocate(10 * Integer.BYTES).asIntBuffer();
+    assertThrows(IllegalArgumentException.class, () -> new MappedIntList(buffer, 8, 3));
+    assertThrows(IllegalArgumentException.class, () -> new MappedIntList(buffer, -1, 2));
+    assertThrows(IllegalArgumentException.class, () -> new MappedIntList(buffer, 0, -1));
+    assertThrows(IllegalArgumentException.class, () -> new MappedIntList(buffer, Integer.MAX_VALUE, 2));
+  }
+}
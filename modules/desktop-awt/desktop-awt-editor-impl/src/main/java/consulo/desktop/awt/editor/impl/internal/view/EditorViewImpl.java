@@ -281,6 +281,9 @@ public class EditorViewImpl implements RealEditorView, TextDrawingCallback, Disp
         myEditor.getSoftWrapModel().prepareToMapping();
         checkFontRenderContext(g.getFontRenderContext());
         myPainter.paint(g);
+        if (Registry.is("editor.text.layout.prefetch")) {
+            myTextLayoutCache.schedulePrefetch();
+        }
     }
 
     public void repaintCarets() {
@@ -370,6 +370,19 @@ abstract class LineLayout {
 
     abstract Stream<Chunk> getChunksInLogicalOrder();
 
+    /**
+     * Performs text layout for all chunks of the line in advance, so that subsequent painting finds it ready.
+     */
+    void ensureLayout(EditorViewImpl view, int line) {
+        Document document = view.getDocument();
+        int lineStartOffset = document.getLineStartOffset(line);
+        for (BidiRun run : getRunsInLogicalOrder()) {
+            for (Chunk chunk : run.getChunks(document.getImmutableCharSequence(), lineStartOffset)) {
+                chunk.ensureLayout(view, run, line);
+            }
+        }
+    }
+
     float getWidth() {
         throw new RuntimeException("This LineLayout instance doesn't have precalculated width");
     }
@@ -715,6 +728,10 @@ abstract class LineLayout {
             return true;
         }
 
+        int getLength() {
+            return endOffset - startOffset;
+        }
+
         void clearCache() {
             fragments = null;
         }
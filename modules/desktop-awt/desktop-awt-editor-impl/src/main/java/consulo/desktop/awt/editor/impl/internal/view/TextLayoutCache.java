@@ -15,6 +15,8 @@
  */
 package consulo.desktop.awt.editor.impl.internal.view;
 
+import consulo.application.util.registry.Registry;
+import consulo.codeEditor.VisualPosition;
 import consulo.disposer.Disposable;
 import consulo.disposer.Disposer;
 import consulo.document.Document;
@@ -29,22 +31,39 @@ import consulo.ui.ex.awt.update.UiNotifyConnector;
 import consulo.ui.ex.update.Activatable;
 import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
 
+import javax.swing.*;
 import java.awt.*;
 import java.util.List;
 import java.util.*;
-import java.util.function.Consumer;
 
 /**
  * Editor text layout storage. Layout is stored on a per-logical-line basis, 
  * it's created lazily (when requested) and invalidated on document changes or when explicitly requested.
+ * <p>
+ * Laid out chunks of all editors share a single memory budget ({@code editor.text.layout.cache.size.mb} registry key),
+ * chunks of the least recently used editors are released first. After painting, layout for the lines
+ * just outside the visible area is computed in small portions during idle time, so that scrolling finds it ready.
  *
  * @see LineLayout
  */
 class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
   private static final Logger LOG = Logger.getInstance(TextLayoutCache.class);
 
-  private static final int MAX_CHUNKS_IN_ACTIVE_EDITOR = 1000;
   private static final int MAX_CHUNKS_IN_INACTIVE_EDITOR = 10;
+  private static final int INITIAL_CHUNKS_CAPACITY = 1000;
+
+  // rough estimation of memory used by text fragments (glyph vectors, positions, etc.)
+  private static final int CHUNK_OVERHEAD_BYTES = 512;
+  private static final int BYTES_PER_CHAR = 48;
+
+  private static final int PREFETCH_TIME_SLICE_MS = 4;
+  private static final int PREFETCH_MAX_LINE_LENGTH = 10_000;
+
+  // guards chunk sets of all caches and the shared budget state
+  private static final Object ourLock = new Object();
+  // caches in the order of access, most recently used first
+  private static final ObjectLinkedOpenHashSet<TextLayoutCache> ourCachesByAccess = new ObjectLinkedOpenHashSet<>();
+  private static long ourUsedBytes;
 
   private final EditorViewImpl myView;
   private final Document myDocument;
@@ -53,8 +72,15 @@ class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
   private int myDocumentChangeOldEndLine;
 
   private final ObjectLinkedOpenHashSet<LineLayout.Chunk> myLaidOutChunks =
-          new ObjectLinkedOpenHashSet<>(MAX_CHUNKS_IN_ACTIVE_EDITOR);
-  private final Consumer<LineLayout.Chunk> myRemoveLaidOutChunk = myLaidOutChunks::remove;
+          new ObjectLinkedOpenHashSet<>(INITIAL_CHUNKS_CAPACITY);
+
+  private int myModificationCount;
+  private int myPrefetchStartLine = -1;
+  private int myPrefetchEndLine = -1;
+  private int myPrefetchModificationCount = -1;
+  private int myNextPrefetchDownLine;
+  private int myNextPrefetchUpLine;
+  private boolean myPrefetchScheduled;
 
   TextLayoutCache(EditorViewImpl view) {
     myView = view;
@@ -96,8 +122,12 @@ class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
   @Override
   public void dispose() {
     myLines = null;
-    synchronized (myLaidOutChunks) {
+    synchronized (ourLock) {
+      for (LineLayout.Chunk chunk : myLaidOutChunks) {
+        ourUsedBytes -= estimateSize(chunk);
+      }
       myLaidOutChunks.clear();
+      ourCachesByAccess.remove(this);
     }
   }
 
@@ -120,6 +150,7 @@ class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
 
   private void invalidateLines(int startLine, int oldEndLine, int newEndLine, boolean textChanged, boolean bidiRequiredForNewText) {
     checkDisposed();
+    myModificationCount++;
 
     if (textChanged) {
       LineLayout firstOldLine = startLine >= 0 && startLine < myLines.size() ? myLines.get(startLine) : null;
@@ -166,38 +197,135 @@ class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
     return layout != null && layout != myBidiNotRequiredMarker;
   }
 
-  private int getChunkCacheSizeLimit() {
-    return myView.getEditor().getContentComponent().isShowing() ? MAX_CHUNKS_IN_ACTIVE_EDITOR : MAX_CHUNKS_IN_INACTIVE_EDITOR;
-  }
-
   @RequiredUIAccess
   void onChunkAccess(LineLayout.Chunk chunk) {
     CodeEditorAssertion.assertEditorThreading();
-    int limit = getChunkCacheSizeLimit();
-    synchronized (myLaidOutChunks) {
-      if (myLaidOutChunks.addAndMoveToFirst(chunk) && myLaidOutChunks.size() > limit) {
-        debug();
-        myLaidOutChunks.removeLast().clearCache();
+    synchronized (ourLock) {
+      ourCachesByAccess.addAndMoveToFirst(this);
+      if (myLaidOutChunks.addAndMoveToFirst(chunk)) {
+        ourUsedBytes += estimateSize(chunk);
+        trimToBudget(chunk);
+      }
+    }
+  }
+
+  private static void trimToBudget(LineLayout.Chunk accessedChunk) {
+    long budget = Registry.intValue("editor.text.layout.cache.size.mb", 16) * 1024L * 1024L;
+    while (ourUsedBytes > budget && !ourCachesByAccess.isEmpty()) {
+      TextLayoutCache cache = ourCachesByAccess.last();
+      ObjectLinkedOpenHashSet<LineLayout.Chunk> chunks = cache.myLaidOutChunks;
+      if (chunks.isEmpty()) {
+        ourCachesByAccess.removeLast();
+        continue;
+      }
+      if (chunks.last() == accessedChunk) {
+        // never release the chunk which is being laid out right now
+        break;
       }
+      cache.debug();
+      cache.releaseChunk(chunks.removeLast());
     }
   }
 
+  private void releaseChunk(LineLayout.Chunk chunk) {
+    ourUsedBytes -= estimateSize(chunk);
+    chunk.clearCache();
+  }
+
+  private static long estimateSize(LineLayout.Chunk chunk) {
+    return CHUNK_OVERHEAD_BYTES + (long)chunk.getLength() * BYTES_PER_CHAR;
+  }
+
   private void removeChunksFromCache(LineLayout layout) {
     CodeEditorAssertion.assertEditorThreading();
-    synchronized (myLaidOutChunks) {
-      layout.getChunksInLogicalOrder().forEach(myRemoveLaidOutChunk);
+    synchronized (ourLock) {
+      layout.getChunksInLogicalOrder().forEach(chunk -> {
+        if (myLaidOutChunks.remove(chunk)) {
+          ourUsedBytes -= estimateSize(chunk);
+        }
+      });
     }
   }
 
   private void trimChunkCache() {
     CodeEditorAssertion.assertEditorThreading();
-    int limit = getChunkCacheSizeLimit();
-    synchronized (myLaidOutChunks) {
-      while (myLaidOutChunks.size() > limit) {
+    synchronized (ourLock) {
+      while (myLaidOutChunks.size() > MAX_CHUNKS_IN_INACTIVE_EDITOR) {
         debug();
-        myLaidOutChunks.removeLast().clearCache();
+        releaseChunk(myLaidOutChunks.removeLast());
+      }
+    }
+  }
+
+  /**
+   * Schedules layout of the lines adjacent to the visible area (one screen above and below it).
+   * The work is performed on EDT, as layout depends on highlighters and markup, in short portions, to keep UI responsive.
+   */
+  @RequiredUIAccess
+  void schedulePrefetch() {
+    CodeEditorAssertion.assertEditorThreading();
+    if (myLines == null || myDocument.isInBulkUpdate() || myView.getEditor().isPurePaintingMode()) {
+      return;
+    }
+
+    Rectangle visibleArea = myView.getEditor().getScrollingModel().getVisibleArea();
+    if (visibleArea.height <= 0) {
+      return;
+    }
+    int startVisualLine = myView.yToVisualLine(visibleArea.y);
+    int endVisualLine = myView.yToVisualLine(visibleArea.y + visibleArea.height);
+    int startLine = myView.visualToLogicalPosition(new VisualPosition(startVisualLine, 0)).line;
+    int endLine = myView.visualToLogicalPosition(new VisualPosition(endVisualLine, 0)).line;
+    int pageSize = endLine - startLine + 1;
+
+    int lineCount = myDocument.getLineCount();
+    int prefetchStart = Math.max(0, startLine - pageSize);
+    int prefetchEnd = Math.min(lineCount - 1, endLine + pageSize);
+    if (prefetchStart == myPrefetchStartLine && prefetchEnd == myPrefetchEndLine && myPrefetchModificationCount == myModificationCount) {
+      return;
+    }
+
+    myPrefetchStartLine = prefetchStart;
+    myPrefetchEndLine = prefetchEnd;
+    myPrefetchModificationCount = myModificationCount;
+    myNextPrefetchDownLine = endLine + 1;
+    myNextPrefetchUpLine = startLine - 1;
+    if (!myPrefetchScheduled) {
+      myPrefetchScheduled = true;
+      SwingUtilities.invokeLater(this::prefetch);
+    }
+  }
+
+  /**
+   * Lays out lines going down and up from the visible area, alternately, until the time slice is exhausted.
+   */
+  private void prefetch() {
+    myPrefetchScheduled = false;
+    if (myLines == null || myDocument.isInBulkUpdate() || myPrefetchModificationCount != myModificationCount) {
+      return;
+    }
+
+    long deadline = System.currentTimeMillis() + PREFETCH_TIME_SLICE_MS;
+    while (myNextPrefetchDownLine <= myPrefetchEndLine || myNextPrefetchUpLine >= myPrefetchStartLine) {
+      if (myNextPrefetchDownLine <= myPrefetchEndLine) {
+        prefetchLine(myNextPrefetchDownLine++);
       }
+      if (myNextPrefetchUpLine >= myPrefetchStartLine) {
+        prefetchLine(myNextPrefetchUpLine--);
+      }
+      if (System.currentTimeMillis() > deadline) {
+        myPrefetchScheduled = true;
+        SwingUtilities.invokeLater(this::prefetch);
+        return;
+      }
+    }
+  }
+
+  private void prefetchLine(int line) {
+    if (line >= myLines.size() || myDocument.getLineEndOffset(line) - myDocument.getLineStartOffset(line) > PREFETCH_MAX_LINE_LENGTH) {
+      return;
     }
+    getLineLayout(line).ensureLayout(myView, line);
   }
 
   private void debug() {
@@ -30,8 +30,11 @@ import consulo.diff.DiffContext;
 import consulo.diff.content.DiffContent;
 import consulo.diff.content.FileContent;
 import consulo.diff.impl.internal.action.FocusOppositePaneAction;
+import consulo.diff.impl.internal.util.MappedLineDiff;
+import consulo.diff.localize.DiffLocalize;
 import consulo.diff.request.ContentDiffRequest;
 import consulo.diff.request.DiffRequest;
+import consulo.diff.util.Range;
 import consulo.diff.util.Side;
 import consulo.fileEditor.FileEditor;
 import consulo.logging.Logger;
@@ -44,6 +47,7 @@ import org.jspecify.annotations.Nullable;
 
 import javax.swing.*;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -123,6 +127,10 @@ public class TwosideBinaryDiffViewer extends TwosideDiffViewer<BinaryEditorHolde
             VirtualFile file1 = ((FileContent)contents.get(0)).getFile();
             VirtualFile file2 = ((FileContent)contents.get(1)).getFile();
 
+            if (MappedLineDiff.isTooLargeForDocument(file1) || MappedLineDiff.isTooLargeForDocument(file2)) {
+                return applyNotification(compareMapped(file1, file2, indicator));
+            }
+
             ThrowableComputable<JPanel, RuntimeException> action = () -> {
                 if (!file1.isValid() || !file2.isValid()) {
                     return DiffNotifications.createError();
@@ -154,6 +162,45 @@ public class TwosideBinaryDiffViewer extends TwosideDiffViewer<BinaryEditorHolde
         }
     }
 
+    /**
+     * Compares local files which are too large to be loaded into the heap, text files are compared line by line.
+     */
+    private static @Nullable JComponent compareMapped(VirtualFile file1, VirtualFile file2, ProgressIndicator indicator) {
+        if (!file1.isValid() || !file2.isValid()) {
+            return DiffNotifications.createError();
+        }
+
+        Path path1 = file1.getFileSystem().getNioPath(file1);
+        Path path2 = file2.getFileSystem().getNioPath(file2);
+        if (path1 == null || path2 == null) {
+            // the other file is not a local one, and can't be loaded entirely either
+            return null;
+        }
+
+        try {
+            if (MappedLineDiff.contentEquals(path1, path2, indicator)) {
+                return DiffNotifications.createEqualContents();
+            }
+            if (file1.getFileType().isBinary() || file2.getFileType().isBinary()) {
+                return null;
+            }
+
+            List<Range> changes = MappedLineDiff.compare(path1, path2, indicator);
+            if (changes.isEmpty()) {
+                // the files differ in line separators only
+                return DiffNotifications.createEqualContents(true, false);
+            }
+            Range first = changes.get(0);
+            return DiffNotifications.createNotification(
+                DiffLocalize.largeFilesAreDifferentMessage(changes.size(), first.start1 + 1, first.start2 + 1).get()
+            );
+        }
+        catch (IOException e) {
+            LOG.warn(e);
+            return null;
+        }
+    }
+
     
     private Runnable applyNotification(@Nullable JComponent notification) {
         return () -> {